@@ -0,0 +1,71 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.ChunkedWorld;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ChunkBenchmark.java
+ *
+ * Builds the three by three chunks around a player in a fresh world, on the
+ * pool, and then walks a player along a row of chunks, where all but the
+ * chunk ahead come from the cache.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class ChunkBenchmark {
+
+    @Param({"1000", "10000"})
+    public int sitesPerChunk;
+
+    long seed;
+    ChunkedWorld world;
+    int column;
+
+    @Setup(Level.Iteration)
+    public void fresh() {
+        world = new ChunkedWorld(123L, VoronoiBenchmark.SIZE, sitesPerChunk, 16, null);
+        column = 0;
+    }
+
+    @Benchmark
+    public ChunkedWorld.Chunk around() {
+        ChunkedWorld w = new ChunkedWorld(seed++, VoronoiBenchmark.SIZE, sitesPerChunk, 16, null);
+        w.prefetch(-1, -1, 1, 1);
+        ChunkedWorld.Chunk last = null;
+        for (int chunkY = -1; chunkY <= 1; chunkY++) {
+            for (int chunkX = -1; chunkX <= 1; chunkX++) {
+                last = w.chunk(chunkX, chunkY);
+            }
+        }
+        return last;
+    }
+
+    @Benchmark
+    public ChunkedWorld.Chunk walk() {
+        int chunkX = column++;
+        world.prefetch(chunkX - 1, -1, chunkX + 1, 1);
+        ChunkedWorld.Chunk last = null;
+        for (int chunkY = -1; chunkY <= 1; chunkY++) {
+            last = world.chunk(chunkX, chunkY);
+        }
+        return last;
+    }
+}
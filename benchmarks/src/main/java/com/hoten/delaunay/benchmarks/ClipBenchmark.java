@@ -0,0 +1,111 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.RegionTable;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ClipBenchmark.java
+ *
+ * Builds the regions of a diagram clipped to an octagon, once by passing the
+ * octagon to Voronoi and once by building inside the bounding square and
+ * clipping every region to the octagon afterwards.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class ClipBenchmark {
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    double[] coords;
+    Rectangle bounds;
+    ConvexPolygon octagon;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        coords = SiteDistribution.UNIFORM.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+        double[] corners = new double[16];
+        double half = VoronoiBenchmark.SIZE / 2;
+        for (int i = 0; i < 8; i++) {
+            double angle = Math.PI * (2 * i + 1) / 8;
+            corners[2 * i] = half + half * Math.cos(angle);
+            corners[2 * i + 1] = half + half * Math.sin(angle);
+        }
+        octagon = new ConvexPolygon(corners);
+    }
+
+    @Benchmark
+    public RegionTable polygon() {
+        return new Voronoi(coords, octagon).regionTable();
+    }
+
+    @Benchmark
+    public int rectangleThenClip() {
+        RegionTable table = new Voronoi(coords, bounds).regionTable();
+        double[] scratch = new double[64], clipped = new double[64];
+        int n = 0;
+        for (int s = 0; s < table.numSites; s++) {
+            int size = table.size(s);
+            if (scratch.length < 2 * (size + 8)) {
+                scratch = new double[4 * (size + 8)];
+                clipped = new double[4 * (size + 8)];
+            }
+            System.arraycopy(table.coords, 2 * table.offsets[s], scratch, 0, 2 * size);
+            for (int i = 0; i < octagon.numCorners() && size > 0; i++) {
+                int j = (i + 1) % octagon.numCorners();
+                size = clipToSide(scratch, size, octagon.cornerX(i), octagon.cornerY(i),
+                        octagon.cornerX(j), octagon.cornerY(j), clipped);
+                double[] t = scratch;
+                scratch = clipped;
+                clipped = t;
+            }
+            n += size;
+        }
+        return n;
+    }
+
+    // Sutherland-Hodgman against the line from (x0, y0) to (x1, y1), keeping its left
+    private static int clipToSide(double[] in, int size, double x0, double y0, double x1, double y1, double[] out) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int j = (i + 1) % size;
+            double ax = in[2 * i], ay = in[2 * i + 1], bx = in[2 * j], by = in[2 * j + 1];
+            double da = (x1 - x0) * (ay - y0) - (y1 - y0) * (ax - x0);
+            double db = (x1 - x0) * (by - y0) - (y1 - y0) * (bx - x0);
+            if (da >= 0) {
+                out[2 * n] = ax;
+                out[2 * n + 1] = ay;
+                n++;
+            }
+            if ((da < 0) != (db < 0)) {
+                double t = da / (da - db);
+                out[2 * n] = ax + t * (bx - ax);
+                out[2 * n + 1] = ay + t * (by - ay);
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,42 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * EdgeFootprint.java
+ *
+ * Retained heap of a built diagram, divided by its number of edges. Builds
+ * one diagram of uniform sites and reports the difference in used heap after
+ * full collections before and after; run with a fixed heap, e.g.
+ * java -Xms2g -Xmx2g -cp target/benchmarks.jar
+ * com.hoten.delaunay.benchmarks.EdgeFootprint 500000
+ *
+ * @author Connor
+ */
+public class EdgeFootprint {
+
+    public static void main(String[] args) {
+        int numSites = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        double[] coords = SiteDistribution.UNIFORM.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        Rectangle bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+
+        long before = usedHeap();
+        Voronoi voronoi = new Voronoi(coords, bounds);
+        long after = usedHeap();
+
+        int numEdges = voronoi.edges().size();
+        System.out.printf("%d sites, %d edges: %.1f MB retained, %.1f bytes per edge%n",
+                numSites, numEdges, (after - before) / 1e6, (after - before) / (double) numEdges);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,60 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildOptions;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EdgeListBenchmark.java
+ *
+ * The sweep with evenly split EdgeList buckets against buckets split at the
+ * quantiles of the sites' x coordinates, on uniform and clustered input.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class EdgeListBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int numSites;
+
+    @Param({"UNIFORM", "GAUSSIAN_CLUSTERED", "DENSE_CLUSTERS"})
+    public SiteDistribution distribution;
+
+    @Param({"UNIFORM", "QUANTILES"})
+    public BuildOptions.EdgeListHash edgeListHash;
+
+    double[] coords;
+    Rectangle bounds;
+    BuildOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        coords = distribution.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+        options = new BuildOptions().edgeListHash(edgeListHash);
+    }
+
+    @Benchmark
+    public Voronoi build() {
+        return new Voronoi(coords, bounds, options);
+    }
+}
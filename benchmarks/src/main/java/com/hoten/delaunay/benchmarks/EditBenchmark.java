@@ -0,0 +1,78 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EditBenchmark.java
+ *
+ * Adds a site to a built diagram and takes it away again, with
+ * Voronoi.insertSite() and removeSite(), against building the diagram with
+ * the extra site from scratch.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class EditBenchmark {
+
+    static final int NUM_EDITS = 1 << 12;
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    Rectangle bounds;
+    double[] coords;
+    Voronoi voronoi;
+    ArrayList<Point> edits;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+        double[] sites = SiteDistribution.UNIFORM.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        voronoi = new Voronoi(sites, bounds);
+        coords = Arrays.copyOf(sites, 2 * numSites + 2);
+        edits = SiteDistribution.UNIFORM.points(NUM_EDITS, VoronoiBenchmark.SIZE, 456L);
+        // the first edit recovers the triangulation; leave that out
+        voronoi.insertSite(edits.get(0));
+        voronoi.removeSite(numSites);
+    }
+
+    @Benchmark
+    public int insertAndRemove() {
+        // the new site is numbered last, so removing it leaves the diagram as it was
+        Point p = edits.get(next++ & (NUM_EDITS - 1));
+        int[] inserted = voronoi.insertSite(p);
+        int[] removed = voronoi.removeSite(numSites);
+        return inserted.length + removed.length;
+    }
+
+    @Benchmark
+    public Voronoi rebuild() {
+        Point p = edits.get(next++ & (NUM_EDITS - 1));
+        coords[2 * numSites] = p.x;
+        coords[2 * numSites + 1] = p.y;
+        return new Voronoi(coords, bounds);
+    }
+}
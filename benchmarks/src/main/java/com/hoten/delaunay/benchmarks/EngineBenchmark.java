@@ -0,0 +1,63 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildOptions;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EngineBenchmark.java
+ *
+ * Sequential sweep against the fork-join divide and conquer engine on large
+ * inputs. The divide and conquer engine uses the common pool, so run this on
+ * a machine with the core count you care about.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+
+    @Param({"100000", "1000000", "5000000"})
+    public int numSites;
+
+    @Param({"UNIFORM", "GAUSSIAN_CLUSTERED"})
+    public SiteDistribution distribution;
+
+    @Param({"SWEEP", "DIVIDE_AND_CONQUER"})
+    public BuildOptions.Engine engine;
+
+    ArrayList<Point> points;
+    Rectangle bounds;
+    BuildOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        points = distribution.points(numSites, VoronoiBenchmark.SIZE, 123L);
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+        options = new BuildOptions().engine(engine);
+    }
+
+    @Benchmark
+    public Voronoi build() {
+        return new Voronoi(points, null, bounds, options);
+    }
+}
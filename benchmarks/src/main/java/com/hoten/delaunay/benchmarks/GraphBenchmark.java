@@ -0,0 +1,41 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.examples.TestDriver;
+import com.hoten.delaunay.voronoi.VoronoiGraph;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GraphBenchmark.java
+ *
+ * Builds a VoronoiGraph map, with no Lloyd relaxation, from uniform sites:
+ * the diagram, the topology and every pass over it, from elevation to
+ * biomes. GraphFootprint reports the memory it keeps.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class GraphBenchmark {
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    @Benchmark
+    public VoronoiGraph build() {
+        return TestDriver.createVoronoiGraph((int) VoronoiBenchmark.SIZE, numSites, 0, 123L, "radial");
+    }
+}
@@ -0,0 +1,43 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.examples.TestDriver;
+import com.hoten.delaunay.voronoi.VoronoiGraph;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * GraphFootprint.java
+ *
+ * Retained heap of a VoronoiGraph map, divided by its number of centers,
+ * leaving out the pixel map of its centers. Measured like EdgeFootprint; run
+ * with a fixed heap, e.g.
+ * java -Xms4g -Xmx4g -cp target/benchmarks.jar
+ * com.hoten.delaunay.benchmarks.GraphFootprint 1000000
+ *
+ * @author Connor
+ */
+public class GraphFootprint {
+
+    public static void main(String[] args) {
+        int numSites = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int size = (int) VoronoiBenchmark.SIZE;
+
+        long before = usedHeap();
+        VoronoiGraph graph = TestDriver.createVoronoiGraph(size, numSites, 0, 123L, "radial");
+        long after = usedHeap();
+
+        long pixels = graph.pixelCenterMap.getRaster().getDataBuffer().getSize();
+        long retained = after - before - pixels;
+        System.out.printf("%d centers, %d corners, %d edges: %.1f MB retained, %.1f bytes per center%n",
+                graph.centers.size(), graph.corners.size(), graph.edges.size(), retained / 1e6,
+                retained / (double) graph.centers.size());
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,81 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.VoronoiHierarchy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HierarchyBenchmark.java
+ *
+ * Fills the cells of a coarse diagram with finer ones: all of them in
+ * parallel, all of them one after the other, and only the cell a player
+ * stands in. Each invocation starts from a hierarchy with no children.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class HierarchyBenchmark {
+
+    @Param({"64"})
+    public int numCells;
+
+    @Param({"1000", "5000"})
+    public int sitesPerCell;
+
+    Voronoi coarse;
+    int[] cells;
+    VoronoiHierarchy hierarchy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] coords = SiteDistribution.UNIFORM.coordinates(numCells, VoronoiBenchmark.SIZE, 123L);
+        coarse = new Voronoi(coords, new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE));
+        cells = new int[numCells];
+        for (int i = 0; i < numCells; i++) {
+            cells[i] = i;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fresh() {
+        hierarchy = new VoronoiHierarchy(coarse, VoronoiHierarchy.uniform(sitesPerCell, 7L), null, null);
+    }
+
+    @Benchmark
+    public Voronoi[] allParallel() {
+        return hierarchy.children(cells);
+    }
+
+    @Benchmark
+    public int allInOrder() {
+        int n = 0;
+        for (int cell : cells) {
+            Voronoi child = hierarchy.child(cell);
+            n += child != null ? child.siteCoords().size() : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public Voronoi visited() {
+        return hierarchy.child(hierarchy.locate(VoronoiBenchmark.SIZE / 2, VoronoiBenchmark.SIZE / 2));
+    }
+}
@@ -0,0 +1,74 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Edge;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.EdgeReorderer;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Site;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HullBenchmark.java
+ *
+ * Orders the hull edges of a diagram whose sites all lie on the convex hull,
+ * as hullPointsInOrder() does, either by chaining them through their sites
+ * or with the old rescanning loop. The edges come in construction order or
+ * shuffled; the rescanning loop is quadratic on the latter, so keep numSites
+ * small when running it.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class HullBenchmark {
+
+    @Param({"1000", "10000", "30000"})
+    public int numSites;
+
+    @Param({"true", "false"})
+    public boolean chain;
+
+    @Param({"false", "true"})
+    public boolean shuffled;
+
+    ArrayList<Edge> hullEdges;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] coords = SiteDistribution.CONVEX_PARABOLA.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        Voronoi voronoi = new Voronoi(coords, new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE));
+        hullEdges = new ArrayList();
+        for (Edge edge : voronoi.edges()) {
+            if (edge.isPartOfConvexHull()) {
+                hullEdges.add(edge);
+            }
+        }
+        if (shuffled) {
+            Collections.shuffle(hullEdges, new Random(123L));
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Edge> reorder() {
+        return new EdgeReorderer(hullEdges, Site.class, chain).get_edges();
+    }
+}
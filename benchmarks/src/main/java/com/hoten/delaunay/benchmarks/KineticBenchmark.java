@@ -0,0 +1,87 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.KineticVoronoi;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * KineticBenchmark.java
+ *
+ * One simulation tick: every site moves a fraction of the mean site spacing,
+ * bouncing off the borders, and the diagram follows, either with
+ * KineticVoronoi.update() or with a new Voronoi.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class KineticBenchmark {
+
+    @Param({"1000", "10000"})
+    public int numSites;
+
+    // how far a site moves per tick, in mean site spacings
+    @Param({"0.05", "0.2"})
+    public double speed;
+
+    Rectangle bounds;
+    double[] coords;
+    double[] velocities;
+    KineticVoronoi kinetic;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double size = VoronoiBenchmark.SIZE;
+        bounds = new Rectangle(0, 0, size, size);
+        coords = SiteDistribution.UNIFORM.coordinates(numSites, size, 123L);
+        velocities = new double[coords.length];
+        Random r = new Random(456L);
+        double step = speed * size / Math.sqrt(numSites);
+        for (int i = 0; i < velocities.length; i++) {
+            velocities[i] = (2 * r.nextDouble() - 1) * step;
+        }
+        kinetic = new KineticVoronoi(coords, bounds);
+    }
+
+    @Benchmark
+    public boolean update() {
+        tick();
+        return kinetic.update(coords);
+    }
+
+    @Benchmark
+    public Voronoi rebuild() {
+        tick();
+        return new Voronoi(coords, bounds);
+    }
+
+    private void tick() {
+        double size = VoronoiBenchmark.SIZE;
+        for (int i = 0; i < coords.length; i++) {
+            double c = coords[i] + velocities[i];
+            if (c < 0 || c >= size) {
+                velocities[i] = -velocities[i];
+                c = coords[i] + velocities[i];
+            }
+            coords[i] = c;
+        }
+    }
+}
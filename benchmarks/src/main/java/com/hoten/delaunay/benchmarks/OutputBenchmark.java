@@ -0,0 +1,73 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildContext;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildOptions;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.VoronoiResult;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OutputBenchmark.java
+ *
+ * Repeated builds in one BuildContext, consuming the diagram as flat arrays.
+ * With OBJECTS the diagram is disposed after reading the result so its objects
+ * are recycled too; compare the gc.alloc.rate.norm columns of the modes.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class OutputBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int numSites;
+
+    @Param({"OBJECTS", "OBJECTS_AND_FLAT", "FLAT"})
+    public BuildOptions.OutputMode outputMode;
+
+    ArrayList<Point> points;
+    Rectangle bounds;
+    BuildOptions options;
+    BuildContext context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        points = SiteDistribution.UNIFORM.points(numSites, VoronoiBenchmark.SIZE, 123L);
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+        options = new BuildOptions().outputMode(outputMode);
+        context = new BuildContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public VoronoiResult build() {
+        Voronoi voronoi = new Voronoi(points, null, bounds, options, context);
+        VoronoiResult result = voronoi.result();
+        voronoi.dispose();
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.PeriodicVoronoi;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.RegionTable;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PeriodicBenchmark.java
+ *
+ * Builds the regions of a diagram that wraps around, once with
+ * PeriodicVoronoi and its halo of ghost sites, and once the usual way round
+ * it: a Voronoi of nine copies of the sites, of which the middle copy's
+ * regions are kept.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class PeriodicBenchmark {
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    double[] coords;
+    double[] copies;
+    Rectangle domain;
+    Rectangle copiesBounds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double size = VoronoiBenchmark.SIZE;
+        coords = SiteDistribution.UNIFORM.coordinates(numSites, size, 123L);
+        domain = new Rectangle(0, 0, size, size);
+        copies = new double[9 * coords.length];
+        int k = 0;
+        for (int sx = -1; sx <= 1; sx++) {
+            for (int sy = -1; sy <= 1; sy++) {
+                for (int i = 0; i < numSites; i++) {
+                    copies[k++] = coords[2 * i] + sx * size;
+                    copies[k++] = coords[2 * i + 1] + sy * size;
+                }
+            }
+        }
+        copiesBounds = new Rectangle(-size, -size, 3 * size, 3 * size);
+    }
+
+    @Benchmark
+    public RegionTable periodic() {
+        return new PeriodicVoronoi(coords, domain).regionTable();
+    }
+
+    @Benchmark
+    public RegionTable nineCopies() {
+        return new Voronoi(copies, copiesBounds).regionTable();
+    }
+}
@@ -0,0 +1,72 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildOptions;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.RegionTable;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RegionBenchmark.java
+ *
+ * Extracts the region of every site of an already built diagram, once per
+ * site through region(Point) and once in bulk through regionTable(). Each
+ * invocation starts from a fresh build, which is excluded from the timing.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class RegionBenchmark {
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    ArrayList<Point> points;
+    Rectangle bounds;
+    Voronoi voronoi;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        points = SiteDistribution.UNIFORM.points(numSites, VoronoiBenchmark.SIZE, 123L);
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+    }
+
+    @Setup(Level.Invocation)
+    public void build() {
+        voronoi = new Voronoi(points, null, bounds, new BuildOptions().cacheRegions(false));
+        voronoi.result();
+    }
+
+    @Benchmark
+    public int perSite() {
+        int n = 0;
+        for (Point p : voronoi.siteCoords()) {
+            n += voronoi.region(p).size();
+        }
+        return n;
+    }
+
+    @Benchmark
+    public RegionTable table() {
+        return voronoi.regionTable();
+    }
+}
@@ -0,0 +1,76 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.LloydRelaxation;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RelaxBenchmark.java
+ *
+ * Four Lloyd relaxations of uniform sites: the way VoronoiGraph used to do
+ * them, moving each site to the mean of its region's points, looked up
+ * through region(), and building every diagram from scratch, against
+ * LloydRelaxation.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class RelaxBenchmark {
+
+    private static final int RELAXATIONS = 4;
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    Voronoi start;
+
+    @Setup
+    public void build() {
+        start = new Voronoi(numSites, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE, new Random(123L), null);
+    }
+
+    @Benchmark
+    public Voronoi vertexMean() {
+        Voronoi v = start;
+        for (int i = 0; i < RELAXATIONS; i++) {
+            ArrayList<Point> points = v.siteCoords();
+            for (Point p : points) {
+                ArrayList<Point> region = v.region(p);
+                double x = 0;
+                double y = 0;
+                for (Point c : region) {
+                    x += c.x;
+                    y += c.y;
+                }
+                p.x = x / region.size();
+                p.y = y / region.size();
+            }
+            v = new Voronoi(points, null, v.get_clipBounds());
+        }
+        return v;
+    }
+
+    @Benchmark
+    public Voronoi lloydRelaxation() {
+        return new LloydRelaxation(start, null).relax(RELAXATIONS);
+    }
+}
@@ -0,0 +1,46 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.LloydRelaxation;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.Random;
+
+/**
+ * RelaxConvergence.java
+ *
+ * Relaxes uniform sites until they move less than a fraction of the spacing
+ * sqrt(area / numSites), root mean square, and prints every step: how far
+ * the sites moved and the coefficient of variation of the cell areas, both
+ * against the spacing, and how long it took. Maps of several sizes show
+ * where more steps stop paying; e.g.
+ * java -cp target/benchmarks.jar com.hoten.delaunay.benchmarks.RelaxConvergence
+ * 0.01 1000 10000 100000
+ *
+ * @author Connor
+ */
+public class RelaxConvergence {
+
+    private static final int MAX_ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        double tolerance = args.length > 0 ? Double.parseDouble(args[0]) : 0.01;
+        int[] sizes = {1000, 10000, 100000};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        double size = VoronoiBenchmark.SIZE;
+        for (int numSites : sizes) {
+            double spacing = size / Math.sqrt(numSites), meanArea = size * size / numSites;
+            System.out.println(numSites + " sites");
+            Voronoi v = new Voronoi(numSites, size, size, new Random(123L), null);
+            LloydRelaxation relaxation = new LloydRelaxation(v, null,
+                    (iteration, maxDisplacement, rmsDisplacement, nanos, areaVariance) ->
+                    System.out.printf("  %2d  max %.4f rms %.4f  area cv %.3f  %7.1f ms%n", iteration,
+                            maxDisplacement / spacing, rmsDisplacement / spacing,
+                            Math.sqrt(areaVariance) / meanArea, nanos / 1e6));
+            relaxation.relax(MAX_ITERATIONS, 0, tolerance * spacing);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.LloydRelaxation;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.SiteSampling;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SamplingBenchmark.java
+ *
+ * Evenly spread sites, two ways: uniform sites and two Lloyd relaxations,
+ * done the way VoronoiGraph does them, against Poisson-disc sites and no
+ * relaxation. SiteRegularity compares how even the two come out.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class SamplingBenchmark {
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    @Benchmark
+    public Voronoi uniformLloyd() {
+        Voronoi v = new Voronoi(numSites, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE, new Random(123L), null);
+        return relax(v, 2);
+    }
+
+    @Benchmark
+    public Voronoi poissonDisc() {
+        return new Voronoi(numSites, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE, new Random(123L), null,
+                SiteSampling.POISSON_DISC);
+    }
+
+    // VoronoiGraph's relaxation
+    static Voronoi relax(Voronoi v, int numLloydRelaxations) {
+        return new LloydRelaxation(v, null).relax(numLloydRelaxations);
+    }
+}
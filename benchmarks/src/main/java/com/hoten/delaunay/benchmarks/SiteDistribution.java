@@ -0,0 +1,128 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * SiteDistribution.java
+ *
+ * Input generators for the benchmarks. Every distribution fills the square
+ * [0, size) x [0, size) so the same plot bounds can be used for all of them.
+ *
+ * @author Connor
+ */
+public enum SiteDistribution {
+
+    /** Independent uniform points, the same thing Voronoi(int numSites, ...) draws. */
+    UNIFORM {
+        @Override
+        void fill(double[] xy, double size, Random r) {
+            for (int i = 0; i < xy.length; i += 2) {
+                xy[i] = r.nextDouble() * size;
+                xy[i + 1] = r.nextDouble() * size;
+            }
+        }
+    },
+    /** Gaussian blobs around a handful of centers, roughly what a city map looks like. */
+    GAUSSIAN_CLUSTERED {
+        @Override
+        void fill(double[] xy, double size, Random r) {
+            int n = xy.length / 2;
+            int numClusters = Math.max(4, (int) Math.sqrt(n) / 8);
+            double[] centers = new double[numClusters * 2];
+            for (int i = 0; i < centers.length; i++) {
+                centers[i] = size * (0.1 + 0.8 * r.nextDouble());
+            }
+            double sigma = size / (4 * Math.sqrt(numClusters));
+            for (int i = 0; i < xy.length; i += 2) {
+                int c = r.nextInt(numClusters) * 2;
+                xy[i] = clamp(centers[c] + r.nextGaussian() * sigma, size);
+                xy[i + 1] = clamp(centers[c + 1] + r.nextGaussian() * sigma, size);
+            }
+        }
+    },
+    /**
+     * Nine in ten points in a few very tight blobs, the rest uniform: city
+     * centers in the countryside, where evenly sized EdgeList buckets fail.
+     */
+    DENSE_CLUSTERS {
+        @Override
+        void fill(double[] xy, double size, Random r) {
+            int numClusters = 5;
+            double[] centers = new double[numClusters * 2];
+            for (int i = 0; i < centers.length; i++) {
+                centers[i] = size * (0.1 + 0.8 * r.nextDouble());
+            }
+            double sigma = size * 1e-3;
+            for (int i = 0; i < xy.length; i += 2) {
+                if (r.nextInt(10) == 0) {
+                    xy[i] = r.nextDouble() * size;
+                    xy[i + 1] = r.nextDouble() * size;
+                } else {
+                    int c = r.nextInt(numClusters) * 2;
+                    xy[i] = clamp(centers[c] + r.nextGaussian() * sigma, size);
+                    xy[i + 1] = clamp(centers[c + 1] + r.nextGaussian() * sigma, size);
+                }
+            }
+        }
+    },
+    /** A square lattice; every cell is cocircular with its neighbors, the worst case for degeneracies. */
+    GRID_ALIGNED {
+        @Override
+        void fill(double[] xy, double size, Random r) {
+            int n = xy.length / 2;
+            int side = (int) Math.ceil(Math.sqrt(n));
+            double step = size / side;
+            for (int i = 0; i < n; i++) {
+                xy[2 * i] = (i % side + 0.5) * step;
+                xy[2 * i + 1] = (i / side + 0.5) * step;
+            }
+        }
+    },
+    /** Points along a diagonal with a tiny perpendicular jitter, producing long thin cells. */
+    NEAR_COLLINEAR {
+        @Override
+        void fill(double[] xy, double size, Random r) {
+            double jitter = size * 1e-4;
+            for (int i = 0; i < xy.length; i += 2) {
+                double t = r.nextDouble() * size;
+                double offset = (r.nextDouble() - 0.5) * jitter;
+                xy[i] = clamp(t + offset, size);
+                xy[i + 1] = clamp(t - offset, size);
+            }
+        }
+    },
+    /** Points along a parabola, so that every site is on the convex hull. */
+    CONVEX_PARABOLA {
+        @Override
+        void fill(double[] xy, double size, Random r) {
+            for (int i = 0; i < xy.length; i += 2) {
+                double t = r.nextDouble();
+                xy[i] = clamp(t * size, size);
+                xy[i + 1] = clamp(t * t * size, size);
+            }
+        }
+    };
+
+    abstract void fill(double[] xy, double size, Random r);
+
+    public double[] coordinates(int numSites, double size, long seed) {
+        double[] xy = new double[numSites * 2];
+        fill(xy, size, new Random(seed));
+        return xy;
+    }
+
+    public ArrayList<Point> points(int numSites, double size, long seed) {
+        double[] xy = coordinates(numSites, size, seed);
+        ArrayList<Point> points = new ArrayList(numSites);
+        for (int i = 0; i < xy.length; i += 2) {
+            points.add(new Point(xy[i], xy[i + 1]));
+        }
+        return points;
+    }
+
+    private static double clamp(double d, double size) {
+        return Math.max(0, Math.min(Math.nextDown(size), d));
+    }
+}
@@ -0,0 +1,69 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.LineSegment;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SiteQueryBenchmark.java
+ *
+ * Asks for the Voronoi boundary of every site of a built diagram, one Point
+ * at a time and in a single batch call.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class SiteQueryBenchmark {
+
+    @Param({"10000", "100000"})
+    public int numSites;
+
+    Voronoi voronoi;
+    ArrayList<Point> sites;
+    int[] siteIndices;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        double[] coords = SiteDistribution.UNIFORM.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        voronoi = new Voronoi(coords, new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE));
+        sites = voronoi.siteCoords();
+        siteIndices = new int[sites.size()];
+        for (int i = 0; i < siteIndices.length; i++) {
+            siteIndices[i] = i;
+        }
+    }
+
+    @Benchmark
+    public int boundaryPerPoint() {
+        int n = 0;
+        for (Point p : sites) {
+            n += voronoi.voronoiBoundaryForSite(p).size();
+        }
+        return n;
+    }
+
+    @Benchmark
+    public ArrayList<ArrayList<LineSegment>> boundariesBatch() {
+        return voronoi.voronoiBoundariesForSites(siteIndices);
+    }
+}
@@ -0,0 +1,68 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.NeighborTable;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.RegionTable;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.SiteSampling;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.VoronoiResult;
+import java.util.Random;
+
+/**
+ * SiteRegularity.java
+ *
+ * How even the cells of SamplingBenchmark's diagrams are: the coefficient of
+ * variation of the cell areas, and the mean and smallest distance from a site
+ * to its nearest neighbor, in units of the spacing sqrt(area / numSites).
+ * Uniform sites are shown after 0, 1 and 2 Lloyd relaxations; e.g.
+ * java -cp target/benchmarks.jar com.hoten.delaunay.benchmarks.SiteRegularity
+ * 100000
+ *
+ * @author Connor
+ */
+public class SiteRegularity {
+
+    public static void main(String[] args) {
+        int numSites = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        double size = VoronoiBenchmark.SIZE;
+        Voronoi uniform = new Voronoi(numSites, size, size, new Random(123L), null);
+        for (int relaxations = 0; relaxations <= 2; relaxations++) {
+            report("uniform, " + relaxations + " Lloyd", SamplingBenchmark.relax(uniform, relaxations), size);
+        }
+        report("Poisson disc", new Voronoi(numSites, size, size, new Random(123L), null, SiteSampling.POISSON_DISC),
+                size);
+    }
+
+    private static void report(String name, Voronoi v, double size) {
+        VoronoiResult result = v.result();
+        RegionTable regions = v.regionTable();
+        NeighborTable neighbors = v.neighborTable();
+        int n = result.numSites;
+        double sum = 0, sumSquares = 0;
+        for (int s = 0; s < n; s++) {
+            double area = 0;
+            for (int i = regions.offsets[s]; i < regions.offsets[s + 1]; i++) {
+                int j = i + 1 < regions.offsets[s + 1] ? i + 1 : regions.offsets[s];
+                area += regions.coords[2 * i] * regions.coords[2 * j + 1] - regions.coords[2 * j] * regions.coords[2 * i + 1];
+            }
+            sum += area / 2;
+            sumSquares += area * area / 4;
+        }
+        double mean = sum / n;
+        double cv = Math.sqrt(Math.max(0, sumSquares / n - mean * mean)) / mean;
+        // the nearest site is a Delaunay neighbor
+        double spacing = size / Math.sqrt(n), nearestSum = 0, nearestMin = Double.MAX_VALUE;
+        for (int s = 0; s < n; s++) {
+            double nearest = Double.MAX_VALUE;
+            for (int k = neighbors.offsets[s]; k < neighbors.offsets[s + 1]; k++) {
+                int o = neighbors.neighbors[k];
+                double dx = result.siteCoords[2 * o] - result.siteCoords[2 * s];
+                double dy = result.siteCoords[2 * o + 1] - result.siteCoords[2 * s + 1];
+                nearest = Math.min(nearest, Math.sqrt(dx * dx + dy * dy));
+            }
+            nearestSum += nearest;
+            nearestMin = Math.min(nearestMin, nearest);
+        }
+        System.out.printf("%-18s area cv %.3f, nearest neighbor mean %.3f min %.3f%n",
+                name, cv, nearestSum / n / spacing, nearestMin / spacing);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildOptions;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.IVoronoiSink;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * StreamBenchmark.java
+ *
+ * Builds a diagram and consumes it through an IVoronoiSink. With STREAM the
+ * sweep recycles each edge once it has been passed on; with OBJECTS the whole
+ * diagram is kept as well. Compare the gc.alloc.rate.norm columns, or run
+ * with a small -Xmx to see which modes still fit.
+ *
+ * @author Connor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class StreamBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int numSites;
+
+    @Param({"OBJECTS", "STREAM"})
+    public BuildOptions.OutputMode outputMode;
+
+    double[] coords;
+    Rectangle bounds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        coords = SiteDistribution.UNIFORM.coordinates(numSites, VoronoiBenchmark.SIZE, 123L);
+        bounds = new Rectangle(0, 0, VoronoiBenchmark.SIZE, VoronoiBenchmark.SIZE);
+    }
+
+    @Benchmark
+    public void build(Blackhole bh) {
+        IVoronoiSink sink = new IVoronoiSink() {
+            @Override
+            public void vertexCreated(int vertex, double x, double y) {
+                bh.consume(x);
+            }
+
+            @Override
+            public void edgeCompleted(int leftSite, int rightSite, int leftVertex, int rightVertex,
+                    double x0, double y0, double x1, double y1) {
+                bh.consume(x0);
+            }
+
+            @Override
+            public void siteFinished(int site, double x, double y) {
+                bh.consume(site);
+            }
+        };
+        Voronoi voronoi = new Voronoi(coords, bounds, new BuildOptions().outputMode(outputMode).sink(sink));
+        if (outputMode != BuildOptions.OutputMode.STREAM) {
+            voronoi.dispose();
+        }
+    }
+}
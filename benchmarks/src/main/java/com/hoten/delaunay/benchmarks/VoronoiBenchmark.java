@@ -0,0 +1,105 @@
+package com.hoten.delaunay.benchmarks;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.BuildOptions;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * VoronoiBenchmark.java
+ *
+ * Measures the full construction of a Voronoi diagram (sort, sweep and
+ * clipping) through the public constructors. Besides the primary score, the
+ * "sites" counter reports the same run normalised per input site, so the
+ * average time mode reads directly as time per site.
+ *
+ * @author Connor
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class VoronoiBenchmark {
+
+    static final double SIZE = 4096;
+
+    @State(Scope.Benchmark)
+    public static class PointInput {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int numSites;
+
+        @Param({"UNIFORM", "GAUSSIAN_CLUSTERED", "DENSE_CLUSTERS", "GRID_ALIGNED", "NEAR_COLLINEAR"})
+        public SiteDistribution distribution;
+
+        @Param({"HEAP", "BUCKETS"})
+        public BuildOptions.EventQueue eventQueue;
+
+        ArrayList<Point> points;
+        double[] coords;
+        Rectangle bounds;
+        BuildOptions options;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            points = distribution.points(numSites, SIZE, 123L);
+            coords = distribution.coordinates(numSites, SIZE, 123L);
+            bounds = new Rectangle(0, 0, SIZE, SIZE);
+            options = new BuildOptions().eventQueue(eventQueue);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CountInput {
+
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int numSites;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SiteCounter {
+
+        public long sites;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            sites = 0;
+        }
+    }
+
+    @Benchmark
+    public Voronoi fromPoints(PointInput input, SiteCounter counter) {
+        counter.sites += input.numSites;
+        return new Voronoi(input.points, null, input.bounds, input.options);
+    }
+
+    @Benchmark
+    public Voronoi fromCoordinates(PointInput input, SiteCounter counter) {
+        counter.sites += input.numSites;
+        return new Voronoi(input.coords, input.bounds, input.options);
+    }
+
+    @Benchmark
+    public Voronoi fromSiteCount(CountInput input, SiteCounter counter) {
+        counter.sites += input.numSites;
+        return new Voronoi(input.numSites, SIZE, SIZE, new Random(123L), null);
+    }
+}
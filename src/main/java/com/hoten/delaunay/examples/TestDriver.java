@@ -2,6 +2,7 @@ package com.hoten.delaunay.examples;
 
 import com.hoten.delaunay.voronoi.VoronoiGraph;
 import com.hoten.delaunay.voronoi.groundshapes.*;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.SiteSampling;
 import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
 
 import javax.imageio.ImageIO;
@@ -42,6 +43,12 @@ public class TestDriver {
      */
     private static final int LLOYD_RELAXATIONS = 2;
 
+    /**
+     * How the sites are drawn. {@link SiteSampling#POISSON_DISC} spreads them evenly in one pass,
+     * so {@link #LLOYD_RELAXATIONS} can be 0.
+     */
+    private static final SiteSampling SITE_SAMPLING = SiteSampling.UNIFORM;
+
     /** Randomizing number. Use it with {@link #RANDOM_SEED} = false to get same image every time. */
     private static long SEED = 123L;
 
@@ -69,6 +76,7 @@ public class TestDriver {
         System.out.println("Sites: " + SITES_AMOUNT);
         System.out.println("Shape: " + ALGORITHM);
         System.out.println("Relaxs: " + LLOYD_RELAXATIONS);
+        System.out.println("Sampling: " + SITE_SAMPLING);
         System.out.println("=============================");
     }
 
@@ -77,7 +85,7 @@ public class TestDriver {
         HeightAlgorithm algorithm = getAlgorithmImplementation(r, algorithmName);
 
         //make the intial underlying voronoi structure
-        final Voronoi v = new Voronoi(numSites, bounds, bounds, r, null);
+        final Voronoi v = new Voronoi(numSites, bounds, bounds, r, null, SITE_SAMPLING);
 
         //assemble the voronoi strucutre into a usable graph object representing a map
         final TestGraphImpl graph = new TestGraphImpl(v, numLloydRelaxations, r, algorithm);
@@ -3,6 +3,7 @@ package com.hoten.delaunay.examples;
 import com.hoten.delaunay.voronoi.Center;
 import com.hoten.delaunay.voronoi.VoronoiGraph;
 import com.hoten.delaunay.voronoi.groundshapes.HeightAlgorithm;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.PeriodicVoronoi;
 import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
 import java.awt.Color;
 import java.util.Random;
@@ -45,6 +46,14 @@ public class TestGraphImpl extends VoronoiGraph {
         RIVER = ColorData.RIVER.color;
     }
 
+    public TestGraphImpl(PeriodicVoronoi v, int numLloydRelaxations, Random r, HeightAlgorithm algorithm) {
+        super(v, numLloydRelaxations, r, algorithm);
+        OCEAN = ColorData.OCEAN.color;
+        LAKE = ColorData.LAKE.color;
+        BEACH = ColorData.BEACH.color;
+        RIVER = ColorData.RIVER.color;
+    }
+
     @Override
     protected Color getColor(Enum biome) {
         return ((ColorData) biome).color;
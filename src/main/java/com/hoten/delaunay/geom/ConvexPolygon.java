@@ -0,0 +1,207 @@
+package com.hoten.delaunay.geom;
+
+import java.util.ArrayList;
+
+/**
+ * ConvexPolygon.java
+ *
+ * A convex region to clip a diagram to. The corners are kept in the order
+ * that gives a positive signed area, whichever way round they were given;
+ * side i runs from corner i to corner i + 1.
+ *
+ * @author Connor
+ */
+public class ConvexPolygon {
+
+    // the sine of the largest angle a corner may turn the wrong way by
+    final private static double CONVEXITY_EPSILON = 1e-9;
+
+    // x, y per corner
+    final private double[] corners;
+    // a point is on the inner side of side i when nx[i] * x + ny[i] * y <= d[i]; the normals have unit length
+    final private double[] nx, ny, d;
+    // the Rectangle this was made from, or null
+    final private Rectangle rectangle;
+    // the smallest Rectangle around the corners
+    final public Rectangle bounds;
+
+    /**
+     * @param xy x0, y0, x1, y1, ... of at least three corners, in order around
+     * the polygon
+     */
+    public ConvexPolygon(double[] xy) {
+        if (xy.length < 6 || xy.length % 2 != 0) {
+            throw new IllegalArgumentException("a convex polygon needs at least three x, y pairs; got " + xy.length + " values");
+        }
+        int n = xy.length / 2;
+        double area = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            area += xy[2 * i] * xy[2 * j + 1] - xy[2 * j] * xy[2 * i + 1];
+        }
+        if (area == 0 || Double.isNaN(area)) {
+            throw new IllegalArgumentException("polygon has no area");
+        }
+        corners = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            int k = area > 0 ? i : n - 1 - i;
+            corners[2 * i] = xy[2 * k];
+            corners[2 * i + 1] = xy[2 * k + 1];
+        }
+        nx = new double[n];
+        ny = new double[n];
+        d = new double[n];
+        double xmin = Double.MAX_VALUE, ymin = Double.MAX_VALUE;
+        double xmax = -Double.MAX_VALUE, ymax = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n, k = (i + 2) % n;
+            double x0 = corners[2 * i], y0 = corners[2 * i + 1];
+            double dx = corners[2 * j] - x0, dy = corners[2 * j + 1] - y0;
+            double length = Math.sqrt(dx * dx + dy * dy);
+            if (length == 0) {
+                throw new IllegalArgumentException("corners " + i + " and " + j + " coincide");
+            }
+            double ex = corners[2 * k] - corners[2 * j], ey = corners[2 * k + 1] - corners[2 * j + 1];
+            // corners that are in line up to rounding, as in a clipped Voronoi region, are fine
+            if (dx * ey - dy * ex < -CONVEXITY_EPSILON * length * Math.sqrt(ex * ex + ey * ey)) {
+                throw new IllegalArgumentException("polygon is not convex at corner " + j);
+            }
+            nx[i] = dy / length;
+            ny[i] = -dx / length;
+            d[i] = nx[i] * x0 + ny[i] * y0;
+            xmin = Math.min(xmin, x0);
+            xmax = Math.max(xmax, x0);
+            ymin = Math.min(ymin, y0);
+            ymax = Math.max(ymax, y0);
+        }
+        rectangle = null;
+        bounds = new Rectangle(xmin, ymin, xmax - xmin, ymax - ymin);
+    }
+
+    public ConvexPolygon(ArrayList<Point> points) {
+        this(toCoords(points));
+    }
+
+    private ConvexPolygon(Rectangle r) {
+        corners = new double[]{r.left, r.top, r.right, r.top, r.right, r.bottom, r.left, r.bottom};
+        nx = new double[]{0, 1, 0, -1};
+        ny = new double[]{-1, 0, 1, 0};
+        d = new double[]{-r.top, r.right, r.bottom, -r.left};
+        rectangle = r;
+        bounds = r;
+    }
+
+    /**
+     * The four corners of r. Clipping to it goes the same way as clipping to
+     * r itself, and r may have no area.
+     */
+    public static ConvexPolygon of(Rectangle r) {
+        return new ConvexPolygon(r);
+    }
+
+    private static double[] toCoords(ArrayList<Point> points) {
+        double[] xy = new double[2 * points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xy[2 * i] = points.get(i).x;
+            xy[2 * i + 1] = points.get(i).y;
+        }
+        return xy;
+    }
+
+    /**
+     * @return the Rectangle this was made from by of(), or null
+     */
+    public Rectangle asRectangle() {
+        return rectangle;
+    }
+
+    public int numCorners() {
+        return nx.length;
+    }
+
+    public double cornerX(int i) {
+        return corners[2 * i];
+    }
+
+    public double cornerY(int i) {
+        return corners[2 * i + 1];
+    }
+
+    public boolean inBounds(Point p) {
+        return inBounds(p.x, p.y);
+    }
+
+    public boolean inBounds(double x0, double y0) {
+        for (int i = 0; i < nx.length; i++) {
+            if (nx[i] * x0 + ny[i] * y0 > d[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The polygon's counterpart of Rectangle.liesOnAxes(): whether p is within
+     * diff of the line through some side.
+     */
+    public boolean liesOnBorder(Point p, double diff) {
+        return liesOnBorder(p.x, p.y, diff);
+    }
+
+    public boolean liesOnBorder(double x0, double y0, double diff) {
+        for (int i = 0; i < nx.length; i++) {
+            if (GenUtils.closeEnough(nx[i] * x0 + ny[i] * y0, d[i], diff)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the side whose line passes nearest to (x0, y0), which is the
+     * side a point clipped to the border lies on
+     */
+    public int side(double x0, double y0) {
+        int side = 0;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < nx.length; i++) {
+            double distance = Math.abs(nx[i] * x0 + ny[i] * y0 - d[i]);
+            if (distance < best) {
+                best = distance;
+                side = i;
+            }
+        }
+        return side;
+    }
+
+    /**
+     * Cyrus-Beck clipping of the points (x0 + t * dx, y0 + t * dy) for t from
+     * range[offset] to range[offset + 1], either of which may be infinite.
+     * The range is narrowed to the part inside the polygon.
+     *
+     * @return false, leaving range alone, if no part of it is inside
+     */
+    public boolean clip(double x0, double y0, double dx, double dy, double[] range, int offset) {
+        double tmin = range[offset], tmax = range[offset + 1];
+        for (int i = 0; i < nx.length; i++) {
+            double num = d[i] - (nx[i] * x0 + ny[i] * y0);
+            double den = nx[i] * dx + ny[i] * dy;
+            if (den == 0) {
+                // parallel to the side
+                if (num < 0) {
+                    return false;
+                }
+            } else if (den > 0) {
+                tmax = Math.min(tmax, num / den);
+            } else {
+                tmin = Math.max(tmin, num / den);
+            }
+            if (tmin > tmax) {
+                return false;
+            }
+        }
+        range[offset] = tmin;
+        range[offset + 1] = tmax;
+        return true;
+    }
+}
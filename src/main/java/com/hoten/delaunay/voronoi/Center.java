@@ -1,20 +1,23 @@
 package com.hoten.delaunay.voronoi;
 
 import com.hoten.delaunay.geom.Point;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Center.java
  *
+ * The lists are read-only views of the graph's GraphTopology.
+ *
  * @author Connor
  */
 public class Center {
 
     public int index;
     public Point loc;
-    public ArrayList<Corner> corners = new ArrayList();//good
-    public ArrayList<Center> neighbors = new ArrayList();//good
-    public ArrayList<Edge> borders = new ArrayList();
+    public List<Corner> corners = Collections.emptyList();
+    public List<Center> neighbors = Collections.emptyList();
+    public List<Edge> borders = Collections.emptyList();
     public boolean border, ocean, water, coast;
     public double elevation;
     public double moisture;
@@ -1,18 +1,21 @@
 package com.hoten.delaunay.voronoi;
 
 import com.hoten.delaunay.geom.Point;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Corner.java
  *
+ * The lists are read-only views of the graph's GraphTopology.
+ *
  * @author Connor
  */
 public class Corner {
 
-    public ArrayList<Center> touches = new ArrayList(); //good
-    public ArrayList<Corner> adjacent = new ArrayList(); //good
-    public ArrayList<Edge> protrudes = new ArrayList();
+    public List<Center> touches = Collections.emptyList();
+    public List<Corner> adjacent = Collections.emptyList();
+    public List<Edge> protrudes = Collections.emptyList();
     public Point loc;
     public int index;
     public boolean border;
@@ -0,0 +1,126 @@
+package com.hoten.delaunay.voronoi;
+
+import java.util.Arrays;
+
+/**
+ * GraphTopology.java
+ *
+ * Who touches whom in a VoronoiGraph, as flat tables numbered like its
+ * centers, corners and edges. Each relation is named after the field of
+ * Center or Corner that shows it: the corners of center c are
+ * corners[cornerOffsets[c]] to corners[cornerOffsets[c + 1] - 1], and so on.
+ * Every list is in the order of the edges it came from, without repeats.
+ *
+ * @author Connor
+ */
+public final class GraphTopology {
+
+    public final int numCenters, numCorners, numEdges;
+
+    // per edge, its two centers (d0, d1) and its two corners (v0, v1), -1 for
+    // an end outside the clip bounds
+    public final int[] edgeCenters, edgeCorners;
+
+    // centers around a center
+    public final int[] neighborOffsets, neighbors;
+    // corners of a center
+    public final int[] cornerOffsets, corners;
+    // edges around a center
+    public final int[] borderOffsets, borders;
+    // centers around a corner
+    public final int[] touchOffsets, touches;
+    // corners next to a corner
+    public final int[] adjacentOffsets, adjacent;
+    // edges from a corner
+    public final int[] protrudeOffsets, protrudes;
+
+    /**
+     * @param neighborOffsets the neighbors of each center, as in NeighborTable
+     */
+    GraphTopology(int numCenters, int numCorners, int[] edgeCenters, int[] edgeCorners, int[] neighborOffsets,
+            int[] neighbors) {
+        this.numCenters = numCenters;
+        this.numCorners = numCorners;
+        this.numEdges = edgeCenters.length / 2;
+        this.edgeCenters = edgeCenters;
+        this.edgeCorners = edgeCorners;
+        this.neighborOffsets = neighborOffsets;
+        this.neighbors = neighbors;
+
+        borderOffsets = new int[numCenters + 1];
+        borders = incidence(edgeCenters, borderOffsets);
+        protrudeOffsets = new int[numCorners + 1];
+        protrudes = incidence(edgeCorners, protrudeOffsets);
+
+        // the ends of each edge around a node, first time seen
+        int[] seen = new int[Math.max(numCenters, numCorners)];
+        Arrays.fill(seen, -1);
+        cornerOffsets = new int[numCenters + 1];
+        corners = ends(borderOffsets, borders, edgeCorners, cornerOffsets, seen);
+        Arrays.fill(seen, -1);
+        touchOffsets = new int[numCorners + 1];
+        touches = ends(protrudeOffsets, protrudes, edgeCenters, touchOffsets, seen);
+
+        // the other corner of each edge from a corner
+        Arrays.fill(seen, -1);
+        adjacentOffsets = new int[numCorners + 1];
+        int[] list = new int[protrudes.length];
+        int n = 0;
+        for (int c = 0; c < numCorners; ++c) {
+            for (int k = protrudeOffsets[c]; k < protrudeOffsets[c + 1]; ++k) {
+                int e = protrudes[k];
+                int v0 = edgeCorners[2 * e], v1 = edgeCorners[2 * e + 1];
+                if (v0 < 0 || v1 < 0) {
+                    continue;
+                }
+                int other = v0 == c ? v1 : v0;
+                if (seen[other] != c) {
+                    seen[other] = c;
+                    list[n++] = other;
+                }
+            }
+            adjacentOffsets[c + 1] = n;
+        }
+        adjacent = Arrays.copyOf(list, n);
+    }
+
+    // the edges at each node, in edge order, from the two nodes of each edge
+    private static int[] incidence(int[] edgeNodes, int[] offsets) {
+        for (int node : edgeNodes) {
+            if (node >= 0) {
+                offsets[node + 1]++;
+            }
+        }
+        for (int i = 1; i < offsets.length; ++i) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] list = new int[offsets[offsets.length - 1]];
+        int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < edgeNodes.length; ++i) {
+            if (edgeNodes[i] >= 0) {
+                list[fill[edgeNodes[i]]++] = i / 2;
+            }
+        }
+        return list;
+    }
+
+    // the other kind of node at the ends of the edges at each node; seen is
+    // what each end was last added to
+    private static int[] ends(int[] edgeOffsets, int[] edges, int[] edgeEnds, int[] offsets, int[] seen) {
+        int[] list = new int[2 * edges.length];
+        int n = 0;
+        for (int node = 0; node + 1 < edgeOffsets.length; ++node) {
+            for (int k = edgeOffsets[node]; k < edgeOffsets[node + 1]; ++k) {
+                for (int side = 0; side < 2; ++side) {
+                    int end = edgeEnds[2 * edges[k] + side];
+                    if (end >= 0 && seen[end] != node) {
+                        seen[end] = node;
+                        list[n++] = end;
+                    }
+                }
+            }
+            offsets[node + 1] = n;
+        }
+        return Arrays.copyOf(list, n);
+    }
+}
@@ -0,0 +1,54 @@
+package com.hoten.delaunay.voronoi;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * IndexList.java
+ *
+ * A read-only list of the objects in one row of a GraphTopology relation,
+ * seen as Centers, Corners or Edges. The lists of a relation share one
+ * Table, so each only holds its row.
+ *
+ * @author Connor
+ */
+final class IndexList<T> extends AbstractList<T> implements RandomAccess {
+
+    static final class Table<T> {
+
+        private final T[] objects;
+        private final int[] offsets, indices;
+
+        Table(T[] objects, int[] offsets, int[] indices) {
+            this.objects = objects;
+            this.offsets = offsets;
+            this.indices = indices;
+        }
+
+        IndexList<T> row(int row) {
+            return new IndexList<>(this, row);
+        }
+    }
+
+    private final Table<T> table;
+    private final int row;
+
+    private IndexList(Table<T> table, int row) {
+        this.table = table;
+        this.row = row;
+    }
+
+    @Override
+    public T get(int i) {
+        int from = table.offsets[row];
+        if (i < 0 || i >= table.offsets[row + 1] - from) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        return table.objects[table.indices[from + i]];
+    }
+
+    @Override
+    public int size() {
+        return table.offsets[row + 1] - table.offsets[row];
+    }
+}
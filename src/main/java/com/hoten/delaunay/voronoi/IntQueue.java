@@ -0,0 +1,53 @@
+package com.hoten.delaunay.voronoi;
+
+import java.util.Arrays;
+
+/**
+ * IntQueue.java
+ *
+ * A queue of ints in a ring buffer that grows when full, for the breadth
+ * first passes over a GraphTopology. Like LinkedList's, add() goes to the
+ * back and push() to the front, and pop() takes from the front.
+ *
+ * @author Connor
+ */
+final class IntQueue {
+
+    private int[] items = new int[16];
+    private int head, size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(int item) {
+        grow();
+        items[(head + size) & (items.length - 1)] = item;
+        ++size;
+    }
+
+    void push(int item) {
+        grow();
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        ++size;
+    }
+
+    int pop() {
+        int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        --size;
+        return item;
+    }
+
+    // the length stays a power of two, so indices wrap with a mask
+    private void grow() {
+        if (size < items.length) {
+            return;
+        }
+        int[] grown = Arrays.copyOf(items, 2 * items.length);
+        // the part that wrapped around goes after the rest
+        System.arraycopy(items, 0, grown, items.length, head);
+        items = grown;
+    }
+}
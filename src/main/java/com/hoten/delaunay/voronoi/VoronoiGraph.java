@@ -1,10 +1,14 @@
 package com.hoten.delaunay.voronoi;
 
+import com.hoten.delaunay.geom.ConvexPolygon;
 import com.hoten.delaunay.geom.Point;
 import com.hoten.delaunay.geom.Rectangle;
 import com.hoten.delaunay.voronoi.groundshapes.HeightAlgorithm;
-import com.hoten.delaunay.voronoi.nodename.as3delaunay.LineSegment;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.LloydRelaxation;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.NeighborTable;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.PeriodicVoronoi;
 import com.hoten.delaunay.voronoi.nodename.as3delaunay.Voronoi;
+import com.hoten.delaunay.voronoi.nodename.as3delaunay.VoronoiResult;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -20,32 +24,46 @@ public abstract class VoronoiGraph {
     final public ArrayList<Edge> edges = new ArrayList();
     final public ArrayList<Corner> corners = new ArrayList();
     final public ArrayList<Center> centers = new ArrayList();
+    // who touches whom, numbered like centers, corners and edges; the lists of
+    // Center and Corner are views of it
+    final public GraphTopology topology;
     final public Rectangle bounds;
+    // what the diagram was clipped to; corners on its border are border corners
+    final public ConvexPolygon clipBounds;
+    // whether the map wraps around at the sides of bounds, with no border corners
+    final public boolean periodic;
     final private Random r;
     protected Color OCEAN, RIVER, LAKE, BEACH;
     final public BufferedImage pixelCenterMap;
 
     public VoronoiGraph(Voronoi v, int numLloydRelaxations, Random r, HeightAlgorithm algorithm) {
+        this(relax(v, numLloydRelaxations), r, algorithm);
+    }
+
+    /**
+     * A map of a torus: cells, edges and rivers go on at the other side of
+     * the domain, and the ocean is the largest body of water rather than what
+     * touches the border.
+     */
+    public VoronoiGraph(PeriodicVoronoi v, int numLloydRelaxations, Random r, HeightAlgorithm algorithm) {
+        this(relax(v, numLloydRelaxations), r, algorithm);
+    }
+
+    private VoronoiGraph(Voronoi v, Random r, HeightAlgorithm algorithm) {
+        this(v.get_plotBounds(), v.get_clipBounds(), false, v.result(), v.neighborTable(), r, algorithm);
+    }
+
+    private VoronoiGraph(PeriodicVoronoi v, Random r, HeightAlgorithm algorithm) {
+        this(v.get_domain(), v.result().clipBounds, true, v.result(), v.neighborTable(), r, algorithm);
+    }
+
+    private VoronoiGraph(Rectangle bounds, ConvexPolygon clipBounds, boolean periodic, VoronoiResult result,
+            NeighborTable neighborTable, Random r, HeightAlgorithm algorithm) {
         this.r = r;
-        bounds = v.get_plotBounds();
-        for (int i = 0; i < numLloydRelaxations; i++) {
-            ArrayList<Point> points = v.siteCoords();
-            for (Point p : points) {
-                ArrayList<Point> region = v.region(p);
-                double x = 0;
-                double y = 0;
-                for (Point c : region) {
-                    x += c.x;
-                    y += c.y;
-                }
-                x /= region.size();
-                y /= region.size();
-                p.x = x;
-                p.y = y;
-            }
-            v = new Voronoi(points, null, v.get_plotBounds());
-        }
-        buildGraph(v);
+        this.bounds = bounds;
+        this.clipBounds = clipBounds;
+        this.periodic = periodic;
+        topology = buildGraph(result, neighborTable);
         improveCorners();
 
         assignCornerElevations(algorithm);
@@ -64,6 +82,20 @@ public abstract class VoronoiGraph {
         pixelCenterMap = new BufferedImage((int) bounds.width, (int) bounds.width, BufferedImage.TYPE_4BYTE_ABGR);
     }
 
+    private static Voronoi relax(Voronoi v, int numLloydRelaxations) {
+        return new LloydRelaxation(v, null).relax(numLloydRelaxations);
+    }
+
+    // the same steps on the torus; regions are whole there, and the new sites are wrapped back in
+    private static PeriodicVoronoi relax(PeriodicVoronoi v, int numLloydRelaxations) {
+        double[] coords = v.siteCoords();
+        for (int i = 0; i < numLloydRelaxations; i++) {
+            LloydRelaxation.centroids(v.regionTable(), v.siteCoords(), coords, null);
+            v = new PeriodicVoronoi(coords, v.get_domain());
+        }
+        return v;
+    }
+
     abstract protected Enum getBiome(Center p);
 
     abstract protected Color getColor(Enum biome);
@@ -76,11 +108,13 @@ public abstract class VoronoiGraph {
             } else {
                 double x = 0;
                 double y = 0;
-                for (Center center : c.touches) {
-                    x += center.loc.x;
-                    y += center.loc.y;
+                int first = topology.touchOffsets[c.index], end = topology.touchOffsets[c.index + 1];
+                for (int k = first; k < end; k++) {
+                    Point p = near(centers.get(topology.touches[k]).loc, c.loc);
+                    x += p.x;
+                    y += p.y;
                 }
-                newP[c.index] = new Point(x / c.touches.size(), y / c.touches.size());
+                newP[c.index] = wrap(new Point(x / (end - first), y / (end - first)));
             }
         }
         corners.stream().forEach((c) -> {
@@ -88,28 +122,86 @@ public abstract class VoronoiGraph {
         });
         edges.stream().filter((e) -> (e.v0 != null && e.v1 != null)).forEach((e) -> {
             e.setVornoi(e.v0, e.v1);
+            if (periodic) {
+                Point p = near(e.v1.loc, e.v0.loc);
+                e.midpoint = wrap(new Point((e.v0.loc.x + p.x) / 2, (e.v0.loc.y + p.y) / 2));
+            }
         });
     }
 
+    // the copy of p nearest to ref on a periodic map, p itself otherwise
+    private Point near(Point p, Point ref) {
+        if (!periodic) {
+            return p;
+        }
+        return new Point(ref.x + minimumImage(p.x - ref.x, bounds.width),
+                ref.y + minimumImage(p.y - ref.y, bounds.height));
+    }
+
+    private static double minimumImage(double d, double period) {
+        return d - Math.rint(d / period) * period;
+    }
+
+    // p moved into bounds on a periodic map
+    private Point wrap(Point p) {
+        if (!periodic) {
+            return p;
+        }
+        return new Point(p.x - Math.floor((p.x - bounds.x) / bounds.width) * bounds.width,
+                p.y - Math.floor((p.y - bounds.y) / bounds.height) * bounds.height);
+    }
+
     private Edge edgeWithCenters(Center c1, Center c2) {
-        for (Edge e : c1.borders) {
-            if (e.d0 == c2 || e.d1 == c2) {
-                return e;
+        for (int k = topology.borderOffsets[c1.index]; k < topology.borderOffsets[c1.index + 1]; k++) {
+            int e = topology.borders[k];
+            if (topology.edgeCenters[2 * e] == c2.index || topology.edgeCenters[2 * e + 1] == c2.index) {
+                return edges.get(e);
             }
         }
         return null;
     }
 
     private void drawTriangle(Graphics2D g, Corner c1, Corner c2, Center center) {
+        Point p1 = near(c1.loc, center.loc);
+        Point p2 = near(c2.loc, center.loc);
         int[] x = new int[3];
         int[] y = new int[3];
         x[0] = (int) center.loc.x;
         y[0] = (int) center.loc.y;
-        x[1] = (int) c1.loc.x;
-        y[1] = (int) c1.loc.y;
-        x[2] = (int) c2.loc.x;
-        y[2] = (int) c2.loc.y;
+        x[1] = (int) p1.x;
+        y[1] = (int) p1.y;
+        x[2] = (int) p2.x;
+        y[2] = (int) p2.y;
         g.fillPolygon(x, y, 3);
+        if (periodic) {
+            //a triangle sticking out of one side is drawn again at the other
+            double left = Math.min(center.loc.x, Math.min(p1.x, p2.x));
+            double right = Math.max(center.loc.x, Math.max(p1.x, p2.x));
+            double top = Math.min(center.loc.y, Math.min(p1.y, p2.y));
+            double bottom = Math.max(center.loc.y, Math.max(p1.y, p2.y));
+            for (int sx = -1; sx <= 1; sx++) {
+                for (int sy = -1; sy <= 1; sy++) {
+                    double dx = sx * bounds.width;
+                    double dy = sy * bounds.height;
+                    if ((sx != 0 || sy != 0) && left + dx < bounds.right && right + dx > bounds.x
+                            && top + dy < bounds.bottom && bottom + dy > bounds.y) {
+                        g.translate(dx, dy);
+                        g.fillPolygon(x, y, 3);
+                        g.translate(-dx, -dy);
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawLine(Graphics2D g, Point p1, Point p2) {
+        Point q2 = near(p2, p1);
+        g.drawLine((int) p1.x, (int) p1.y, (int) q2.x, (int) q2.y);
+        if (q2 != p2) {
+            //the other half of a line across a side
+            Point q1 = near(p1, p2);
+            g.drawLine((int) q1.x, (int) q1.y, (int) p2.x, (int) p2.y);
+        }
     }
 
     private boolean closeEnough(double d1, double d2, double diff) {
@@ -162,9 +254,11 @@ public abstract class VoronoiGraph {
             }
 
             drawTriangle(g, e.v0, e.v1, c);
-            c.area += Math.abs(c.loc.x * (e.v0.loc.y - e.v1.loc.y)
-                    + e.v0.loc.x * (e.v1.loc.y - c.loc.y)
-                    + e.v1.loc.x * (c.loc.y - e.v0.loc.y)) / 2;
+            Point p0 = near(e.v0.loc, c.loc);
+            Point p1 = near(e.v1.loc, c.loc);
+            c.area += Math.abs(c.loc.x * (p0.y - p1.y)
+                    + p0.x * (p1.y - c.loc.y)
+                    + p1.x * (c.loc.y - p0.y)) / 2;
         }
 
         //handle the missing triangle
@@ -224,12 +318,12 @@ public abstract class VoronoiGraph {
             if (drawDelaunay) {
                 g.setStroke(new BasicStroke(1));
                 g.setColor(Color.YELLOW);
-                g.drawLine((int) e.d0.loc.x, (int) e.d0.loc.y, (int) e.d1.loc.x, (int) e.d1.loc.y);
+                drawLine(g, e.d0.loc, e.d1.loc);
             }
             if (drawRivers && e.river > 0) {
                 g.setStroke(new BasicStroke(1 + (int) Math.sqrt(e.river * 2)));
                 g.setColor(RIVER);
-                g.drawLine((int) e.v0.loc.x, (int) e.v0.loc.y, (int) e.v1.loc.x, (int) e.v1.loc.y);
+                drawLine(g, e.v0.loc, e.v1.loc);
             }
         }
 
@@ -250,111 +344,90 @@ public abstract class VoronoiGraph {
         g.drawRect((int) bounds.x, (int) bounds.y, (int) bounds.width, (int) bounds.height);
     }
 
-    private void buildGraph(Voronoi v) {
-        final HashMap<Point, Center> pointCenterMap = new HashMap();
-        final ArrayList<Point> points = v.siteCoords();
-        points.stream().forEach((p) -> {
+    private GraphTopology buildGraph(VoronoiResult result, NeighborTable neighborTable) {
+        for (int i = 0; i < result.numSites; i++) {
             Center c = new Center();
-            c.loc = p;
+            c.loc = new Point(result.siteCoords[2 * i], result.siteCoords[2 * i + 1]);
             c.index = centers.size();
             centers.add(c);
-            pointCenterMap.put(p, c);
-        });
-
-        //bug fix
-        centers.stream().forEach((c) -> {
-            v.region(c.loc);
-        });
+        }
 
-        final ArrayList<com.hoten.delaunay.voronoi.nodename.as3delaunay.Edge> libedges = v.edges();
         final HashMap<Integer, Corner> pointCornerMap = new HashMap();
+        final int[] libedges = result.edges;
+        final double[] clippedEnds = result.clippedEnds;
 
-        for (com.hoten.delaunay.voronoi.nodename.as3delaunay.Edge libedge : libedges) {
-            final LineSegment vEdge = libedge.voronoiEdge();
-            final LineSegment dEdge = libedge.delaunayLine();
+        // On a torus the ends of an edge are where its left site sees them,
+        // so corners are made from the vertices, which all cells share.
+        if (periodic) {
+            for (int i = 0; i < result.numVertices; i++) {
+                Corner c = new Corner();
+                c.loc = new Point(result.vertexCoords[2 * i], result.vertexCoords[2 * i + 1]);
+                c.index = corners.size();
+                corners.add(c);
+            }
+        }
 
+        final int[] edgeCenters = new int[2 * result.numEdges];
+        final int[] edgeCorners = new int[2 * result.numEdges];
+        for (int i = 0; i < result.numEdges; i++) {
             final Edge edge = new Edge();
             edge.index = edges.size();
             edges.add(edge);
 
-            edge.v0 = makeCorner(pointCornerMap, vEdge.p0);
-            edge.v1 = makeCorner(pointCornerMap, vEdge.p1);
-            edge.d0 = pointCenterMap.get(dEdge.p0);
-            edge.d1 = pointCenterMap.get(dEdge.p1);
-
-            // Centers point to edges. Corners point to edges.
-            if (edge.d0 != null) {
-                edge.d0.borders.add(edge);
-            }
-            if (edge.d1 != null) {
-                edge.d1.borders.add(edge);
-            }
-            if (edge.v0 != null) {
-                edge.v0.protrudes.add(edge);
-            }
-            if (edge.v1 != null) {
-                edge.v1.protrudes.add(edge);
-            }
-
-            // Centers point to centers.
-            if (edge.d0 != null && edge.d1 != null) {
-                addToCenterList(edge.d0.neighbors, edge.d1);
-                addToCenterList(edge.d1.neighbors, edge.d0);
-            }
-
-            // Corners point to corners
-            if (edge.v0 != null && edge.v1 != null) {
-                addToCornerList(edge.v0.adjacent, edge.v1);
-                addToCornerList(edge.v1.adjacent, edge.v0);
-            }
-
-            // Centers point to corners
-            if (edge.d0 != null) {
-                addToCornerList(edge.d0.corners, edge.v0);
-                addToCornerList(edge.d0.corners, edge.v1);
-            }
-            if (edge.d1 != null) {
-                addToCornerList(edge.d1.corners, edge.v0);
-                addToCornerList(edge.d1.corners, edge.v1);
-            }
-
-            // Corners point to centers
-            if (edge.v0 != null) {
-                addToCenterList(edge.v0.touches, edge.d0);
-                addToCenterList(edge.v0.touches, edge.d1);
-            }
-            if (edge.v1 != null) {
-                addToCenterList(edge.v1.touches, edge.d0);
-                addToCenterList(edge.v1.touches, edge.d1);
-            }
-        }
-    }
-
-    // Helper functions for the following for loop; ideally these
-    // would be inlined
-    private void addToCornerList(ArrayList<Corner> list, Corner c) {
-        if (c != null && !list.contains(c)) {
-            list.add(c);
+            if (periodic) {
+                edge.v0 = corners.get(libedges[4 * i + 2]);
+                edge.v1 = corners.get(libedges[4 * i + 3]);
+            } else {
+                edge.v0 = makeCorner(pointCornerMap, clippedEnds[4 * i], clippedEnds[4 * i + 1]);
+                edge.v1 = makeCorner(pointCornerMap, clippedEnds[4 * i + 2], clippedEnds[4 * i + 3]);
+            }
+            edge.d0 = centers.get(libedges[4 * i]);
+            edge.d1 = centers.get(libedges[4 * i + 1]);
+
+            edgeCenters[2 * i] = edge.d0.index;
+            edgeCenters[2 * i + 1] = edge.d1.index;
+            edgeCorners[2 * i] = edge.v0 != null ? edge.v0.index : -1;
+            edgeCorners[2 * i + 1] = edge.v1 != null ? edge.v1.index : -1;
+        }
+
+        // Centers point to centers, corners and edges; corners point to
+        // centers, corners and edges. All through the tables.
+        GraphTopology t = new GraphTopology(centers.size(), corners.size(), edgeCenters, edgeCorners,
+                neighborTable.offsets, neighborTable.neighbors);
+        Center[] centerArray = centers.toArray(new Center[centers.size()]);
+        Corner[] cornerArray = corners.toArray(new Corner[corners.size()]);
+        Edge[] edgeArray = edges.toArray(new Edge[edges.size()]);
+        IndexList.Table<Center> neighbors = new IndexList.Table<>(centerArray, t.neighborOffsets, t.neighbors);
+        IndexList.Table<Corner> centerCorners = new IndexList.Table<>(cornerArray, t.cornerOffsets, t.corners);
+        IndexList.Table<Edge> borders = new IndexList.Table<>(edgeArray, t.borderOffsets, t.borders);
+        for (Center c : centers) {
+            c.neighbors = neighbors.row(c.index);
+            c.corners = centerCorners.row(c.index);
+            c.borders = borders.row(c.index);
         }
-    }
-
-    private void addToCenterList(ArrayList<Center> list, Center c) {
-        if (c != null && !list.contains(c)) {
-            list.add(c);
+        IndexList.Table<Center> touches = new IndexList.Table<>(centerArray, t.touchOffsets, t.touches);
+        IndexList.Table<Corner> adjacent = new IndexList.Table<>(cornerArray, t.adjacentOffsets, t.adjacent);
+        IndexList.Table<Edge> protrudes = new IndexList.Table<>(edgeArray, t.protrudeOffsets, t.protrudes);
+        for (Corner c : corners) {
+            c.touches = touches.row(c.index);
+            c.adjacent = adjacent.row(c.index);
+            c.protrudes = protrudes.row(c.index);
         }
+        return t;
     }
 
     //ensures that each corner is represented by only one corner object
-    private Corner makeCorner(HashMap<Integer, Corner> pointCornerMap, Point p) {
-        if (p == null) {
+    private Corner makeCorner(HashMap<Integer, Corner> pointCornerMap, double x, double y) {
+        if (Double.isNaN(x)) {
             return null;
         }
-        int index = (int) ((int) p.x + (int) (p.y) * bounds.width * 2);
+        int index = (int) ((int) x + (int) (y) * bounds.width * 2);
         Corner c = pointCornerMap.get(index);
         if (c == null) {
+            Point p = new Point(x, y);
             c = new Corner();
             c.loc = p;
-            c.border = bounds.liesOnAxes(p);
+            c.border = clipBounds.liesOnBorder(p, 1);
             c.index = corners.size();
             corners.add(c);
             pointCornerMap.put(index, c);
@@ -363,63 +436,86 @@ public abstract class VoronoiGraph {
     }
 
     private void assignCornerElevations(HeightAlgorithm algorithm) {
-        LinkedList<Corner> queue = new LinkedList();
+        final double[] elevation = new double[corners.size()];
+        final boolean[] water = new boolean[corners.size()];
+        IntQueue queue = new IntQueue();
         for (Corner c : corners) {
-            c.water = algorithm.isWater(c.loc, bounds, r);
-            if (c.border) {
-                c.elevation = 0;
-                queue.add(c);
+            c.water = water[c.index] = algorithm.isWater(c.loc, bounds, r);
+            //with no border, land rises from the water instead
+            if (c.border || (periodic && c.water)) {
+                elevation[c.index] = 0;
+                queue.add(c.index);
             } else {
-                c.elevation = Double.MAX_VALUE;
+                elevation[c.index] = Double.MAX_VALUE;
             }
         }
 
         while (!queue.isEmpty()) {
-            Corner c = queue.pop();
-            for (Corner a : c.adjacent) {
-                double newElevation = 0.01 + c.elevation;
-                if (!c.water && !a.water) {
+            int c = queue.pop();
+            for (int k = topology.adjacentOffsets[c]; k < topology.adjacentOffsets[c + 1]; k++) {
+                int a = topology.adjacent[k];
+                double newElevation = 0.01 + elevation[c];
+                if (!water[c] && !water[a]) {
                     newElevation += 1;
                 }
-                if (newElevation < a.elevation) {
-                    a.elevation = newElevation;
+                if (newElevation < elevation[a]) {
+                    elevation[a] = newElevation;
                     queue.add(a);
                 }
             }
         }
+        for (Corner c : corners) {
+            c.elevation = elevation[c.index];
+        }
     }
 
     private void assignOceanCoastAndLand() {
-        LinkedList<Center> queue = new LinkedList();
+        final boolean[] water = new boolean[centers.size()];
+        final boolean[] ocean = new boolean[centers.size()];
+        IntQueue queue = new IntQueue();
         final double waterThreshold = .3;
         for (final Center center : centers) {
             int numWater = 0;
-            for (final Corner c : center.corners) {
+            int first = topology.cornerOffsets[center.index], end = topology.cornerOffsets[center.index + 1];
+            for (int k = first; k < end; k++) {
+                final Corner c = corners.get(topology.corners[k]);
                 if (c.border) {
                     center.border = center.water = center.ocean = true;
-                    queue.add(center);
+                    queue.add(center.index);
                 }
                 if (c.water) {
                     numWater++;
                 }
             }
-            center.water = center.ocean || ((double) numWater / center.corners.size() >= waterThreshold);
+            center.water = center.ocean || ((double) numWater / (end - first) >= waterThreshold);
+            water[center.index] = center.water;
+            ocean[center.index] = center.ocean;
+        }
+        if (periodic) {
+            int sea = largestWaterBody(water);
+            if (sea >= 0) {
+                ocean[sea] = true;
+                queue.add(sea);
+            }
         }
         while (!queue.isEmpty()) {
-            final Center center = queue.pop();
-            for (final Center n : center.neighbors) {
-                if (n.water && !n.ocean) {
-                    n.ocean = true;
+            final int center = queue.pop();
+            for (int k = topology.neighborOffsets[center]; k < topology.neighborOffsets[center + 1]; k++) {
+                int n = topology.neighbors[k];
+                if (water[n] && !ocean[n]) {
+                    ocean[n] = true;
                     queue.add(n);
                 }
             }
         }
         for (Center center : centers) {
+            center.ocean = ocean[center.index];
             boolean oceanNeighbor = false;
             boolean landNeighbor = false;
-            for (Center n : center.neighbors) {
-                oceanNeighbor |= n.ocean;
-                landNeighbor |= !n.water;
+            for (int k = topology.neighborOffsets[center.index]; k < topology.neighborOffsets[center.index + 1]; k++) {
+                int n = topology.neighbors[k];
+                oceanNeighbor |= ocean[n];
+                landNeighbor |= !water[n];
             }
             center.coast = oceanNeighbor && landNeighbor;
         }
@@ -427,16 +523,50 @@ public abstract class VoronoiGraph {
         for (Corner c : corners) {
             int numOcean = 0;
             int numLand = 0;
-            for (Center center : c.touches) {
-                numOcean += center.ocean ? 1 : 0;
-                numLand += !center.water ? 1 : 0;
+            int first = topology.touchOffsets[c.index], end = topology.touchOffsets[c.index + 1];
+            for (int k = first; k < end; k++) {
+                int center = topology.touches[k];
+                numOcean += ocean[center] ? 1 : 0;
+                numLand += !water[center] ? 1 : 0;
             }
-            c.ocean = numOcean == c.touches.size();
+            c.ocean = numOcean == end - first;
             c.coast = numOcean > 0 && numLand > 0;
-            c.water = c.border || ((numLand != c.touches.size()) && !c.coast);
+            c.water = c.border || ((numLand != end - first) && !c.coast);
         }
     }
 
+    //a center of the body of water centers with the most centers, or -1 if there is no water
+    private int largestWaterBody(boolean[] water) {
+        boolean[] seen = new boolean[centers.size()];
+        int largest = -1;
+        int largestSize = 0;
+        IntQueue queue = new IntQueue();
+        for (int start = 0; start < centers.size(); start++) {
+            if (!water[start] || seen[start]) {
+                continue;
+            }
+            seen[start] = true;
+            queue.add(start);
+            int size = 0;
+            while (!queue.isEmpty()) {
+                int center = queue.pop();
+                size++;
+                for (int k = topology.neighborOffsets[center]; k < topology.neighborOffsets[center + 1]; k++) {
+                    int n = topology.neighbors[k];
+                    if (water[n] && !seen[n]) {
+                        seen[n] = true;
+                        queue.add(n);
+                    }
+                }
+            }
+            if (size > largestSize) {
+                largestSize = size;
+                largest = start;
+            }
+        }
+        return largest;
+    }
+
     private ArrayList<Corner> landCorners() {
         final ArrayList<Corner> list = new ArrayList();
         for (Corner c : corners) {
@@ -478,19 +608,19 @@ public abstract class VoronoiGraph {
     private void assignPolygonElevations() {
         for (Center center : centers) {
             double total = 0;
-            for (Corner c : center.corners) {
-                total += c.elevation;
+            int first = topology.cornerOffsets[center.index], end = topology.cornerOffsets[center.index + 1];
+            for (int k = first; k < end; k++) {
+                total += corners.get(topology.corners[k]).elevation;
             }
-            center.elevation = total / center.corners.size();
+            center.elevation = total / (end - first);
         }
     }
 
     private void calculateDownslopes() {
         for (Corner c : corners) {
             Corner down = c;
-            //System.out.println("ME: " + c.elevation);
-            for (Corner a : c.adjacent) {
-                //System.out.println(a.elevation);
+            for (int k = topology.adjacentOffsets[c.index]; k < topology.adjacentOffsets[c.index + 1]; k++) {
+                Corner a = corners.get(topology.adjacent[k]);
                 if (a.elevation <= down.elevation) {
                     down = a;
                 }
@@ -522,31 +652,34 @@ public abstract class VoronoiGraph {
     }
 
     private Edge lookupEdgeFromCorner(Corner c, Corner downslope) {
-        for (Edge e : c.protrudes) {
-            if (e.v0 == downslope || e.v1 == downslope) {
-                return e;
+        for (int k = topology.protrudeOffsets[c.index]; k < topology.protrudeOffsets[c.index + 1]; k++) {
+            int e = topology.protrudes[k];
+            if (topology.edgeCorners[2 * e] == downslope.index || topology.edgeCorners[2 * e + 1] == downslope.index) {
+                return edges.get(e);
             }
         }
         return null;
     }
 
     private void assignCornerMoisture() {
-        LinkedList<Corner> queue = new LinkedList();
+        final double[] moisture = new double[corners.size()];
+        IntQueue queue = new IntQueue();
         for (Corner c : corners) {
             if ((c.water || c.river > 0) && !c.ocean) {
-                c.moisture = c.river > 0 ? Math.min(3.0, (0.2 * c.river)) : 1.0;
-                queue.push(c);
+                moisture[c.index] = c.river > 0 ? Math.min(3.0, (0.2 * c.river)) : 1.0;
+                queue.push(c.index);
             } else {
-                c.moisture = 0.0;
+                moisture[c.index] = 0.0;
             }
         }
 
         while (!queue.isEmpty()) {
-            Corner c = queue.pop();
-            for (Corner a : c.adjacent) {
-                double newM = .9 * c.moisture;
-                if (newM > a.moisture) {
-                    a.moisture = newM;
+            int c = queue.pop();
+            for (int k = topology.adjacentOffsets[c]; k < topology.adjacentOffsets[c + 1]; k++) {
+                int a = topology.adjacent[k];
+                double newM = .9 * moisture[c];
+                if (newM > moisture[a]) {
+                    moisture[a] = newM;
                     queue.add(a);
                 }
             }
@@ -554,9 +687,7 @@ public abstract class VoronoiGraph {
 
         // Salt water
         for (Corner c : corners) {
-            if (c.ocean || c.coast) {
-                c.moisture = 1.0;
-            }
+            c.moisture = c.ocean || c.coast ? 1.0 : moisture[c.index];
         }
     }
 
@@ -580,10 +711,11 @@ public abstract class VoronoiGraph {
     private void assignPolygonMoisture() {
         for (Center center : centers) {
             double total = 0;
-            for (Corner c : center.corners) {
-                total += c.moisture;
+            int first = topology.cornerOffsets[center.index], end = topology.cornerOffsets[center.index + 1];
+            for (int k = first; k < end; k++) {
+                total += corners.get(topology.corners[k]).moisture;
             }
-            center.moisture = total / center.corners.size();
+            center.moisture = total / (end - first);
         }
     }
 
@@ -0,0 +1,76 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.ArrayList;
+import java.util.Stack;
+
+/**
+ * Arena for Voronoi construction. It owns the object pools and counters that
+ * used to be static in Site, Halfedge, Edge and Vertex, so diagrams built with
+ * different contexts never share state and can be built on different threads
+ * at the same time.
+ *
+ * A context is not thread safe itself: use one per thread. Diagrams built
+ * one after another in the same context recycle each other's objects once
+ * they are disposed. Closing the context disposes every diagram that was built
+ * in it and not yet disposed, then drops the pools.
+ *
+ * A Voronoi constructed without an explicit context gets a private one.
+ */
+public final class BuildContext implements IDisposable, AutoCloseable {
+
+    final Stack<Site> sitePool = new Stack();
+    final Stack<Halfedge> halfedgePool = new Stack();
+    final Stack<Edge> edgePool = new Stack();
+    final Stack<Vertex> vertexPool = new Stack();
+    int nedges = 0;
+    int nvertices = 0;
+    private ArrayList<Voronoi> _diagrams = new ArrayList();
+
+    void register(Voronoi voronoi) {
+        checkOpen();
+        _diagrams.add(voronoi);
+    }
+
+    void unregister(Voronoi voronoi) {
+        if (_diagrams != null) {
+            _diagrams.remove(voronoi);
+        }
+    }
+
+    void checkOpen() {
+        if (_diagrams == null) {
+            throw new IllegalStateException("BuildContext has been closed");
+        }
+    }
+
+    /**
+     * Drop the pooled objects without touching live diagrams.
+     */
+    public void releasePools() {
+        sitePool.clear();
+        halfedgePool.clear();
+        edgePool.clear();
+        vertexPool.clear();
+    }
+
+    @Override
+    public void dispose() {
+        if (_diagrams == null) {
+            return;
+        }
+        ArrayList<Voronoi> diagrams = _diagrams;
+        _diagrams = null;
+        for (Voronoi voronoi : diagrams) {
+            voronoi.dispose();
+        }
+        diagrams.clear();
+        releasePools();
+        nedges = 0;
+        nvertices = 0;
+    }
+
+    @Override
+    public void close() {
+        dispose();
+    }
+}
@@ -0,0 +1,136 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settings that pick how a Voronoi diagram is constructed. None of them change
+ * the resulting diagram, only the way it is computed and the form it is kept
+ * in; the one exception is the engine, whose diagrams can differ for some
+ * inputs (see Engine.DIVIDE_AND_CONQUER).
+ */
+public final class BuildOptions {
+
+    public enum Engine {
+
+        /** Fortune's sweep, single threaded */
+        SWEEP,
+        /**
+         * Guibas-Stolfi divide and conquer on x-sorted slabs, run on a
+         * fork-join pool. Its orientation and circle tests are exact, so its
+         * triangulation is always a Delaunay triangulation of the sites;
+         * only the vertex coordinates are rounded. It is not always the
+         * sweep's: where four or more sites are cocircular, as on a grid, the
+         * engines may break the tie with different Delaunay edges, and where
+         * the sweep's rounding misleads it, as with sites near a line or in
+         * tight clusters, some of the sweep's Delaunay edges are wrong.
+         */
+        DIVIDE_AND_CONQUER
+    }
+
+    public enum EventQueue {
+
+        /** Indexed 4-ary heap, O(log n) per operation (HalfedgeHeap) */
+        HEAP,
+        /** Fortune's original bucketed lists (HalfedgePriorityQueue) */
+        BUCKETS
+    }
+
+    public enum EdgeListHash {
+
+        /** buckets split the x range of the sites evenly, as in Fortune's code */
+        UNIFORM,
+        /**
+         * buckets split at quantiles of the sites' x coordinates, so each
+         * bucket gets about as many site events however clustered the sites
+         */
+        QUANTILES
+    }
+
+    public enum OutputMode {
+
+        /** Site, Edge and Vertex objects only; result() is built on demand */
+        OBJECTS,
+        /** the objects, plus a VoronoiResult filled in during construction */
+        OBJECTS_AND_FLAT,
+        /**
+         * a VoronoiResult only. The objects go back to the BuildContext as soon
+         * as the arrays are filled, so the accessors that need them throw.
+         */
+        FLAT,
+        /**
+         * nothing: only the sink sees the diagram. With the sweep, each edge
+         * is recycled as soon as it has been passed on and vertices are
+         * dropped with their edges, so beyond the beach line the heap only
+         * holds the Sites. Those are kept, finished or not, until the build
+         * is over.
+         */
+        STREAM
+    }
+
+    public Engine engine = Engine.SWEEP;
+    public EventQueue eventQueue = EventQueue.HEAP;
+    public EdgeListHash edgeListHash = EdgeListHash.QUANTILES;
+    // pool for the parallel parts of a build (DIVIDE_AND_CONQUER, sorting large inputs), null for the common pool
+    public ForkJoinPool pool = null;
+    public OutputMode outputMode = OutputMode.OBJECTS;
+    // gets the diagram while it is built, or null
+    public IVoronoiSink sink = null;
+    // whether region(Point) keeps each region it builds on its Site
+    public boolean cacheRegions = true;
+    // whether to collect the Delaunay triangles for Voronoi.triangles()
+    public boolean triangles = false;
+    // whether the sites come nearly in y, then x order, as a diagram's own sites do after a small move; they are
+    // insertion sorted then, falling back on the radix sort if they turn out not to be
+    public boolean nearlySorted = false;
+
+    public BuildOptions engine(Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    public BuildOptions eventQueue(EventQueue eventQueue) {
+        this.eventQueue = eventQueue;
+        return this;
+    }
+
+    public BuildOptions edgeListHash(EdgeListHash edgeListHash) {
+        this.edgeListHash = edgeListHash;
+        return this;
+    }
+
+    public BuildOptions pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    public BuildOptions outputMode(OutputMode outputMode) {
+        this.outputMode = outputMode;
+        return this;
+    }
+
+    public BuildOptions sink(IVoronoiSink sink) {
+        this.sink = sink;
+        return this;
+    }
+
+    public BuildOptions cacheRegions(boolean cacheRegions) {
+        this.cacheRegions = cacheRegions;
+        return this;
+    }
+
+    public BuildOptions triangles(boolean triangles) {
+        this.triangles = triangles;
+        return this;
+    }
+
+    public BuildOptions nearlySorted(boolean nearlySorted) {
+        this.nearlySorted = nearlySorted;
+        return this;
+    }
+
+    BuildOptions copy() {
+        return new BuildOptions().engine(engine).eventQueue(eventQueue).edgeListHash(edgeListHash).pool(pool)
+                .outputMode(outputMode).sink(sink).cacheRegions(cacheRegions).triangles(triangles)
+                .nearlySorted(nearlySorted);
+    }
+}
@@ -0,0 +1,282 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A Voronoi diagram of a world with no end, built a square chunk at a time.
+ *
+ * The sites of chunk (chunkX, chunkY) are drawn from the world seed and the
+ * chunk's coordinates alone, so a chunk comes out the same whenever and in
+ * whatever order it is built. Its diagram is built over its own sites and
+ * the sites of its neighbors within a halo around it, and clipped to the
+ * chunk; a region whose corners are not all nearer to its site than to any
+ * site left out makes the halo twice as wide and the diagram start again.
+ * The regions of a chunk are therefore the regions of the whole world cut
+ * along the chunk's sides, and two chunks agree along the side they share.
+ *
+ * Chunks are built when first asked for, by chunk(), or ahead of time on a
+ * fork-join pool by prefetch(). The most recently used ones are kept; older
+ * ones are dropped and built again if they are asked for again.
+ */
+public final class ChunkedWorld {
+
+    // how far the halo starts out reaching past a chunk, in site spacings
+    private static final double HALO_SPACINGS = 3;
+
+    /**
+     * The diagram of one chunk. Its Voronoi has the halo's sites as well as
+     * the chunk's own; their regions are clipped to the chunk too, and are
+     * mostly empty. Like any Voronoi it can be made into a VoronoiGraph, with
+     * no Lloyd relaxation, since relaxing a chunk on its own would move its
+     * sites away from the ones its neighbors see.
+     */
+    public static final class Chunk {
+
+        public final int chunkX, chunkY;
+        public final Rectangle bounds;
+        public final Voronoi voronoi;
+        // how far past bounds the sites of the diagram reach
+        public final double halo;
+
+        private Chunk(int chunkX, int chunkY, Rectangle bounds, Voronoi voronoi, double halo) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.bounds = bounds;
+            this.voronoi = voronoi;
+            this.halo = halo;
+        }
+
+        /**
+         * @param site numbered like voronoi.result()
+         * @return whether site is one of the chunk's own sites, not the
+         * halo's
+         */
+        public boolean owns(int site) {
+            double[] siteCoords = voronoi.result().siteCoords;
+            double x = siteCoords[2 * site], y = siteCoords[2 * site + 1];
+            return x >= bounds.left && x < bounds.right && y >= bounds.top && y < bounds.bottom;
+        }
+    }
+
+    private final long _worldSeed;
+    private final double _chunkSize;
+    private final int _sitesPerChunk;
+    private final ForkJoinPool _pool;
+    // the build of each chunk asked for lately, least recently used first
+    private final LinkedHashMap<Long, ForkJoinTask<Chunk>> _cache;
+
+    /**
+     * @param chunkSize the side of a chunk; chunk (0, 0) is [0, chunkSize) x
+     * [0, chunkSize)
+     * @param cacheSize how many chunks to keep
+     * @param pool to build chunks ahead of time on, or null for the common
+     * pool
+     */
+    public ChunkedWorld(long worldSeed, double chunkSize, int sitesPerChunk, int cacheSize, ForkJoinPool pool) {
+        if (!(chunkSize > 0) || sitesPerChunk < 1 || cacheSize < 1) {
+            throw new IllegalArgumentException("chunks need a size, sites and room in the cache; got " + chunkSize
+                    + ", " + sitesPerChunk + " and " + cacheSize);
+        }
+        _worldSeed = worldSeed;
+        _chunkSize = chunkSize;
+        _sitesPerChunk = sitesPerChunk;
+        _pool = pool != null ? pool : ForkJoinPool.commonPool();
+        _cache = new LinkedHashMap<Long, ForkJoinTask<Chunk>>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ForkJoinTask<Chunk>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public long get_worldSeed() {
+        return _worldSeed;
+    }
+
+    public double get_chunkSize() {
+        return _chunkSize;
+    }
+
+    public int get_sitesPerChunk() {
+        return _sitesPerChunk;
+    }
+
+    /**
+     * @return the chunk column holding x
+     */
+    public int chunkX(double x) {
+        return (int) Math.floor(x / _chunkSize);
+    }
+
+    /**
+     * @return the chunk row holding y
+     */
+    public int chunkY(double y) {
+        return (int) Math.floor(y / _chunkSize);
+    }
+
+    public Rectangle chunkBounds(int chunkX, int chunkY) {
+        return new Rectangle(chunkX * _chunkSize, chunkY * _chunkSize, _chunkSize, _chunkSize);
+    }
+
+    /**
+     * The sites of a chunk, which depend only on the world seed and the
+     * chunk's coordinates.
+     *
+     * @return x0, y0, x1, y1, ...
+     */
+    public double[] sites(int chunkX, int chunkY) {
+        double[] xy = new double[2 * _sitesPerChunk];
+        fillSites(chunkX, chunkY, xy, 0);
+        return xy;
+    }
+
+    private void fillSites(int chunkX, int chunkY, double[] xy, int offset) {
+        Random r = new Random(_worldSeed ^ (0x9E3779B97F4A7C15L * chunkX + 0xC2B2AE3D27D4EB4FL * chunkY));
+        double x0 = chunkX * _chunkSize, y0 = chunkY * _chunkSize;
+        for (int i = 0; i < _sitesPerChunk; ++i) {
+            // x0 + size * u can round up to the next chunk's side
+            xy[offset + 2 * i] = Math.min(x0 + _chunkSize * r.nextDouble(), Math.nextDown((chunkX + 1) * _chunkSize));
+            xy[offset + 2 * i + 1] = Math.min(y0 + _chunkSize * r.nextDouble(),
+                    Math.nextDown((chunkY + 1) * _chunkSize));
+        }
+    }
+
+    /**
+     * The chunk, from the cache, built now by this thread if nothing has asked
+     * for it yet, or waited for if it is being built elsewhere.
+     */
+    public Chunk chunk(int chunkX, int chunkY) {
+        ForkJoinTask<Chunk> task;
+        boolean created = false;
+        synchronized (_cache) {
+            task = _cache.get(key(chunkX, chunkY));
+            if (task == null) {
+                task = build(chunkX, chunkY);
+                _cache.put(key(chunkX, chunkY), task);
+                created = true;
+            }
+        }
+        return created ? task.invoke() : task.join();
+    }
+
+    /**
+     * Starts building the chunks from (chunkX0, chunkY0) to (chunkX1,
+     * chunkY1), both included, that are not in the cache, on the pool, and
+     * returns without waiting for them. Asking for more chunks than the cache
+     * holds drops the first ones again.
+     */
+    public void prefetch(int chunkX0, int chunkY0, int chunkX1, int chunkY1) {
+        for (int chunkY = chunkY0; chunkY <= chunkY1; ++chunkY) {
+            for (int chunkX = chunkX0; chunkX <= chunkX1; ++chunkX) {
+                ForkJoinTask<Chunk> task = null;
+                synchronized (_cache) {
+                    if (!_cache.containsKey(key(chunkX, chunkY))) {
+                        task = build(chunkX, chunkY);
+                        _cache.put(key(chunkX, chunkY), task);
+                    }
+                }
+                if (task != null) {
+                    _pool.execute(task);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the chunk is built and in the cache, so that chunk()
+     * will not wait
+     */
+    public boolean isCached(int chunkX, int chunkY) {
+        synchronized (_cache) {
+            // get() would count as a use
+            for (Map.Entry<Long, ForkJoinTask<Chunk>> entry : _cache.entrySet()) {
+                if (entry.getKey() == key(chunkX, chunkY)) {
+                    return entry.getValue().isDone();
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Forgets every chunk, so that they can be collected.
+     */
+    public void clear() {
+        synchronized (_cache) {
+            _cache.clear();
+        }
+    }
+
+    private static long key(int chunkX, int chunkY) {
+        return (long) chunkX << 32 | (chunkY & 0xFFFFFFFFL);
+    }
+
+    private ForkJoinTask<Chunk> build(int chunkX, int chunkY) {
+        return ForkJoinTask.adapt(() -> {
+            Rectangle bounds = chunkBounds(chunkX, chunkY);
+            double halo = HALO_SPACINGS * _chunkSize / Math.sqrt(_sitesPerChunk);
+            while (true) {
+                Voronoi voronoi = new Voronoi(gatherSites(chunkX, chunkY, halo), bounds);
+                if (complete(voronoi, bounds, halo)) {
+                    return new Chunk(chunkX, chunkY, bounds, voronoi, halo);
+                }
+                halo *= 2;
+            }
+        });
+    }
+
+    // the chunk's own sites first, then the ones of other chunks within halo of it
+    private double[] gatherSites(int chunkX, int chunkY, double halo) {
+        int rings = (int) Math.ceil(halo / _chunkSize);
+        double left = chunkX * _chunkSize - halo, right = (chunkX + 1) * _chunkSize + halo;
+        double top = chunkY * _chunkSize - halo, bottom = (chunkY + 1) * _chunkSize + halo;
+        double[] xy = new double[2 * _sitesPerChunk * (2 * rings + 1) * (2 * rings + 1)];
+        fillSites(chunkX, chunkY, xy, 0);
+        int n = _sitesPerChunk;
+        double[] other = new double[2 * _sitesPerChunk];
+        for (int dy = -rings; dy <= rings; ++dy) {
+            for (int dx = -rings; dx <= rings; ++dx) {
+                if (dx == 0 && dy == 0) {
+                    continue;
+                }
+                fillSites(chunkX + dx, chunkY + dy, other, 0);
+                for (int i = 0; i < _sitesPerChunk; ++i) {
+                    double x = other[2 * i], y = other[2 * i + 1];
+                    if (x >= left && x <= right && y >= top && y <= bottom) {
+                        xy[2 * n] = x;
+                        xy[2 * n + 1] = y;
+                        ++n;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(xy, 2 * n);
+    }
+
+    // A region is right if no site left out is nearer to any of its corners
+    // than its own site; the sites in the circle around a corner through its
+    // site are all in when the circle is inside the halo.
+    private static boolean complete(Voronoi voronoi, Rectangle bounds, double halo) {
+        RegionTable regions = voronoi.regionTable();
+        double[] siteCoords = voronoi.result().siteCoords;
+        for (int s = 0; s < regions.numSites; ++s) {
+            double sx = siteCoords[2 * s], sy = siteCoords[2 * s + 1];
+            for (int i = regions.offsets[s]; i < regions.offsets[s + 1]; ++i) {
+                double x = regions.coords[2 * i], y = regions.coords[2 * i + 1];
+                double radius = Math.sqrt((x - sx) * (x - sx) + (y - sy) * (y - sy));
+                if (x - radius < bounds.left - halo || x + radius > bounds.right + halo
+                        || y - radius < bounds.top - halo || y + radius > bounds.bottom + halo) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
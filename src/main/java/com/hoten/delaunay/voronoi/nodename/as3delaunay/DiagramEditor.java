@@ -0,0 +1,581 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+/**
+ * Inserts and removes sites of a built diagram, touching only the part of it
+ * that changes.
+ *
+ * It keeps the Delaunay triangulation behind the diagram as a
+ * GhostTriangulation, recovered once from the Edge and Vertex objects.
+ *
+ * An insertion takes out the triangles whose circumcircle holds the new site
+ * and fans the hole out from it (Bowyer-Watson). A removal takes out the
+ * triangles around the site and fills the hole by cutting off ears whose
+ * circumcircle holds none of the other corners. Then only the Edges of the
+ * triangles that went or came are updated, made or disposed.
+ */
+final class DiagramEditor extends GhostTriangulation {
+
+    private final BuildContext _context;
+    private final SiteList _sites;
+    private final ArrayList<Edge> _edges;
+    private final ConvexPolygon _bounds;
+    // where each Edge is in _edges, so that it can be taken out in constant time
+    private final IdentityHashMap<Edge, Integer> _edgeSlots = new IdentityHashMap();
+    // the Voronoi vertex of each triangle; null for ghosts
+    private Vertex[] _vertices;
+    private int _numReal;
+    private int[] _free;
+    private int _numFree;
+    // a triangle of each site, and where it is
+    private int[] _siteTriangle;
+    private int[] _marks;
+    private int _mark;
+    // a triangle that is not a ghost, to start walking from
+    private int _hint;
+    // xorshift state for picking sites to start walks from
+    private long _random = 0x9E3779B97F4A7C15L;
+    // the triangles the current edit took out and put in
+    private int[] _removed = new int[16], _added = new int[16];
+    private int _numRemoved, _numAdded;
+
+    private DiagramEditor(BuildContext context, SiteList sites, ArrayList<Edge> edges, ConvexPolygon bounds,
+            int capacity) {
+        _context = context;
+        _sites = sites;
+        _edges = edges;
+        _bounds = bounds;
+        _tri = new int[3 * capacity];
+        _adj = new int[3 * capacity];
+        _vertices = new Vertex[capacity];
+        _marks = new int[capacity];
+        _free = new int[16];
+        int numSites = Math.max(16, sites.get_length());
+        _siteTriangle = new int[numSites];
+        _x = new double[numSites];
+        _y = new double[numSites];
+        for (int s = 0; s < sites.get_length(); ++s) {
+            _x[s] = sites.get(s).get_x();
+            _y[s] = sites.get(s).get_y();
+        }
+    }
+
+    /**
+     * @param vertexBase the index the first Voronoi vertex of edges got; they
+     * have to be numbered densely, as a build leaves them
+     * @return null if edges are not a triangulation with at least one
+     * triangle, as for fewer than three sites or collinear ones
+     */
+    static DiagramEditor create(BuildContext context, SiteList sites, ArrayList<Edge> edges, ConvexPolygon bounds,
+            int vertexBase, int numVertices) {
+        if (numVertices == 0) {
+            return null;
+        }
+        DiagramEditor editor = new DiagramEditor(context, sites, edges, bounds,
+                numVertices + numVertices / 4 + 16);
+        return editor.recover(vertexBase, numVertices) ? editor : null;
+    }
+
+    private boolean recover(int vertexBase, int numVertices) {
+        // the directed edges with each triangle on their left, three per triangle
+        int[] from = new int[3 * numVertices];
+        int[] to = new int[3 * numVertices];
+        int[] counts = new int[numVertices];
+        for (Edge edge : _edges) {
+            int left = edge.get_leftSite().get_siteIndex();
+            int right = edge.get_rightSite().get_siteIndex();
+            if (!addSide(edge.get_leftVertex(), left, right, vertexBase, numVertices, from, to, counts)
+                    || !addSide(edge.get_rightVertex(), right, left, vertexBase, numVertices, from, to, counts)) {
+                return false;
+            }
+        }
+        for (int t = 0; t < numVertices; ++t) {
+            if (counts[t] != 3) {
+                return false;
+            }
+            int a = from[3 * t], b = to[3 * t];
+            int next = from[3 * t + 1] == b ? 1 : 2;
+            int c = to[3 * t + next];
+            if (from[3 * t + next] != b || from[3 * t + 3 - next] != c || to[3 * t + 3 - next] != a
+                    || orient(a, b, c) <= 0) {
+                return false;
+            }
+            _tri[3 * t] = a;
+            _tri[3 * t + 1] = b;
+            _tri[3 * t + 2] = c;
+        }
+        _numSlots = _numReal = numVertices;
+
+        // ghost triangles by the hull site their edge starts from
+        HashMap<Integer, Integer> ghosts = new HashMap();
+        for (int i = 0; i < _edges.size(); ++i) {
+            Edge edge = _edges.get(i);
+            _edgeSlots.put(edge, i);
+            int left = edge.get_leftSite().get_siteIndex();
+            int right = edge.get_rightSite().get_siteIndex();
+            int l = face(edge.get_leftVertex(), left, right, vertexBase, ghosts);
+            int r = face(edge.get_rightVertex(), right, left, vertexBase, ghosts);
+            if (l < 0 || r < 0 || slot(l, left, right) < 0 || slot(r, right, left) < 0) {
+                return false;
+            }
+            link(l, left, right, r);
+        }
+        for (int g : ghosts.values()) {
+            Integer next = ghosts.get(_tri[3 * g + 1]);
+            if (next == null) {
+                return false;
+            }
+            link(g, _tri[3 * g + 1], INFINITY, next);
+        }
+
+        Arrays.fill(_siteTriangle, -1);
+        for (int t = 0; t < _numSlots; ++t) {
+            for (int k = 0; k < 3; ++k) {
+                if (_tri[3 * t + k] != INFINITY) {
+                    _siteTriangle[_tri[3 * t + k]] = t;
+                }
+            }
+        }
+        for (int s = 0; s < _sites.get_length(); ++s) {
+            if (_siteTriangle[s] < 0) {
+                return false;
+            }
+        }
+        _hint = 0;
+        return true;
+    }
+
+    private boolean addSide(Vertex vertex, int a, int b, int vertexBase, int numVertices,
+            int[] from, int[] to, int[] counts) {
+        if (vertex == null) {
+            return true;
+        }
+        int t = vertex.get_vertexIndex() - vertexBase;
+        if (t < 0 || t >= numVertices || counts[t] == 3) {
+            return false;
+        }
+        from[3 * t + counts[t]] = a;
+        to[3 * t + counts[t]] = b;
+        counts[t]++;
+        _vertices[t] = vertex;
+        return true;
+    }
+
+    // the triangle on the left of a to b, making a ghost where vertex is null
+    private int face(Vertex vertex, int a, int b, int vertexBase, HashMap<Integer, Integer> ghosts) {
+        if (vertex != null) {
+            return vertex.get_vertexIndex() - vertexBase;
+        }
+        int g = allocate(a, b, INFINITY, null);
+        return ghosts.put(a, g) == null ? g : -1;
+    }
+
+    /**
+     * @return the site at (x, y), or -1
+     */
+    int siteAt(double x, double y) {
+        int t = locate(x, y);
+        for (int k = 0; k < 3; ++k) {
+            int s = _tri[3 * t + k];
+            if (s != INFINITY && at(s, x, y)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Connects site, which has just been added to the end of the SiteList, to
+     * the triangulation and the diagram.
+     *
+     * @return the sites whose regions changed, in ascending order
+     */
+    int[] insert(int site) {
+        if (_siteTriangle.length <= site) {
+            _siteTriangle = Arrays.copyOf(_siteTriangle, 2 * (site + 1));
+            _x = Arrays.copyOf(_x, _siteTriangle.length);
+            _y = Arrays.copyOf(_y, _siteTriangle.length);
+        }
+        // not connected yet
+        _siteTriangle[site] = -1;
+        double x = _x[site] = _sites.get(site).get_x();
+        double y = _y[site] = _sites.get(site).get_y();
+        int start = locate(x, y);
+        _numRemoved = _numAdded = 0;
+
+        // the cavity: every triangle whose circumcircle holds the new site,
+        // and the edges around it with the triangle beyond each
+        ++_mark;
+        _marks[start] = _mark;
+        _removed = push(_removed, _numRemoved++, start);
+        int[] boundary = new int[24];
+        int numBoundary = 0;
+        for (int i = 0; i < _numRemoved; ++i) {
+            int t = _removed[i];
+            for (int k = 0; k < 3; ++k) {
+                int n = _adj[3 * t + k];
+                if (_marks[n] == _mark) {
+                    continue;
+                }
+                if (conflicts(n, x, y)) {
+                    _marks[n] = _mark;
+                    _removed = push(_removed, _numRemoved++, n);
+                } else {
+                    if (boundary.length < 3 * numBoundary + 3) {
+                        boundary = Arrays.copyOf(boundary, 2 * boundary.length);
+                    }
+                    boundary[3 * numBoundary] = _tri[3 * t + k];
+                    boundary[3 * numBoundary + 1] = _tri[3 * t + (k + 1) % 3];
+                    boundary[3 * numBoundary + 2] = n;
+                    ++numBoundary;
+                }
+            }
+        }
+
+        // fan the cavity out from the new site
+        HashMap<Integer, Integer> fan = new HashMap();
+        for (int i = 0; i < numBoundary; ++i) {
+            int a = boundary[3 * i], b = boundary[3 * i + 1];
+            int t = add(a, b, site);
+            link(t, a, b, boundary[3 * i + 2]);
+            fan.put(a, t);
+        }
+        for (int i = 0; i < numBoundary; ++i) {
+            int b = boundary[3 * i + 1];
+            link(_added[i], b, site, fan.get(b));
+        }
+        return finish();
+    }
+
+    /**
+     * Disconnects site from the triangulation and the diagram; the Site
+     * itself is left to the caller.
+     *
+     * @return the sites whose regions changed, in ascending order; null if
+     * no triangle is left, in which case the diagram has to be built again
+     */
+    int[] remove(int site) {
+        _numRemoved = _numAdded = 0;
+
+        // the triangles around site; the edge opposite site in each makes up
+        // the polygon around it, walked backwards
+        int[] from = new int[16], outs = new int[16];
+        int n = 0;
+        int removedReal = 0;
+        int t = _siteTriangle[site];
+        do {
+            int k = position(t, site);
+            _removed = push(_removed, _numRemoved++, t);
+            if (_tri[3 * t + 2] != INFINITY) {
+                ++removedReal;
+            }
+            from = push(from, n, _tri[3 * t + (k + 1) % 3]);
+            outs = push(outs, n, _adj[3 * t + (k + 1) % 3]);
+            ++n;
+            t = _adj[3 * t + k];
+        } while (t != _siteTriangle[site]);
+
+        // corner i of the polygon, counterclockwise, and the triangle beyond
+        // the edge from it to the next corner
+        int[] corners = new int[n];
+        int[] beyond = new int[n];
+        int infinity = -1;
+        for (int i = 0; i < n; ++i) {
+            corners[i] = from[n - 1 - i];
+            beyond[i] = outs[n - 1 - i];
+            if (corners[i] == INFINITY) {
+                infinity = i;
+            }
+        }
+        if (infinity < 0) {
+            fillPolygon(corners, beyond, n);
+        } else {
+            // a hull site: the corners from the one after INFINITY to the one
+            // before it are a path that the hole's new hull edges close
+            int m = n - 1;
+            int[] path = new int[m];
+            int[] pathBeyond = new int[m];
+            for (int i = 0; i < m; ++i) {
+                path[i] = corners[(infinity + 1 + i) % n];
+                pathBeyond[i] = beyond[(infinity + 1 + i) % n];
+            }
+            fillPath(path, pathBeyond, m, beyond[infinity]);
+        }
+        if (_numReal == removedReal) {
+            return null;
+        }
+        return finish();
+    }
+
+    /**
+     * Renames site from to site to, after the SiteList moved it there.
+     */
+    void moveSite(int from, int to) {
+        int start = _siteTriangle[from];
+        int t = start;
+        do {
+            int k = position(t, from);
+            _tri[3 * t + k] = to;
+            t = _adj[3 * t + k];
+        } while (t != start);
+        _siteTriangle[to] = start;
+        _x[to] = _x[from];
+        _y[to] = _y[from];
+    }
+
+    /**
+     * @return the triangles as site index triples, turned like
+     * TriangleBuffer turns them
+     */
+    int[] triangles() {
+        TriangleBuffer triangles = new TriangleBuffer(_numReal);
+        for (int t = 0; t < _numSlots; ++t) {
+            if (_tri[3 * t] != FREE && _tri[3 * t + 2] != INFINITY) {
+                triangles.add(_sites.get(_tri[3 * t]), _sites.get(_tri[3 * t + 1]), _sites.get(_tri[3 * t + 2]));
+            }
+        }
+        return triangles.toArray();
+    }
+
+    /**
+     * Brings the Edges in line with the triangles the edit took out and put
+     * in, and frees the ones it took out.
+     */
+    private int[] finish() {
+        // every Delaunay edge of a new triangle keeps its Edge, with new
+        // vertices, or gets one
+        HashSet<Edge> kept = new HashSet();
+        for (int i = 0; i < _numAdded; ++i) {
+            int t = _added[i];
+            for (int k = 0; k < 3; ++k) {
+                int a = _tri[3 * t + k], b = _tri[3 * t + (k + 1) % 3];
+                if (a == INFINITY || b == INFINITY) {
+                    continue;
+                }
+                Edge edge = edgeBetween(a, b);
+                if (edge == null) {
+                    edge = createEdge(a, b);
+                }
+                int n = _adj[3 * t + k];
+                boolean leftOfT = edge.get_leftSite().get_siteIndex() == a;
+                edge.setVertex(LR.LEFT, _vertices[leftOfT ? t : n]);
+                edge.setVertex(LR.RIGHT, _vertices[leftOfT ? n : t]);
+                edge.clipVertices(_bounds);
+                kept.add(edge);
+            }
+        }
+        // the other Delaunay edges of the old ones are gone
+        for (int i = 0; i < _numRemoved; ++i) {
+            int t = _removed[i];
+            for (int k = 0; k < 3; ++k) {
+                int a = _tri[3 * t + k], b = _tri[3 * t + (k + 1) % 3];
+                if (a == INFINITY || b == INFINITY) {
+                    continue;
+                }
+                Edge edge = edgeBetween(a, b);
+                if (edge != null && !kept.contains(edge)) {
+                    removeEdge(edge);
+                }
+            }
+        }
+        for (int i = 0; i < _numRemoved; ++i) {
+            release(_removed[i]);
+        }
+
+        int[] affected = new int[3 * _numAdded];
+        int numAffected = 0;
+        for (int i = 0; i < _numAdded; ++i) {
+            int t = _added[i];
+            for (int k = 0; k < 3; ++k) {
+                int s = _tri[3 * t + k];
+                if (s != INFINITY) {
+                    _siteTriangle[s] = t;
+                    affected[numAffected++] = s;
+                }
+            }
+            // across the hull edge of a ghost is a triangle that is not one
+            _hint = _tri[3 * t + 2] != INFINITY ? t : _adj[3 * t];
+        }
+        Arrays.sort(affected, 0, numAffected);
+        int unique = 0;
+        for (int i = 0; i < numAffected; ++i) {
+            if (unique == 0 || affected[unique - 1] != affected[i]) {
+                affected[unique++] = affected[i];
+                _sites.get(affected[i]).edgesChanged();
+            }
+        }
+        return Arrays.copyOf(affected, unique);
+    }
+
+    private Edge edgeBetween(int a, int b) {
+        Site siteA = _sites.get(a), siteB = _sites.get(b);
+        for (Edge edge : siteA._edges) {
+            if (edge.get_leftSite() == siteB || edge.get_rightSite() == siteB) {
+                return edge;
+            }
+        }
+        // in case reordering left it out of one of the two lists
+        for (Edge edge : siteB._edges) {
+            if (edge.get_leftSite() == siteA || edge.get_rightSite() == siteA) {
+                return edge;
+            }
+        }
+        return null;
+    }
+
+    private Edge createEdge(int a, int b) {
+        Site site0 = _sites.get(a), site1 = _sites.get(b);
+        if (Voronoi.compareByYThenX(site0, site1) > 0) {
+            Site swap = site0;
+            site0 = site1;
+            site1 = swap;
+        }
+        Edge edge = Edge.createBisectingEdge(_context, site0, site1);
+        _edgeSlots.put(edge, _edges.size());
+        _edges.add(edge);
+        return edge;
+    }
+
+    private void removeEdge(Edge edge) {
+        edge.get_leftSite().removeEdge(edge);
+        edge.get_rightSite().removeEdge(edge);
+        int slot = _edgeSlots.remove(edge);
+        Edge last = _edges.remove(_edges.size() - 1);
+        if (last != edge) {
+            _edges.set(slot, last);
+            _edgeSlots.put(last, slot);
+        }
+        edge.dispose();
+    }
+
+    /**
+     * @return a triangle that holds (x, y), or a ghost that has it beyond its
+     * hull edge; either way one whose circumcircle holds it, unless it is a
+     * site
+     */
+    private int locate(double x, double y) {
+        int t = locate(x, y, start(x, y));
+        if (_tri[3 * t + 2] != INFINITY) {
+            _hint = t;
+        }
+        return t;
+    }
+
+    /**
+     * Where to walk from: the last triangle, unless one of a few sites picked
+     * at random is closer; that keeps walks short wherever edits jump to.
+     */
+    private int start(double x, double y) {
+        int best = _tri[3 * _hint];
+        double bestDistance = distanceSquared(best, x, y);
+        int numSites = _sites.get_length();
+        int samples = (int) Math.cbrt(numSites);
+        for (int i = 0; i < samples; ++i) {
+            _random ^= _random << 13;
+            _random ^= _random >>> 7;
+            _random ^= _random << 17;
+            int s = (int) ((_random >>> 1) % numSites);
+            double distance = distanceSquared(s, x, y);
+            if (distance < bestDistance && _siteTriangle[s] >= 0) {
+                best = s;
+                bestDistance = distance;
+            }
+        }
+        if (best == _tri[3 * _hint]) {
+            return _hint;
+        }
+        int t = _siteTriangle[best];
+        // across the hull edge of a ghost is a triangle that is not one
+        return _tri[3 * t + 2] != INFINITY ? t : _adj[3 * t];
+    }
+
+    /**
+     * Adds triangle a, b, c, turned so that INFINITY comes last, with a
+     * Voronoi vertex at its circumcenter unless it is a ghost.
+     */
+    @Override
+    int add(int a, int b, int c) {
+        if (a == INFINITY) {
+            return add(b, c, a);
+        }
+        if (b == INFINITY) {
+            return add(c, a, b);
+        }
+        Vertex vertex = null;
+        if (c != INFINITY) {
+            vertex = circumcenter(a, b, c);
+            vertex.setIndex();
+        }
+        int t = allocate(a, b, c, vertex);
+        _added = push(_added, _numAdded++, t);
+        return t;
+    }
+
+    private int allocate(int a, int b, int c, Vertex vertex) {
+        int t;
+        if (_numFree > 0) {
+            t = _free[--_numFree];
+        } else {
+            if (_vertices.length == _numSlots) {
+                int capacity = 2 * _numSlots;
+                _tri = Arrays.copyOf(_tri, 3 * capacity);
+                _adj = Arrays.copyOf(_adj, 3 * capacity);
+                _vertices = Arrays.copyOf(_vertices, capacity);
+                _marks = Arrays.copyOf(_marks, capacity);
+            }
+            t = _numSlots++;
+        }
+        _tri[3 * t] = a;
+        _tri[3 * t + 1] = b;
+        _tri[3 * t + 2] = c;
+        _vertices[t] = vertex;
+        if (c != INFINITY) {
+            ++_numReal;
+        }
+        return t;
+    }
+
+    private void release(int t) {
+        if (_vertices[t] != null) {
+            _vertices[t].dispose();
+            _vertices[t] = null;
+            --_numReal;
+        }
+        _tri[3 * t] = FREE;
+        _free = push(_free, _numFree++, t);
+    }
+
+    private static int[] push(int[] list, int size, int value) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, 2 * size);
+        }
+        list[size] = value;
+        return list;
+    }
+
+    private double distanceSquared(int site, double x, double y) {
+        double dx = _x[site] - x, dy = _y[site] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private boolean at(int site, double x, double y) {
+        return _x[site] == x && _y[site] == y;
+    }
+
+    private Vertex circumcenter(int a, int b, int c) {
+        double bx = _x[b] - _x[a], by = _y[b] - _y[a];
+        double cx = _x[c] - _x[a], cy = _y[c] - _y[a];
+        double d = 2 * (bx * cy - by * cx);
+        double b2 = bx * bx + by * by;
+        double c2 = cx * cx + cy * cy;
+        return Vertex.create(_context,
+                _x[a] + (cy * b2 - by * c2) / d,
+                _y[a] + (bx * c2 - cx * b2) / d);
+    }
+}
@@ -0,0 +1,423 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Guibas-Stolfi divide and conquer Delaunay triangulation, the parallel
+ * alternative to Voronoi.fortunesAlgorithm().
+ *
+ * The sites are sorted on x (then y) and cut into slabs of at most LEAF_SIZE
+ * sites. Slabs are triangulated independently on a fork-join pool and
+ * neighboring triangulations are stitched together by the usual merge step
+ * as the recursion unwinds. The result is then turned into the same Edge,
+ * Vertex and Site structures the sweep produces: one Vertex per Delaunay
+ * triangle (its circumcenter) and one bisecting Edge per Delaunay edge, left
+ * site being the lower one in y-then-x order like the sweep does.
+ *
+ * Quad-edges live in flat int arrays. Directed edge e of quad-edge q is
+ * q * 4 + r, r being the rotation; primal edges have even r. A task working on
+ * sites [lo, hi) only ever allocates quad-edges in slots [3 * lo, 3 * hi):
+ * every intermediate state is a planar graph, which never has more than
+ * 3 * n edges, so concurrently running tasks never touch the same slots.
+ */
+final class DivideAndConquerDelaunay {
+
+    // slabs at most this large are triangulated sequentially
+    private static final int LEAF_SIZE = 1 << 12;
+
+    private final Site[] _sites;
+    private final double[] _x;
+    private final double[] _y;
+    private final int _n;
+    // onext of every directed edge, -1 for unused slots
+    private final int[] _next;
+    // origin site of every primal directed edge, indexed by e >> 1
+    private final int[] _org;
+
+    DivideAndConquerDelaunay(SiteList sites) {
+        Site[] sorted = new Site[sites.get_length()];
+        for (int i = 0; i < sorted.length; ++i) {
+            sorted[i] = sites.get(i);
+        }
+        Arrays.parallelSort(sorted, new Comparator<Site>() {
+            @Override
+            public int compare(Site s1, Site s2) {
+                if (s1.get_x() != s2.get_x()) {
+                    return s1.get_x() < s2.get_x() ? -1 : 1;
+                }
+                return Double.compare(s1.get_y(), s2.get_y());
+            }
+        });
+        // no coincident sites, which would break the merge: SiteList.sort() set them aside
+        int n = sorted.length;
+        _n = n;
+        _sites = sorted;
+        _x = new double[n];
+        _y = new double[n];
+        for (int i = 0; i < n; ++i) {
+            _x[i] = sorted[i].get_x();
+            _y[i] = sorted[i].get_y();
+        }
+        _next = new int[Math.max(0, 12 * n)];
+        _org = new int[Math.max(0, 6 * n)];
+        Arrays.fill(_next, -1);
+    }
+
+    /**
+     * Triangulate, then append one Edge per Delaunay edge to edges.
+     *
+     * @param triangles to add each Delaunay triangle to, or null
+     */
+    void build(BuildContext context, ForkJoinPool pool, ArrayList<Edge> edges, TriangleBuffer triangles) {
+        if (_n < 2) {
+            return;
+        }
+        if (_n <= LEAF_SIZE) {
+            triangulate(0, _n, new Allocator(0, 3 * _n));
+        } else {
+            (pool != null ? pool : ForkJoinPool.commonPool()).invoke(new Slab(0, _n));
+        }
+        toVoronoi(context, edges, triangles);
+    }
+
+    private final class Slab extends RecursiveTask<Allocator> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int _lo, _hi;
+
+        Slab(int lo, int hi) {
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected Allocator compute() {
+            if (_hi - _lo <= LEAF_SIZE) {
+                Allocator allocator = new Allocator(3 * _lo, 3 * _hi);
+                allocator.hull = triangulate(_lo, _hi, allocator);
+                return allocator;
+            }
+            int mid = (_lo + _hi) >>> 1;
+            Slab left = new Slab(_lo, mid);
+            left.fork();
+            Allocator right = new Slab(mid, _hi).compute();
+            Allocator allocator = left.join();
+            allocator.append(right);
+            allocator.hull = merge(allocator.hull, right.hull, allocator);
+            return allocator;
+        }
+    }
+
+    /**
+     * @return the counterclockwise convex hull edge out of the leftmost site
+     * and the clockwise one out of the rightmost site, packed into a long
+     */
+    private long triangulate(int lo, int hi, Allocator allocator) {
+        int n = hi - lo;
+        if (n == 2) {
+            int a = makeEdge(lo, lo + 1, allocator);
+            return pack(a, sym(a));
+        }
+        if (n == 3) {
+            int a = makeEdge(lo, lo + 1, allocator);
+            int b = makeEdge(lo + 1, lo + 2, allocator);
+            splice(sym(a), b);
+            if (ccw(lo, lo + 1, lo + 2)) {
+                connect(b, a, allocator);
+                return pack(a, sym(b));
+            } else if (ccw(lo, lo + 2, lo + 1)) {
+                int c = connect(b, a, allocator);
+                return pack(sym(c), c);
+            }
+            // the three sites are collinear
+            return pack(a, sym(b));
+        }
+        int mid = lo + n / 2;
+        long left = triangulate(lo, mid, allocator);
+        long right = triangulate(mid, hi, allocator);
+        return merge(left, right, allocator);
+    }
+
+    private long merge(long left, long right, Allocator allocator) {
+        int ldo = first(left), ldi = second(left);
+        int rdi = first(right), rdo = second(right);
+        // find the lower common tangent of the two hulls
+        for (;;) {
+            if (leftOf(org(rdi), ldi)) {
+                ldi = lnext(ldi);
+            } else if (rightOf(org(ldi), rdi)) {
+                rdi = rprev(rdi);
+            } else {
+                break;
+            }
+        }
+        int basel = connect(sym(rdi), ldi, allocator);
+        if (org(ldi) == org(ldo)) {
+            ldo = sym(basel);
+        }
+        if (org(rdi) == org(rdo)) {
+            rdo = basel;
+        }
+        // zip the two triangulations together from the bottom up
+        for (;;) {
+            int lcand = onext(sym(basel));
+            if (valid(lcand, basel)) {
+                while (inCircle(dest(basel), org(basel), dest(lcand), dest(onext(lcand)))) {
+                    int t = onext(lcand);
+                    deleteEdge(lcand, allocator);
+                    lcand = t;
+                }
+            }
+            int rcand = oprev(basel);
+            if (valid(rcand, basel)) {
+                while (inCircle(dest(basel), org(basel), dest(rcand), dest(oprev(rcand)))) {
+                    int t = oprev(rcand);
+                    deleteEdge(rcand, allocator);
+                    rcand = t;
+                }
+            }
+            boolean lvalid = valid(lcand, basel);
+            boolean rvalid = valid(rcand, basel);
+            if (!lvalid && !rvalid) {
+                break;
+            }
+            if (!lvalid || (rvalid && inCircle(dest(lcand), org(lcand), org(rcand), dest(rcand)))) {
+                basel = connect(rcand, sym(basel), allocator);
+            } else {
+                basel = connect(sym(basel), sym(lcand), allocator);
+            }
+        }
+        return pack(ldo, rdo);
+    }
+
+    private void toVoronoi(BuildContext context, ArrayList<Edge> edges, TriangleBuffer triangles) {
+        int numSlots = _next.length / 4;
+        // the Vertex on the left of every primal directed edge, null outside the hull
+        Vertex[] leftFace = new Vertex[numSlots * 2];
+        for (int e = 0; e < _next.length; e += 2) {
+            if (_next[e] == -1 || leftFace[e >> 1] != null) {
+                continue;
+            }
+            int l1 = lnext(e);
+            int l2 = lnext(l1);
+            if (lnext(l2) != e || !ccw(org(e), org(l1), org(l2))) {
+                continue;
+            }
+            Vertex vertex = circumcenter(context, org(e), org(l1), org(l2));
+            vertex.setIndex();
+            leftFace[e >> 1] = leftFace[l1 >> 1] = leftFace[l2 >> 1] = vertex;
+            if (triangles != null) {
+                triangles.add(_sites[org(e)], _sites[org(l1)], _sites[org(l2)]);
+            }
+        }
+        for (int q = 0; q < numSlots; ++q) {
+            int e = q * 4;
+            if (_next[e] == -1) {
+                continue;
+            }
+            Site site0 = _sites[org(e)];
+            Site site1 = _sites[dest(e)];
+            if (Voronoi.compareByYThenX(site0, site1) > 0) {
+                e = sym(e);
+                site0 = _sites[org(e)];
+                site1 = _sites[dest(e)];
+            }
+            Edge edge = Edge.createBisectingEdge(context, site0, site1);
+            // seen from site0 towards site1, the left vertex is on the left
+            edge.setVertex(LR.LEFT, leftFace[e >> 1]);
+            edge.setVertex(LR.RIGHT, leftFace[sym(e) >> 1]);
+            edges.add(edge);
+        }
+    }
+
+    private Vertex circumcenter(BuildContext context, int a, int b, int c) {
+        double bx = _x[b] - _x[a], by = _y[b] - _y[a];
+        double cx = _x[c] - _x[a], cy = _y[c] - _y[a];
+        double d = 2 * (bx * cy - by * cx);
+        double b2 = bx * bx + by * by;
+        double c2 = cx * cx + cy * cy;
+        return Vertex.create(context,
+                _x[a] + (cy * b2 - by * c2) / d,
+                _y[a] + (bx * c2 - cx * b2) / d);
+    }
+
+    /*
+     * quad-edge primitives
+     */
+    private static int rot(int e) {
+        return (e & ~3) | ((e + 1) & 3);
+    }
+
+    private static int rotInv(int e) {
+        return (e & ~3) | ((e + 3) & 3);
+    }
+
+    private static int sym(int e) {
+        return e ^ 2;
+    }
+
+    private int onext(int e) {
+        return _next[e];
+    }
+
+    private int oprev(int e) {
+        return rot(_next[rot(e)]);
+    }
+
+    private int lnext(int e) {
+        return rot(_next[rotInv(e)]);
+    }
+
+    private int rprev(int e) {
+        return _next[sym(e)];
+    }
+
+    private int org(int e) {
+        return _org[e >> 1];
+    }
+
+    private int dest(int e) {
+        return _org[sym(e) >> 1];
+    }
+
+    private int makeEdge(int a, int b, Allocator allocator) {
+        int e = allocator.allocate() * 4;
+        _next[e] = e;
+        _next[e + 1] = e + 3;
+        _next[e + 2] = e + 2;
+        _next[e + 3] = e + 1;
+        _org[e >> 1] = a;
+        _org[(e + 2) >> 1] = b;
+        return e;
+    }
+
+    private void splice(int a, int b) {
+        int alpha = rot(_next[a]);
+        int beta = rot(_next[b]);
+        int t1 = _next[b];
+        int t2 = _next[a];
+        int t3 = _next[beta];
+        int t4 = _next[alpha];
+        _next[a] = t1;
+        _next[b] = t2;
+        _next[alpha] = t3;
+        _next[beta] = t4;
+    }
+
+    private int connect(int a, int b, Allocator allocator) {
+        int e = makeEdge(dest(a), org(b), allocator);
+        splice(e, lnext(a));
+        splice(sym(e), b);
+        return e;
+    }
+
+    private void deleteEdge(int e, Allocator allocator) {
+        splice(e, oprev(e));
+        splice(sym(e), oprev(sym(e)));
+        int q = e & ~3;
+        _next[q] = _next[q + 1] = _next[q + 2] = _next[q + 3] = -1;
+        allocator.free(q >> 2);
+    }
+
+    /*
+     * geometric predicates, exact: with rounding, near-cocircular sites get answers that contradict each other, and
+     * the merge walks off the edges it has cut apart
+     */
+    private boolean ccw(int a, int b, int c) {
+        return Predicates.orient(_x[a], _y[a], _x[b], _y[b], _x[c], _y[c]) > 0;
+    }
+
+    private boolean leftOf(int site, int e) {
+        return ccw(site, org(e), dest(e));
+    }
+
+    private boolean rightOf(int site, int e) {
+        return ccw(site, dest(e), org(e));
+    }
+
+    private boolean valid(int e, int basel) {
+        return rightOf(dest(e), basel);
+    }
+
+    private boolean inCircle(int a, int b, int c, int d) {
+        return Predicates.inCircle(_x[a], _y[a], _x[b], _y[b], _x[c], _y[c], _x[d], _y[d]) > 0;
+    }
+
+    private static long pack(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    private static int first(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int second(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Hands out quad-edge slots to one task: recycled slots first, then the
+     * untouched slot ranges it inherited from its slabs.
+     */
+    private final class Allocator {
+
+        // free slots are chained through the otherwise unused onext of their rotation 1
+        private int _freeHead = -1;
+        private int[] _ranges = new int[4];
+        private int _numRanges;
+        long hull;
+
+        Allocator(int start, int end) {
+            addRange(start, end);
+        }
+
+        int allocate() {
+            if (_freeHead != -1) {
+                int q = _freeHead;
+                _freeHead = _next[q * 4 + 1];
+                return q;
+            }
+            while (_numRanges > 0) {
+                int r = (_numRanges - 1) * 2;
+                if (_ranges[r] < _ranges[r + 1]) {
+                    return _ranges[r]++;
+                }
+                _numRanges--;
+            }
+            throw new IllegalStateException("DivideAndConquerDelaunay: triangulation is not planar");
+        }
+
+        void free(int q) {
+            _next[q * 4 + 1] = _freeHead;
+            _freeHead = q;
+        }
+
+        void append(Allocator other) {
+            for (int i = 0; i < other._numRanges; ++i) {
+                addRange(other._ranges[i * 2], other._ranges[i * 2 + 1]);
+            }
+            while (other._freeHead != -1) {
+                int q = other._freeHead;
+                other._freeHead = _next[q * 4 + 1];
+                free(q);
+            }
+        }
+
+        private void addRange(int start, int end) {
+            if (start >= end) {
+                return;
+            }
+            if (_numRanges * 2 == _ranges.length) {
+                _ranges = Arrays.copyOf(_ranges, _ranges.length * 2);
+            }
+            _ranges[_numRanges * 2] = start;
+            _ranges[_numRanges * 2 + 1] = end;
+            _numRanges++;
+        }
+    }
+}
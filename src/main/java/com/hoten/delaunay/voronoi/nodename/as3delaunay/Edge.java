@@ -1,9 +1,9 @@
 package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 
+import com.hoten.delaunay.geom.ConvexPolygon;
 import com.hoten.delaunay.geom.Point;
 import com.hoten.delaunay.geom.Rectangle;
 import java.util.HashMap;
-import java.util.Stack;
 
 /**
  * The line segment connecting the two Sites is part of the Delaunay
@@ -15,8 +15,6 @@ import java.util.Stack;
  */
 public final class Edge {
 
-    final private static Stack<Edge> _pool = new Stack();
-
     /**
      * This is the only way to create a new Edge
      *
@@ -25,7 +23,7 @@ public final class Edge {
      * @return
      *
      */
-    public static Edge createBisectingEdge(Site site0, Site site1) {
+    public static Edge createBisectingEdge(BuildContext context, Site site0, Site site1) {
         double dx, dy, absdx, absdy;
         double a, b, c;
 
@@ -44,7 +42,7 @@ public final class Edge {
             c /= dy;
         }
 
-        Edge edge = Edge.create();
+        Edge edge = Edge.create(context);
 
         edge.set_leftSite(site0);
         edge.set_rightSite(site1);
@@ -62,13 +60,12 @@ public final class Edge {
         return edge;
     }
 
-    private static Edge create() {
+    private static Edge create(BuildContext context) {
         Edge edge;
-        if (_pool.size() > 0) {
-            edge = _pool.pop();
-            edge.init();
+        if (context.edgePool.size() > 0) {
+            edge = context.edgePool.pop();
         } else {
-            edge = new Edge();
+            edge = new Edge(context);
         }
         return edge;
     }
@@ -121,11 +118,9 @@ public final class Edge {
         if (!get_visible()) {
             return new LineSegment(null, null);
         }
-        return new LineSegment(_clippedVertices.get(LR.LEFT),
-                _clippedVertices.get(LR.RIGHT));
+        return new LineSegment(_leftClippedEnd, _rightClippedEnd);
     }
-    private static int _nedges = 0;
-    final public static Edge DELETED = new Edge();
+    final public static Edge DELETED = new Edge(null);
     // the equation of the edge: ax + by = c
     public double a, b, c;
     // the two Voronoi vertices that the edge connects
@@ -176,40 +171,54 @@ public final class Edge {
     public static double compareSitesDistances(Edge edge0, Edge edge1) {
         return -compareSitesDistances_MAX(edge0, edge1);
     }
-    // Once clipVertices() is called, this Dictionary will hold two Points
-    // representing the clipped coordinates of the left and right ends...
-    private HashMap<LR, Point> _clippedVertices;
+    // Once clipVertices() is called, these will hold the clipped coordinates
+    // of the left and right ends...
+    private Point _leftClippedEnd, _rightClippedEnd;
+
+    public Point clippedEnd(LR leftRight) {
+        return (leftRight == LR.LEFT) ? _leftClippedEnd : _rightClippedEnd;
+    }
 
+    /**
+     * The clipped ends keyed by LR, as this used to store them. Makes a new
+     * map on every call; use clippedEnd() instead.
+     */
     public HashMap<LR, Point> get_clippedEnds() {
-        return _clippedVertices;
+        if (!get_visible()) {
+            return null;
+        }
+        HashMap<LR, Point> clippedEnds = new HashMap();
+        clippedEnds.put(LR.LEFT, _leftClippedEnd);
+        clippedEnds.put(LR.RIGHT, _rightClippedEnd);
+        return clippedEnds;
     }
     // unless the entire Edge is outside the bounds.
     // In that case visible will be false:
 
     public boolean get_visible() {
-        return _clippedVertices != null;
+        return _leftClippedEnd != null;
     }
     // the two input Sites for which this Edge is a bisector:
-    private HashMap<LR, Site> _sites;
+    private Site _leftSite, _rightSite;
 
     public void set_leftSite(Site s) {
-        _sites.put(LR.LEFT, s);
+        _leftSite = s;
     }
 
     public Site get_leftSite() {
-        return _sites.get(LR.LEFT);
+        return _leftSite;
     }
 
     public void set_rightSite(Site s) {
-        _sites.put(LR.RIGHT, s);
+        _rightSite = s;
     }
 
     public Site get_rightSite() {
-        return _sites.get(LR.RIGHT);
+        return _rightSite;
     }
 
     public Site site(LR leftRight) {
-        return _sites.get(leftRight);
+        return (leftRight == LR.LEFT) ? _leftSite : _rightSite;
     }
     private int _edgeIndex;
 
@@ -221,40 +230,119 @@ public final class Edge {
          }*/
         _leftVertex = null;
         _rightVertex = null;
-        if (_clippedVertices != null) {
-            _clippedVertices.clear();
-            _clippedVertices = null;
-        }
-        _sites.clear();
-        _sites = null;
+        _leftClippedEnd = null;
+        _rightClippedEnd = null;
+        _leftSite = null;
+        _rightSite = null;
 
-        _pool.push(this);
+        _context.edgePool.push(this);
     }
 
-    private Edge() {
-        _edgeIndex = _nedges++;
-        init();
-    }
+    // the arena this Edge returns to when disposed; null for DELETED
+    private final BuildContext _context;
 
-    private void init() {
-        _sites = new HashMap();
+    private Edge(BuildContext context) {
+        _context = context;
+        _edgeIndex = context != null ? context.nedges++ : -1;
     }
 
     public String toString() {
-        return "Edge " + _edgeIndex + "; sites " + _sites.get(LR.LEFT) + ", " + _sites.get(LR.RIGHT)
+        return "Edge " + _edgeIndex + "; sites " + _leftSite + ", " + _rightSite
                 + "; endVertices " + (_leftVertex != null ? _leftVertex.get_vertexIndex() : "null") + ", "
                 + (_rightVertex != null ? _rightVertex.get_vertexIndex() : "null") + "::";
     }
 
     /**
-     * Set _clippedVertices to contain the two ends of the portion of the
-     * Voronoi edge that is visible within the bounds. If no part of the Edge
-     * falls within the bounds, leave _clippedVertices null.
+     * Set the clipped ends to the two ends of the portion of the Voronoi edge
+     * that is visible within the bounds. If no part of the Edge falls within
+     * the bounds, set them to null.
      *
      * @param bounds
      *
      */
     public void clipVertices(Rectangle bounds) {
+        clipVertices(ConvexPolygon.of(bounds));
+    }
+
+    /**
+     * Same as clipVertices(Rectangle), for any convex bounds.
+     */
+    public void clipVertices(ConvexPolygon bounds) {
+        double[] ends = new double[4];
+        if (!clipVertices(bounds, ends, 0)) {
+            _leftClippedEnd = null;
+            _rightClippedEnd = null;
+            return;
+        }
+        _leftClippedEnd = new Point(ends[0], ends[1]);
+        _rightClippedEnd = new Point(ends[2], ends[3]);
+    }
+
+    /**
+     * Same clipping as clipVertices(bounds), without touching this Edge: the
+     * left end goes to ends[offset], ends[offset + 1] and the right end to
+     * ends[offset + 2], ends[offset + 3].
+     *
+     * @return false, with nothing useful in ends, if no part of the Edge
+     * falls within the bounds
+     */
+    boolean clipVertices(ConvexPolygon bounds, double[] ends, int offset) {
+        if (bounds.asRectangle() != null) {
+            return clipVertices(bounds.asRectangle(), ends, offset);
+        }
+        Vertex vertex0, vertex1;
+        if (a == 1.0 && b >= 0.0) {
+            vertex0 = _rightVertex;
+            vertex1 = _leftVertex;
+        } else {
+            vertex0 = _leftVertex;
+            vertex1 = _rightVertex;
+        }
+
+        // the line as x = c - b * t, y = t if a == 1, else x = t, y = c - a * t,
+        // from vertex0 to vertex1; the range goes in ends[offset], ends[offset + 1]
+        double t0, t1;
+        if (a == 1.0) {
+            t0 = vertex0 != null ? vertex0.get_y() : Double.NEGATIVE_INFINITY;
+            t1 = vertex1 != null ? vertex1.get_y() : Double.POSITIVE_INFINITY;
+        } else {
+            t0 = vertex0 != null ? vertex0.get_x() : Double.NEGATIVE_INFINITY;
+            t1 = vertex1 != null ? vertex1.get_x() : Double.POSITIVE_INFINITY;
+        }
+        boolean leftFirst = vertex0 == _leftVertex;
+        if (t0 > t1) {
+            // a very short edge whose vertices came out of order
+            double t = t0;
+            t0 = t1;
+            t1 = t;
+            leftFirst = !leftFirst;
+        }
+        ends[offset] = t0;
+        ends[offset + 1] = t1;
+        boolean visible = a == 1.0
+                ? bounds.clip(c, 0, -b, 1, ends, offset)
+                : bounds.clip(0, c, 1, -a, ends, offset);
+        if (!visible) {
+            return false;
+        }
+        t0 = ends[offset];
+        t1 = ends[offset + 1];
+        double x0, y0, x1, y1;
+        if (a == 1.0) {
+            x0 = c - b * t0;
+            y0 = t0;
+            x1 = c - b * t1;
+            y1 = t1;
+        } else {
+            x0 = t0;
+            y0 = c - a * t0;
+            x1 = t1;
+            y1 = c - a * t1;
+        }
+        return setEnds(leftFirst, x0, y0, x1, y1, ends, offset);
+    }
+
+    private boolean clipVertices(Rectangle bounds, double[] ends, int offset) {
         double xmin = bounds.x;
         double ymin = bounds.y;
         double xmax = bounds.right;
@@ -277,7 +365,7 @@ public final class Edge {
                 y0 = vertex0.get_y();
             }
             if (y0 > ymax) {
-                return;
+                return false;
             }
             x0 = c - b * y0;
 
@@ -286,12 +374,12 @@ public final class Edge {
                 y1 = vertex1.get_y();
             }
             if (y1 < ymin) {
-                return;
+                return false;
             }
             x1 = c - b * y1;
 
             if ((x0 > xmax && x1 > xmax) || (x0 < xmin && x1 < xmin)) {
-                return;
+                return false;
             }
 
             if (x0 > xmax) {
@@ -315,7 +403,7 @@ public final class Edge {
                 x0 = vertex0.get_x();
             }
             if (x0 > xmax) {
-                return;
+                return false;
             }
             y0 = c - a * x0;
 
@@ -324,12 +412,12 @@ public final class Edge {
                 x1 = vertex1.get_x();
             }
             if (x1 < xmin) {
-                return;
+                return false;
             }
             y1 = c - a * x1;
 
             if ((y0 > ymax && y1 > ymax) || (y0 < ymin && y1 < ymin)) {
-                return;
+                return false;
             }
 
             if (y0 > ymax) {
@@ -349,13 +437,22 @@ public final class Edge {
             }
         }
 
-        _clippedVertices = new HashMap();
-        if (vertex0 == _leftVertex) {
-            _clippedVertices.put(LR.LEFT, new Point(x0, y0));
-            _clippedVertices.put(LR.RIGHT, new Point(x1, y1));
+        return setEnds(vertex0 == _leftVertex, x0, y0, x1, y1, ends, offset);
+    }
+
+    private static boolean setEnds(boolean leftFirst, double x0, double y0, double x1, double y1,
+            double[] ends, int offset) {
+        if (leftFirst) {
+            ends[offset] = x0;
+            ends[offset + 1] = y0;
+            ends[offset + 2] = x1;
+            ends[offset + 3] = y1;
         } else {
-            _clippedVertices.put(LR.RIGHT, new Point(x0, y0));
-            _clippedVertices.put(LR.LEFT, new Point(x1, y1));
+            ends[offset] = x1;
+            ends[offset + 1] = y1;
+            ends[offset + 2] = x0;
+            ends[offset + 3] = y0;
         }
+        return true;
     }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ public final class EdgeList implements IDisposable {
     private double _deltax;
     private double _xmin;
     private int _hashsize;
+    // bucket b covers [_splits[b - 1], _splits[b]); null for even buckets over _xmin .. _xmin + _deltax
+    private double[] _splits;
     private ArrayList<Halfedge> _hash;
     public Halfedge leftEnd;
     public Halfedge rightEnd;
@@ -29,16 +31,32 @@ public final class EdgeList implements IDisposable {
         _hash = null;
     }
 
-    public EdgeList(double xmin, double deltax, int sqrt_nsites) {
+    public EdgeList(BuildContext context, double xmin, double deltax, int sqrt_nsites) {
+        this(context, 2 * sqrt_nsites);
         _xmin = xmin;
         _deltax = deltax;
-        _hashsize = 2 * sqrt_nsites;
+    }
+
+    /**
+     * An EdgeList whose buckets follow the given splits instead of dividing
+     * the x range evenly, so that clustered sites don't all land in a few
+     * buckets.
+     *
+     * @param splits ascending; there will be splits.length + 1 buckets
+     */
+    public EdgeList(BuildContext context, double[] splits) {
+        this(context, splits.length + 1);
+        _splits = splits;
+    }
+
+    private EdgeList(BuildContext context, int hashsize) {
+        _hashsize = hashsize;
 
         _hash = new ArrayList(_hashsize);
 
         // two dummy Halfedges:
-        leftEnd = Halfedge.createDummy();
-        rightEnd = Halfedge.createDummy();
+        leftEnd = Halfedge.createDummy(context);
+        rightEnd = Halfedge.createDummy(context);
         leftEnd.edgeListLeftNeighbor = null;
         leftEnd.edgeListRightNeighbor = rightEnd;
         rightEnd.edgeListLeftNeighbor = leftEnd;
@@ -88,17 +106,15 @@ public final class EdgeList implements IDisposable {
      *
      */
     public Halfedge edgeListLeftNeighbor(Point p) {
+        return edgeListLeftNeighbor(p.x, p.y);
+    }
+
+    Halfedge edgeListLeftNeighbor(double x, double y) {
         int i, bucket;
         Halfedge halfEdge;
 
         /* Use hash table to get close to desired halfedge */
-        bucket = (int) ((p.x - _xmin) / _deltax * _hashsize);
-        if (bucket < 0) {
-            bucket = 0;
-        }
-        if (bucket >= _hashsize) {
-            bucket = _hashsize - 1;
-        }
+        bucket = bucket(x);
         halfEdge = getHash(bucket);
         if (halfEdge == null) {
             for (i = 1; true; ++i) {
@@ -111,15 +127,15 @@ public final class EdgeList implements IDisposable {
             }
         }
         /* Now search linear list of halfedges for the correct one */
-        if (halfEdge == leftEnd || (halfEdge != rightEnd && halfEdge.isLeftOf(p))) {
+        if (halfEdge == leftEnd || (halfEdge != rightEnd && halfEdge.isLeftOf(x, y))) {
             do {
                 halfEdge = halfEdge.edgeListRightNeighbor;
-            } while (halfEdge != rightEnd && halfEdge.isLeftOf(p));
+            } while (halfEdge != rightEnd && halfEdge.isLeftOf(x, y));
             halfEdge = halfEdge.edgeListLeftNeighbor;
         } else {
             do {
                 halfEdge = halfEdge.edgeListLeftNeighbor;
-            } while (halfEdge != leftEnd && !halfEdge.isLeftOf(p));
+            } while (halfEdge != leftEnd && !halfEdge.isLeftOf(x, y));
         }
 
         /* Update hash table and reference counts */
@@ -129,6 +145,30 @@ public final class EdgeList implements IDisposable {
         return halfEdge;
     }
 
+    private int bucket(double x) {
+        if (_splits != null) {
+            // the number of splits <= x
+            int lo = 0, hi = _splits.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (_splits[mid] <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+        int bucket = (int) ((x - _xmin) / _deltax * _hashsize);
+        if (bucket < 0) {
+            bucket = 0;
+        }
+        if (bucket >= _hashsize) {
+            bucket = _hashsize - 1;
+        }
+        return bucket;
+    }
+
     /* Get entry from hash table, pruning any deleted nodes */
     private Halfedge getHash(int b) {
         Halfedge halfEdge;
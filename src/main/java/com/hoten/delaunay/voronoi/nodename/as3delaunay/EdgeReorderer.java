@@ -1,9 +1,13 @@
 package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 
 public final class EdgeReorderer {
 
+    // below this many edges, rescanning the list is cheaper than building the map
+    private static final int CHAIN_THRESHOLD = 16;
+
     private ArrayList<Edge> _edges;
     private ArrayList<LR> _edgeOrientations;
 
@@ -16,13 +20,26 @@ public final class EdgeReorderer {
     }
 
     public EdgeReorderer(ArrayList<Edge> origEdges, Class criterion) {
+        this(origEdges, criterion, true);
+    }
+
+    /**
+     * @param chain whether to chain the edges through a map of their ends,
+     * in linear time, instead of rescanning the remaining edges until all are
+     * placed. Both give the same order.
+     */
+    public EdgeReorderer(ArrayList<Edge> origEdges, Class criterion, boolean chain) {
         if (criterion != Vertex.class && criterion != Site.class) {
             throw new Error("Edges: criterion must be Vertex or Site");
         }
         _edges = new ArrayList();
         _edgeOrientations = new ArrayList();
         if (origEdges.size() > 0) {
-            _edges = reorderEdges(origEdges, criterion);
+            if (chain && origEdges.size() >= CHAIN_THRESHOLD && !reachesInfinity(origEdges, criterion)) {
+                _edges = chainEdges(origEdges, criterion);
+            } else {
+                _edges = reorderEdges(origEdges, criterion);
+            }
         }
     }
 
@@ -31,6 +48,131 @@ public final class EdgeReorderer {
         _edgeOrientations = null;
     }
 
+    private static ICoord leftPoint(Edge edge, Class criterion) {
+        return (criterion == Vertex.class) ? edge.get_leftVertex() : edge.get_leftSite();
+    }
+
+    private static ICoord rightPoint(Edge edge, Class criterion) {
+        return (criterion == Vertex.class) ? edge.get_rightVertex() : edge.get_rightSite();
+    }
+
+    // reorderEdges() gives up on these after placing some; leave them to it
+    private static boolean reachesInfinity(ArrayList<Edge> edges, Class criterion) {
+        for (Edge edge : edges) {
+            if (leftPoint(edge, criterion) == Vertex.VERTEX_AT_INFINITY
+                    || rightPoint(edge, criterion) == Vertex.VERTEX_AT_INFINITY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places the edges in the order reorderEdges() does, without its scans.
+     *
+     * The first pass is run as is; it takes linear time and often places
+     * every edge. After that, the ends of the chain stay the same between two
+     * placements, so the scan would place the first unplaced edge after the
+     * last placed one (or, once the pass is over, from the start) that
+     * touches either end. With the edges at each point listed by index, that
+     * edge is found among the few edges at the two ends. Edges that never
+     * connect are left out, where the scan would loop forever.
+     */
+    private ArrayList<Edge> chainEdges(ArrayList<Edge> origEdges, Class criterion) {
+        int n = origEdges.size();
+        ICoord[] left = new ICoord[n];
+        ICoord[] right = new ICoord[n];
+        for (int i = 0; i < n; ++i) {
+            left[i] = leftPoint(origEdges.get(i), criterion);
+            right[i] = rightPoint(origEdges.get(i), criterion);
+        }
+        Chain chain = new Chain(origEdges.get(0), left[0], right[0]);
+        boolean[] done = new boolean[n];
+        done[0] = true;
+        int nDone = 1;
+        for (int i = 1; i < n; ++i) {
+            if (chain.add(origEdges.get(i), left[i], right[i])) {
+                done[i] = true;
+                ++nDone;
+            }
+        }
+        if (nDone < n) {
+            chainRest(origEdges, left, right, done, nDone, chain);
+        }
+        _edgeOrientations = chain.orientations();
+        return chain.edges();
+    }
+
+    private static void chainRest(ArrayList<Edge> origEdges, ICoord[] left, ICoord[] right,
+            boolean[] done, int nDone, Chain chain) {
+        int n = origEdges.size();
+        // number the points; null, an end at infinity, is a point like any other here
+        IdentityHashMap<ICoord, Integer> ids = new IdentityHashMap();
+        int[] leftId = new int[n];
+        int[] rightId = new int[n];
+        for (int i = 0; i < n; ++i) {
+            leftId[i] = id(ids, left[i]);
+            rightId[i] = id(ids, right[i]);
+        }
+        // the unplaced edges at point p are at[offsets[p]] to at[offsets[p + 1] - 1], by index
+        int[] offsets = new int[ids.size() + 1];
+        for (int i = 0; i < n; ++i) {
+            if (!done[i]) {
+                offsets[leftId[i] + 1]++;
+                if (rightId[i] != leftId[i]) {
+                    offsets[rightId[i] + 1]++;
+                }
+            }
+        }
+        for (int p = 0; p < ids.size(); ++p) {
+            offsets[p + 1] += offsets[p];
+        }
+        int[] at = new int[offsets[ids.size()]];
+        int[] fill = new int[ids.size()];
+        for (int i = 0; i < n; ++i) {
+            if (!done[i]) {
+                at[offsets[leftId[i]] + fill[leftId[i]]++] = i;
+                if (rightId[i] != leftId[i]) {
+                    at[offsets[rightId[i]] + fill[rightId[i]]++] = i;
+                }
+            }
+        }
+
+        // the first pass is over, so the scan starts from the beginning again
+        for (int i = n; nDone < n; ++nDone) {
+            int next = -1, wrapped = -1;
+            for (int end = 0; end < 2; ++end) {
+                int p = ids.get(end == 0 ? chain.firstPoint : chain.lastPoint);
+                for (int k = offsets[p]; k < offsets[p + 1]; ++k) {
+                    int j = at[k];
+                    if (done[j]) {
+                        continue;
+                    }
+                    if (j > i) {
+                        next = next < 0 ? j : Math.min(next, j);
+                    } else {
+                        wrapped = wrapped < 0 ? j : Math.min(wrapped, j);
+                    }
+                }
+            }
+            i = next >= 0 ? next : wrapped;
+            if (i < 0) {
+                return;
+            }
+            chain.add(origEdges.get(i), left[i], right[i]);
+            done[i] = true;
+        }
+    }
+
+    private static int id(IdentityHashMap<ICoord, Integer> ids, ICoord point) {
+        Integer id = ids.get(point);
+        if (id == null) {
+            id = ids.size();
+            ids.put(point, id);
+        }
+        return id;
+    }
+
     private ArrayList<Edge> reorderEdges(ArrayList<Edge> origEdges, Class criterion) {
         int i, j;
         int n = origEdges.size();
@@ -98,4 +240,66 @@ public final class EdgeReorderer {
 
         return newEdges;
     }
-}
\ No newline at end of file
+
+    /**
+     * The edges placed so far. Prepended edges are kept apart, in the order
+     * they came, and reversed once at the end.
+     */
+    private static final class Chain {
+
+        ICoord firstPoint, lastPoint;
+        private final ArrayList<Edge> _front = new ArrayList();
+        private final ArrayList<LR> _frontOrientations = new ArrayList();
+        private final ArrayList<Edge> _back = new ArrayList();
+        private final ArrayList<LR> _backOrientations = new ArrayList();
+
+        Chain(Edge edge, ICoord leftPoint, ICoord rightPoint) {
+            _back.add(edge);
+            _backOrientations.add(LR.LEFT);
+            firstPoint = leftPoint;
+            lastPoint = rightPoint;
+        }
+
+        // the same tests, in the same order, as reorderEdges()
+        boolean add(Edge edge, ICoord leftPoint, ICoord rightPoint) {
+            if (leftPoint == lastPoint) {
+                lastPoint = rightPoint;
+                _backOrientations.add(LR.LEFT);
+                _back.add(edge);
+            } else if (rightPoint == firstPoint) {
+                firstPoint = leftPoint;
+                _frontOrientations.add(LR.LEFT);
+                _front.add(edge);
+            } else if (leftPoint == firstPoint) {
+                firstPoint = rightPoint;
+                _frontOrientations.add(LR.RIGHT);
+                _front.add(edge);
+            } else if (rightPoint == lastPoint) {
+                lastPoint = leftPoint;
+                _backOrientations.add(LR.RIGHT);
+                _back.add(edge);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        ArrayList<Edge> edges() {
+            ArrayList<Edge> edges = new ArrayList(_front.size() + _back.size());
+            for (int i = _front.size() - 1; i >= 0; --i) {
+                edges.add(_front.get(i));
+            }
+            edges.addAll(_back);
+            return edges;
+        }
+
+        ArrayList<LR> orientations() {
+            ArrayList<LR> orientations = new ArrayList(_front.size() + _back.size());
+            for (int i = _frontOrientations.size() - 1; i >= 0; --i) {
+                orientations.add(_frontOrientations.get(i));
+            }
+            orientations.addAll(_backOrientations);
+            return orientations;
+        }
+    }
+}
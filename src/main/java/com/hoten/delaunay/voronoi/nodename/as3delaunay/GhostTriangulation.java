@@ -0,0 +1,251 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+/**
+ * A Delaunay triangulation in flat arrays, shared by DiagramEditor and
+ * KineticVoronoi: triangle t has sites _tri[3t], _tri[3t + 1] and
+ * _tri[3t + 2] counterclockwise, and _adj[3t + k] is the triangle across its
+ * edge from site k to site k + 1. Ghost triangles, whose last site is
+ * INFINITY, cover the outside of the convex hull, so that hull edges need no
+ * special case.
+ *
+ * The predicates are exact (see Predicates). Sites on a grid, which are
+ * collinear and cocircular everywhere, get the same answer from every
+ * triangle that asks, so walks find their triangle and flips stop.
+ */
+abstract class GhostTriangulation {
+
+    // the last site of a ghost triangle
+    static final int INFINITY = -1;
+    // _tri[3t] of a free slot
+    static final int FREE = -2;
+
+    int[] _tri, _adj;
+    int _numSlots;
+    double[] _x, _y;
+    // the polygon being filled, as a linked list of corners
+    private int[] _next = new int[16], _prev = new int[16];
+
+    /**
+     * Makes triangle a, b, c, turned so that INFINITY comes last; the
+     * triangles around it are linked by the caller.
+     */
+    abstract int add(int a, int b, int c);
+
+    /**
+     * Walks from triangle t towards (x, y), or when that goes around in
+     * circles, looks at every triangle.
+     *
+     * @return a triangle that is not a ghost and holds (x, y), its edges
+     * included, or a ghost whose hull edge has (x, y) strictly outside. On
+     * the line through a hull edge, the part between its ends is in the
+     * triangle inside, and the rest is strictly outside another hull edge.
+     */
+    final int locate(double x, double y, int t) {
+        // a walk through a Delaunay triangulation visits no triangle twice
+        for (int step = 0; step <= _numSlots; ++step) {
+            if (_tri[3 * t + 2] == INFINITY) {
+                if (orient(_tri[3 * t], _tri[3 * t + 1], x, y) > 0) {
+                    return t;
+                }
+                t = _adj[3 * t];
+                continue;
+            }
+            int next = -1;
+            // turn the first edge tried, so that the walk cannot keep going around the same triangles
+            for (int i = 0; i < 3 && next < 0; ++i) {
+                int k = (step + i) % 3;
+                if (orient(_tri[3 * t + k], _tri[3 * t + (k + 1) % 3], x, y) < 0) {
+                    next = _adj[3 * t + k];
+                }
+            }
+            if (next < 0) {
+                return t;
+            }
+            t = next;
+        }
+        // the hull is convex, so some triangle holds (x, y) or some ghost has it outside
+        int ghost = -1;
+        for (t = 0; t < _numSlots; ++t) {
+            if (_tri[3 * t] == FREE) {
+                continue;
+            }
+            int a = _tri[3 * t], b = _tri[3 * t + 1], c = _tri[3 * t + 2];
+            if (c == INFINITY) {
+                if (ghost < 0 && orient(a, b, x, y) > 0) {
+                    ghost = t;
+                }
+            } else if (orient(a, b, x, y) >= 0 && orient(b, c, x, y) >= 0 && orient(c, a, x, y) >= 0) {
+                return t;
+            }
+        }
+        return ghost;
+    }
+
+    /**
+     * @return whether (x, y) is strictly inside the circumcircle of t, or
+     * for a ghost, beyond its hull edge
+     */
+    final boolean conflicts(int t, double x, double y) {
+        int a = _tri[3 * t], b = _tri[3 * t + 1], c = _tri[3 * t + 2];
+        if (c != INFINITY) {
+            return inCircle(a, b, c, x, y);
+        }
+        double o = orient(a, b, x, y);
+        if (o != 0) {
+            return o > 0;
+        }
+        // on the line through a hull edge: only the part between its ends is beyond it
+        return (x - _x[a]) * (x - _x[b]) + (y - _y[a]) * (y - _y[b]) < 0;
+    }
+
+    /**
+     * Cuts Delaunay ears off the closed polygon of n corners until one
+     * triangle is left.
+     *
+     * @param beyond the triangle beyond the edge from each corner to the next
+     * one
+     */
+    final void fillPolygon(int[] corners, int[] beyond, int n) {
+        grow(n);
+        for (int i = 0; i < n; ++i) {
+            _next[i] = (i + 1) % n;
+            _prev[i] = (i + n - 1) % n;
+        }
+        int first = 0;
+        for (int remaining = n; remaining > 3; --remaining) {
+            int ear = findEar(corners, first, remaining, true);
+            first = cut(ear, corners, beyond);
+        }
+        int u = first, v = _next[u], w = _next[v];
+        int t = add(corners[u], corners[v], corners[w]);
+        link(t, corners[u], corners[v], beyond[u]);
+        link(t, corners[v], corners[w], beyond[v]);
+        link(t, corners[w], corners[u], beyond[w]);
+    }
+
+    /**
+     * Cuts Delaunay ears off a path of m corners along the hull as long as
+     * one fits, then puts ghosts along what is left, which is the new hull.
+     *
+     * @param beyond the triangle beyond the edge from each corner to the next
+     * one, the last one being beyond the edge from it to INFINITY
+     * @param beyondStart the triangle beyond the edge from INFINITY to the
+     * first corner
+     */
+    final void fillPath(int[] path, int[] beyond, int m, int beyondStart) {
+        grow(m);
+        int beyondEnd = beyond[m - 1];
+        for (int i = 0; i < m; ++i) {
+            _next[i] = i + 1;
+            _prev[i] = i - 1;
+        }
+        _next[m - 1] = -1;
+        for (int remaining = m; remaining > 2; --remaining) {
+            int ear = findEar(path, _next[0], remaining - 2, false);
+            if (ear < 0) {
+                break;
+            }
+            cut(ear, path, beyond);
+        }
+        int previous = beyondStart;
+        for (int u = 0; u != m - 1; u = _next[u]) {
+            int w = _next[u];
+            int g = add(path[u], path[w], INFINITY);
+            link(g, path[u], path[w], beyond[u]);
+            link(g, INFINITY, path[u], previous);
+            previous = g;
+        }
+        link(previous, path[m - 1], INFINITY, beyondEnd);
+    }
+
+    private void grow(int n) {
+        if (_next.length < n) {
+            _next = new int[2 * n];
+            _prev = new int[2 * n];
+        }
+    }
+
+    /**
+     * @param closed whether any corner may be an ear; otherwise the count
+     * corners from start on are the candidates, and there may be none
+     * @return an ear whose circumcircle holds no other corner, or failing
+     * that, any convex one
+     */
+    private int findEar(int[] corners, int start, int count, boolean closed) {
+        int convex = -1;
+        int v = start;
+        for (int i = 0; i < count; ++i, v = _next[v]) {
+            int u = _prev[v], w = _next[v];
+            if (orient(corners[u], corners[v], corners[w]) <= 0) {
+                continue;
+            }
+            if (convex < 0) {
+                convex = v;
+            }
+            boolean empty = true;
+            for (int c = _next[w]; c != u && c >= 0 && empty; c = _next[c]) {
+                empty = !inCircle(corners[u], corners[v], corners[w], _x[corners[c]], _y[corners[c]]);
+            }
+            if (!closed && empty) {
+                // on a path, the corners before u count as well
+                for (int c = _prev[u]; c >= 0 && empty; c = _prev[c]) {
+                    empty = !inCircle(corners[u], corners[v], corners[w], _x[corners[c]], _y[corners[c]]);
+                }
+            }
+            if (empty) {
+                return v;
+            }
+        }
+        return convex >= 0 || !closed ? convex : start;
+    }
+
+    /**
+     * Makes the triangle of ear and its two neighbors and takes ear out of
+     * the polygon.
+     *
+     * @return the corner before ear
+     */
+    private int cut(int ear, int[] corners, int[] beyond) {
+        int u = _prev[ear], w = _next[ear];
+        int t = add(corners[u], corners[ear], corners[w]);
+        link(t, corners[u], corners[ear], beyond[u]);
+        link(t, corners[ear], corners[w], beyond[ear]);
+        beyond[u] = t;
+        _next[u] = w;
+        _prev[w] = u;
+        return u;
+    }
+
+    // tells triangles t and n that they meet at the edge from a to b of t
+    final void link(int t, int a, int b, int n) {
+        _adj[3 * t + slot(t, a, b)] = n;
+        _adj[3 * n + slot(n, b, a)] = t;
+    }
+
+    // which edge of t runs from a to b, or -1
+    final int slot(int t, int a, int b) {
+        for (int k = 0; k < 3; ++k) {
+            if (_tri[3 * t + k] == a && _tri[3 * t + (k + 1) % 3] == b) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    final int position(int t, int site) {
+        return _tri[3 * t] == site ? 0 : _tri[3 * t + 1] == site ? 1 : 2;
+    }
+
+    final double orient(int a, int b, int c) {
+        return Predicates.orient(_x[a], _y[a], _x[b], _y[b], _x[c], _y[c]);
+    }
+
+    final double orient(int a, int b, double x, double y) {
+        return Predicates.orient(_x[a], _y[a], _x[b], _y[b], x, y);
+    }
+
+    // whether (x, y) is strictly inside the circumcircle of counterclockwise a, b, c
+    final boolean inCircle(int a, int b, int c, double x, double y) {
+        return Predicates.inCircle(_x[a], _y[a], _x[b], _y[b], _x[c], _y[c], x, y) > 0;
+    }
+}
@@ -1,32 +1,34 @@
 package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 
 import com.hoten.delaunay.geom.Point;
-import java.util.Stack;
 
 public final class Halfedge {
 
-    private static Stack<Halfedge> _pool = new Stack();
-
-    public static Halfedge create(Edge edge, LR lr) {
-        if (_pool.size() > 0) {
-            return _pool.pop().init(edge, lr);
+    public static Halfedge create(BuildContext context, Edge edge, LR lr) {
+        if (context.halfedgePool.size() > 0) {
+            return context.halfedgePool.pop().init(edge, lr);
         } else {
-            return new Halfedge(edge, lr);
+            return new Halfedge(context, edge, lr);
         }
     }
 
-    public static Halfedge createDummy() {
-        return create(null, null);
+    public static Halfedge createDummy(BuildContext context) {
+        return create(context, null, null);
     }
     public Halfedge edgeListLeftNeighbor, edgeListRightNeighbor;
     public Halfedge nextInPriorityQueue;
+    // slot in a HalfedgeHeap, -1 when not queued there
+    int heapIndex = -1;
     public Edge edge;
     public LR leftRight;
     public Vertex vertex;
     // the vertex's y-coordinate in the transformed Voronoi space V*
     public double ystar;
+    // the arena this Halfedge returns to when disposed
+    private final BuildContext _context;
 
-    public Halfedge( Edge edge, LR lr) {
+    public Halfedge(BuildContext context, Edge edge, LR lr) {
+        _context = context;
         init(edge, lr);
     }
 
@@ -34,6 +36,7 @@ public final class Halfedge {
         this.edge = edge;
         leftRight = lr;
         nextInPriorityQueue = null;
+        heapIndex = -1;
         vertex = null;
         return this;
     }
@@ -48,33 +51,38 @@ public final class Halfedge {
             // still in EdgeList
             return;
         }
-        if (nextInPriorityQueue != null) {
+        if (nextInPriorityQueue != null || heapIndex >= 0) {
             // still in PriorityQueue
             return;
         }
         edge = null;
         leftRight = null;
         vertex = null;
-        _pool.push(this);
+        _context.halfedgePool.push(this);
     }
 
     public void reallyDispose() {
         edgeListLeftNeighbor = null;
         edgeListRightNeighbor = null;
         nextInPriorityQueue = null;
+        heapIndex = -1;
         edge = null;
         leftRight = null;
         vertex = null;
-        _pool.push(this);
+        _context.halfedgePool.push(this);
     }
 
     public boolean isLeftOf(Point p) {
+        return isLeftOf(p.x, p.y);
+    }
+
+    boolean isLeftOf(double x, double y) {
         Site topSite;
         boolean rightOfSite, above, fast;
         double dxp, dyp, dxs, t1, t2, t3, yl;
 
         topSite = edge.get_rightSite();
-        rightOfSite = p.x > topSite.get_x();
+        rightOfSite = x > topSite.get_x();
         if (rightOfSite && this.leftRight == LR.LEFT) {
             return true;
         }
@@ -83,14 +91,14 @@ public final class Halfedge {
         }
 
         if (edge.a == 1.0) {
-            dyp = p.y - topSite.get_y();
-            dxp = p.x - topSite.get_x();
+            dyp = y - topSite.get_y();
+            dxp = x - topSite.get_x();
             fast = false;
             if ((!rightOfSite && edge.b < 0.0) || (rightOfSite && edge.b >= 0.0)) {
                 above = dyp >= edge.b * dxp;
                 fast = above;
             } else {
-                above = p.x + p.y * edge.b > edge.c;
+                above = x + y * edge.b > edge.c;
                 if (edge.b < 0.0) {
                     above = !above;
                 }
@@ -107,9 +115,9 @@ public final class Halfedge {
                 }
             }
         } else /* edge.b == 1.0 */ {
-            yl = edge.c - edge.a * p.x;
-            t1 = p.y - yl;
-            t2 = p.x - topSite.get_x();
+            yl = edge.c - edge.a * x;
+            t1 = y - yl;
+            t2 = x - topSite.get_x();
             t3 = yl - topSite.get_y();
             above = t1 * t1 > t2 * t2 + t3 * t3;
         }
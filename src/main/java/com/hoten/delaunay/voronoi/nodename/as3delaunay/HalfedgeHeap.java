@@ -0,0 +1,179 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min heap of Halfedges. Each queued Halfedge remembers its slot
+ * in heapIndex, so remove() and re-insertion are O(log n) no matter how the
+ * ystar values are distributed.
+ *
+ * Equal keys come out newest first, the same order HalfedgePriorityQueue
+ * produces, so both queues drive the sweep through identical steps.
+ */
+public final class HalfedgeHeap implements IHalfedgeQueue {
+
+    private static final int ARITY = 4;
+    private Halfedge[] _heap;
+    // keys are copied out of the Halfedges so sifting does not chase pointers
+    private double[] _ystar;
+    private double[] _x;
+    private int[] _stamp;
+    private int _count;
+    private int _nextStamp;
+
+    public HalfedgeHeap(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        _heap = new Halfedge[capacity];
+        _ystar = new double[capacity];
+        _x = new double[capacity];
+        _stamp = new int[capacity];
+    }
+
+    @Override
+    public void dispose() {
+        for (int i = 0; i < _count; ++i) {
+            _heap[i].heapIndex = -1;
+        }
+        _heap = null;
+        _ystar = null;
+        _x = null;
+        _stamp = null;
+        _count = 0;
+    }
+
+    @Override
+    public void insert(Halfedge halfEdge) {
+        if (_count == _heap.length) {
+            grow();
+        }
+        int i = _count++;
+        _heap[i] = halfEdge;
+        _ystar[i] = halfEdge.ystar;
+        _x[i] = halfEdge.vertex.get_x();
+        _stamp[i] = _nextStamp++;
+        halfEdge.heapIndex = i;
+        siftUp(i);
+    }
+
+    @Override
+    public void remove(Halfedge halfEdge) {
+        if (halfEdge.vertex != null) {
+            int i = halfEdge.heapIndex;
+            if (i >= 0) {
+                removeAt(i);
+            }
+            halfEdge.vertex = null;
+            halfEdge.dispose();
+        }
+    }
+
+    @Override
+    public boolean empty() {
+        return _count == 0;
+    }
+
+    @Override
+    public double minX() {
+        return _x[0];
+    }
+
+    @Override
+    public double minY() {
+        return _ystar[0];
+    }
+
+    @Override
+    public Halfedge extractMin() {
+        Halfedge answer = _heap[0];
+        removeAt(0);
+        return answer;
+    }
+
+    private void removeAt(int i) {
+        Halfedge removed = _heap[i];
+        removed.heapIndex = -1;
+        int last = --_count;
+        if (i != last) {
+            move(last, i);
+            _heap[last] = null;
+            if (i > 0 && less(i, (i - 1) / ARITY)) {
+                siftUp(i);
+            } else {
+                siftDown(i);
+            }
+        } else {
+            _heap[last] = null;
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            if (!less(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        for (;;) {
+            int first = i * ARITY + 1;
+            if (first >= _count) {
+                return;
+            }
+            int smallest = first;
+            int end = Math.min(first + ARITY, _count);
+            for (int c = first + 1; c < end; ++c) {
+                if (less(c, smallest)) {
+                    smallest = c;
+                }
+            }
+            if (!less(smallest, i)) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private boolean less(int i, int j) {
+        if (_ystar[i] != _ystar[j]) {
+            return _ystar[i] < _ystar[j];
+        }
+        if (_x[i] != _x[j]) {
+            return _x[i] < _x[j];
+        }
+        return _stamp[i] > _stamp[j];
+    }
+
+    private void swap(int i, int j) {
+        Halfedge h = _heap[i];
+        double y = _ystar[i];
+        double x = _x[i];
+        int s = _stamp[i];
+        move(j, i);
+        _heap[j] = h;
+        _ystar[j] = y;
+        _x[j] = x;
+        _stamp[j] = s;
+        h.heapIndex = j;
+    }
+
+    private void move(int from, int to) {
+        _heap[to] = _heap[from];
+        _ystar[to] = _ystar[from];
+        _x[to] = _x[from];
+        _stamp[to] = _stamp[from];
+        _heap[to].heapIndex = to;
+    }
+
+    private void grow() {
+        int capacity = _heap.length * 2;
+        _heap = Arrays.copyOf(_heap, capacity);
+        _ystar = Arrays.copyOf(_ystar, capacity);
+        _x = Arrays.copyOf(_x, capacity);
+        _stamp = Arrays.copyOf(_stamp, capacity);
+    }
+}
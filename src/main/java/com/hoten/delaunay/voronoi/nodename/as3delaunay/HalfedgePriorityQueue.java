@@ -3,7 +3,7 @@ package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 import com.hoten.delaunay.geom.Point;
 import java.util.ArrayList;
 
-public final class HalfedgePriorityQueue // also known as heap
+public final class HalfedgePriorityQueue implements IHalfedgeQueue // also known as heap
 {
 
     private ArrayList<Halfedge> _hash;
@@ -12,14 +12,17 @@ public final class HalfedgePriorityQueue // also known as heap
     private int _hashsize;
     private double _ymin;
     private double _deltay;
+    private BuildContext _context;
 
-    public HalfedgePriorityQueue(double ymin, double deltay, int sqrt_nsites) {
+    public HalfedgePriorityQueue(BuildContext context, double ymin, double deltay, int sqrt_nsites) {
+        _context = context;
         _ymin = ymin;
         _deltay = deltay;
         _hashsize = 4 * sqrt_nsites;
         initialize();
     }
 
+    @Override
     public void dispose() {
         // get rid of dummies
         for (int i = 0; i < _hashsize; ++i) {
@@ -27,6 +30,7 @@ public final class HalfedgePriorityQueue // also known as heap
         }
         _hash.clear();
         _hash = null;
+        _context = null;
     }
 
     private void initialize() {
@@ -37,11 +41,12 @@ public final class HalfedgePriorityQueue // also known as heap
         _hash = new ArrayList(_hashsize);
         // dummy Halfedge at the top of each hash
         for (i = 0; i < _hashsize; ++i) {
-            _hash.add(Halfedge.createDummy());
+            _hash.add(Halfedge.createDummy(_context));
             _hash.get(i).nextInPriorityQueue = null;
         }
     }
 
+    @Override
     public void insert(Halfedge halfEdge) {
         Halfedge previous, next;
         int insertionBucket = bucket(halfEdge);
@@ -58,6 +63,7 @@ public final class HalfedgePriorityQueue // also known as heap
         ++_count;
     }
 
+    @Override
     public void remove(Halfedge halfEdge) {
         Halfedge previous;
         int removalBucket = bucket(halfEdge);
@@ -101,6 +107,7 @@ public final class HalfedgePriorityQueue // also known as heap
         }
     }
 
+    @Override
     public boolean empty() {
         return _count == 0;
     }
@@ -111,9 +118,19 @@ public final class HalfedgePriorityQueue // also known as heap
      *
      */
     public Point min() {
+        return new Point(minX(), minY());
+    }
+
+    @Override
+    public double minX() {
+        adjustMinBucket();
+        return _hash.get(_minBucket).nextInPriorityQueue.vertex.get_x();
+    }
+
+    @Override
+    public double minY() {
         adjustMinBucket();
-        Halfedge answer = _hash.get(_minBucket).nextInPriorityQueue;
-        return new Point(answer.vertex.get_x(), answer.ystar);
+        return _hash.get(_minBucket).nextInPriorityQueue.ystar;
     }
 
     /**
@@ -122,9 +139,12 @@ public final class HalfedgePriorityQueue // also known as heap
      * @return
      *
      */
+    @Override
     public Halfedge extractMin() {
         Halfedge answer;
 
+        // minX() and minY() are not always asked first
+        adjustMinBucket();
         // get the first real Halfedge in _minBucket
         answer = _hash.get(_minBucket).nextInPriorityQueue;
 
@@ -0,0 +1,34 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+/**
+ * The event queue of the sweep. Halfedges are ordered by the coordinates of
+ * their vertex in V*, the transformed Voronoi diagram: ystar first, then the
+ * vertex x.
+ */
+public interface IHalfedgeQueue extends IDisposable {
+
+    void insert(Halfedge halfEdge);
+
+    /**
+     * Remove halfEdge if it is queued; a Halfedge without a vertex is never
+     * in the queue and is left alone.
+     */
+    void remove(Halfedge halfEdge);
+
+    boolean empty();
+
+    /**
+     * @return x coordinate of the min Halfedge's vertex in V*
+     */
+    double minX();
+
+    /**
+     * @return ystar of the min Halfedge
+     */
+    double minY();
+
+    /**
+     * remove and return the min Halfedge
+     */
+    Halfedge extractMin();
+}
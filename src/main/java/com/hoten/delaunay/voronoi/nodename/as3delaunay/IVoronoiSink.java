@@ -0,0 +1,30 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+/**
+ * Receives a Voronoi diagram piece by piece while it is being built; see
+ * BuildOptions.sink. Sites and vertices are numbered as in VoronoiResult.
+ *
+ * Every vertex is announced before the first edge that ends in it, and every
+ * site is finished after the last edge around it. With the sweep, edges come
+ * as soon as both their vertices are known and sites as soon as their region
+ * is closed; edges and sites on the convex hull only come at the end. Other
+ * engines replay the diagram once it is built.
+ */
+public interface IVoronoiSink {
+
+    void vertexCreated(int vertex, double x, double y);
+
+    /**
+     * @param leftVertex -1 if the edge extends to infinity on the left
+     * @param rightVertex -1 if the edge extends to infinity on the right
+     * @param x0 the clipped left end; x0, y0, x1 and y1 are NaN if no part of
+     * the edge falls within the plot bounds
+     */
+    void edgeCompleted(int leftSite, int rightSite, int leftVertex, int rightVertex,
+            double x0, double y0, double x1, double y1);
+
+    /**
+     * No more edges of this site will follow.
+     */
+    void siteFinished(int site, double x, double y);
+}
@@ -0,0 +1,951 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.Arrays;
+
+/**
+ * A Voronoi diagram of sites that all move a little between updates, as in a
+ * simulation where every agent owns a cell.
+ *
+ * It keeps the Delaunay triangulation in the flat arrays of a
+ * GhostTriangulation, like DiagramEditor, with ghost triangles outside the
+ * convex hull.
+ *
+ * update() moves the sites and repairs the triangulation with edge flips
+ * (Lawson): an edge is flipped while the far site of one of its triangles is
+ * in the circumcircle of the other, and a hull site that got dented in is
+ * flipped inside. Sites whose move would turn a triangle over are left
+ * behind at first and then moved one at a time, taken out and inserted again
+ * if need be. Only when the flips run past a budget is the triangulation
+ * built again, by inserting the sites one by one along a Hilbert curve.
+ * Either way the triangulation allocates no arrays once the first few
+ * updates have grown the scratch space. The exact predicates still allocate
+ * for sites that are collinear or cocircular to within rounding, as on a
+ * grid.
+ *
+ * Sites keep the index they have in the coordinates, and regions are clipped
+ * to the plot bounds. Of the sites on one spot, the one with the lowest index
+ * has the triangles and the others share its region. update() puts a site
+ * that moves off such a spot back into the triangulation on its own, so
+ * coincident sites cost no more than others.
+ */
+public final class KineticVoronoi extends GhostTriangulation {
+
+    // about what a rebuild costs, in flips per site
+    public static final double DEFAULT_MAX_FLIPS_PER_SITE = 2;
+    // the Hilbert curve the sites are inserted along has 2^HILBERT_BITS cells a side
+    private static final int HILBERT_BITS = 15;
+
+    private final Rectangle _plotBounds;
+    private final int _numSites;
+    private final int _maxFlips;
+    // where the sites were before the update
+    private final double[] _oldX, _oldY;
+    private int _numReal;
+    private int[] _free = new int[16];
+    private int _numFree;
+    // a triangle of each site, -1 for the sites that have none
+    private final int[] _siteTriangle;
+    // the site each site is on top of, or -1
+    private final int[] _twin;
+    private int _numTwins;
+    // with no triangles: two sites on the line all sites are on, or -1
+    private int _lineA, _lineB;
+    // Hilbert index, site per insertion
+    private final long[] _order;
+    // the sites update() left behind, to be moved one at a time
+    private final int[] _stuck;
+    private final boolean[] _isStuck;
+    private int _numStuck;
+    // edges 3t + k that may have to be flipped
+    private int[] _stack = new int[64];
+    private int _stackSize;
+    private int _flips, _flipLimit;
+    // the last triangle written, to walk from
+    private int _hint;
+    // the polygon around a site being taken out, and the triangle beyond each of its edges
+    private int[] _corners = new int[16], _beyond = new int[16];
+    private int[] _path = new int[16], _pathBeyond = new int[16];
+    private double[] _clip = new double[32], _clipped = new double[32];
+    private int[] _neighbors = new int[16];
+
+    public KineticVoronoi(double[] coords, Rectangle plotBounds) {
+        this(coords, plotBounds, DEFAULT_MAX_FLIPS_PER_SITE);
+    }
+
+    /**
+     * @param coords x, y per site
+     * @param maxFlipsPerSite how many flips an update() may make, per site,
+     * before it gives up and builds the triangulation again
+     */
+    public KineticVoronoi(double[] coords, Rectangle plotBounds, double maxFlipsPerSite) {
+        _plotBounds = plotBounds;
+        _numSites = coords.length / 2;
+        _maxFlips = (int) Math.min(Integer.MAX_VALUE, maxFlipsPerSite * _numSites);
+        _x = new double[_numSites];
+        _y = new double[_numSites];
+        _oldX = new double[_numSites];
+        _oldY = new double[_numSites];
+        // a triangulation of n sites and the point at infinity has 2n - 2 triangles
+        int capacity = Math.max(4, 2 * _numSites);
+        _tri = new int[3 * capacity];
+        _adj = new int[3 * capacity];
+        _siteTriangle = new int[_numSites];
+        _twin = new int[_numSites];
+        _order = new long[_numSites];
+        _stuck = new int[_numSites];
+        _isStuck = new boolean[_numSites];
+        setCoords(coords);
+        rebuild();
+    }
+
+    public Rectangle get_plotBounds() {
+        return _plotBounds;
+    }
+
+    public int get_numSites() {
+        return _numSites;
+    }
+
+    /**
+     * @return how many edges the last update() flipped, including the ones
+     * it flipped before giving up
+     */
+    public int get_flips() {
+        return _flips;
+    }
+
+    /**
+     * Moves every site to its new coordinates.
+     *
+     * @param coords x, y per site, as many sites as there were
+     * @return true if the triangulation was repaired, false if it had to be
+     * built again
+     */
+    public boolean update(double[] coords) {
+        if (coords.length != 2 * _numSites) {
+            throw new IllegalArgumentException(coords.length / 2 + " sites for a diagram of " + _numSites);
+        }
+        _flips = 0;
+        _flipLimit = _maxFlips;
+        // relocate() and separateTwins() walk the triangles, which needs a hull that does not fold over itself
+        if (_numReal > 0 && moveAll(coords) && flipAll() && hullTurnsOnce() && relocate(coords)
+                && hullTurnsOnce() && separateTwins()) {
+            return true;
+        }
+        setCoords(coords);
+        rebuild();
+        return false;
+    }
+
+    /**
+     * @return the number of Delaunay neighbors of site
+     */
+    public int numNeighbors(int site) {
+        return neighborSites(site, null);
+    }
+
+    /**
+     * Writes the Delaunay neighbors of site to out, counterclockwise; for a
+     * site on the hull, starting after the outside.
+     *
+     * @param out needs room for numNeighbors(site) sites
+     * @return the number of neighbors
+     */
+    public int neighborSites(int site, int[] out) {
+        checkSite(site);
+        if (_twin[site] >= 0) {
+            site = _twin[site];
+        }
+        if (_numReal == 0) {
+            return lineNeighbors(site, out);
+        }
+        // on the hull, start after the ghost triangle that leaves the hull
+        int first = _siteTriangle[site];
+        int t = first;
+        do {
+            int i = position(t, site);
+            int next = _adj[3 * t + (i + 2) % 3];
+            if (_tri[3 * t + (i + 2) % 3] == INFINITY) {
+                first = next;
+                break;
+            }
+            t = next;
+        } while (t != first);
+        int n = 0;
+        t = first;
+        do {
+            int i = position(t, site);
+            int neighbor = _tri[3 * t + (i + 1) % 3];
+            if (neighbor != INFINITY) {
+                if (out != null) {
+                    out[n] = neighbor;
+                }
+                ++n;
+            }
+            t = _adj[3 * t + (i + 2) % 3];
+        } while (t != first);
+        return n;
+    }
+
+    /**
+     * @return the site that site is on top of, or -1; such a site has the
+     * neighbors of the other
+     */
+    int twinOf(int site) {
+        checkSite(site);
+        return _twin[site];
+    }
+
+    /**
+     * @return whether some triangle around site is a ghost, or there are no
+     * triangles at all
+     */
+    boolean onHull(int site) {
+        checkSite(site);
+        if (_twin[site] >= 0) {
+            site = _twin[site];
+        }
+        if (_numReal == 0) {
+            return true;
+        }
+        int first = _siteTriangle[site];
+        int t = first;
+        do {
+            int i = position(t, site);
+            if (_tri[3 * t + 2] == INFINITY) {
+                return true;
+            }
+            t = _adj[3 * t + (i + 2) % 3];
+        } while (t != first);
+        return false;
+    }
+
+    /**
+     * Writes the region of site, clipped to the plot bounds, to out as x, y
+     * per point, counterclockwise.
+     *
+     * @param out needs room for 2 * (numNeighbors(site) + 4) values
+     * @return the number of points, 0 if the region is outside the bounds
+     */
+    public int region(int site, double[] out) {
+        int numNeighbors = neighborSites(site, null);
+        if (_neighbors.length < numNeighbors) {
+            _neighbors = new int[2 * numNeighbors];
+        }
+        neighborSites(site, _neighbors);
+        if (_clip.length < 2 * (numNeighbors + 4)) {
+            _clip = new double[4 * (numNeighbors + 4)];
+            _clipped = new double[_clip.length];
+        }
+        Rectangle b = _plotBounds;
+        _clip[0] = b.left;
+        _clip[1] = b.top;
+        _clip[2] = b.right;
+        _clip[3] = b.top;
+        _clip[4] = b.right;
+        _clip[5] = b.bottom;
+        _clip[6] = b.left;
+        _clip[7] = b.bottom;
+        int n = 4;
+        for (int i = 0; i < numNeighbors && n > 0; ++i) {
+            n = clip(site, _neighbors[i], n);
+        }
+        System.arraycopy(_clip, 0, out, 0, 2 * n);
+        return n;
+    }
+
+    /**
+     * Writes the Delaunay triangles as site index triples to out, each turned
+     * counterclockwise: positive signed area, like Voronoi.triangles().
+     *
+     * @param out needs room for 3 * 2 * numSites sites
+     * @return the number of triangles
+     */
+    public int triangles(int[] out) {
+        int n = 0;
+        for (int t = 0; t < _numSlots; ++t) {
+            if (real(t)) {
+                System.arraycopy(_tri, 3 * t, out, 3 * n++, 3);
+            }
+        }
+        return n;
+    }
+
+    private void checkSite(int site) {
+        if (site < 0 || site >= _numSites) {
+            throw new IndexOutOfBoundsException("no site " + site + " among " + _numSites);
+        }
+    }
+
+    private void setCoords(double[] coords) {
+        for (int i = 0; i < _numSites; ++i) {
+            _x[i] = coords[2 * i];
+            _y[i] = coords[2 * i + 1];
+        }
+    }
+
+    /**
+     * Moves the sites to coords, except the ones that would turn a triangle
+     * over: those stay where they were, for relocate().
+     *
+     * @return false if the triangles around a hull site now wind around it
+     * more than once, which no flip mends. Folds farther apart are left to
+     * hullTurnsOnce().
+     */
+    private boolean moveAll(double[] coords) {
+        System.arraycopy(_x, 0, _oldX, 0, _numSites);
+        System.arraycopy(_y, 0, _oldY, 0, _numSites);
+        setCoords(coords);
+        _numStuck = 0;
+        for (int t = 0; t < _numSlots; ++t) {
+            if (real(t) && orient(_tri[3 * t], _tri[3 * t + 1], _tri[3 * t + 2]) <= 0) {
+                stick(_tri[3 * t]);
+                stick(_tri[3 * t + 1]);
+                stick(_tri[3 * t + 2]);
+            }
+        }
+        for (int i = 0; i < _numStuck; ++i) {
+            int site = _stuck[i];
+            _x[site] = _oldX[site];
+            _y[site] = _oldY[site];
+            // which can turn over triangles it shares with sites that did move
+            int start = _siteTriangle[site];
+            int t = start;
+            do {
+                int k = position(t, site);
+                if (real(t) && orient(_tri[3 * t], _tri[3 * t + 1], _tri[3 * t + 2]) <= 0) {
+                    stick(_tri[3 * t + (k + 1) % 3]);
+                    stick(_tri[3 * t + (k + 2) % 3]);
+                }
+                t = _adj[3 * t + (k + 2) % 3];
+            } while (t != start);
+        }
+        for (int t = 0; t < _numSlots; ++t) {
+            if (_tri[3 * t] != FREE && _tri[3 * t + 2] == INFINITY && !windsOnce(_tri[3 * t + 1], t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stick(int site) {
+        if (!_isStuck[site]) {
+            _isStuck[site] = true;
+            _stuck[_numStuck++] = site;
+        }
+    }
+
+    /**
+     * Moves the sites moveAll() left behind, one at a time: with flips where
+     * the triangles around the site stay turned the right way, or else by
+     * taking it out and inserting it again.
+     *
+     * @return false if that took too many flips, or left no triangle
+     */
+    private boolean relocate(double[] coords) {
+        for (int i = 0; i < _numStuck; ++i) {
+            _isStuck[_stuck[i]] = false;
+        }
+        for (int i = 0; i < _numStuck; ++i) {
+            int site = _stuck[i];
+            double oldX = _x[site], oldY = _y[site];
+            _x[site] = coords[2 * site];
+            _y[site] = coords[2 * site + 1];
+            if (_twin[site] >= 0) {
+                // a site inserted on top of it took its triangles; separateTwins() sees to it
+                continue;
+            }
+            if (starValid(site)) {
+                int start = _siteTriangle[site];
+                int t = start;
+                do {
+                    pushEdges(t);
+                    t = _adj[3 * t + (position(t, site) + 2) % 3];
+                } while (t != start);
+            } else {
+                _x[site] = oldX;
+                _y[site] = oldY;
+                if (!remove(site)) {
+                    return false;
+                }
+                _x[site] = coords[2 * site];
+                _y[site] = coords[2 * site + 1];
+                insert(site);
+            }
+            if (!drain()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the sites that are not on the spot of the site they were on
+     * top of any more, or whose site is on top of another one now.
+     *
+     * @return false if that took too many flips
+     */
+    private boolean separateTwins() {
+        for (int site = 0; site < _numSites && _numTwins > 0; ++site) {
+            int twin = _twin[site];
+            if (twin < 0 || (_twin[twin] < 0 && _x[twin] == _x[site] && _y[twin] == _y[site])) {
+                continue;
+            }
+            _twin[site] = -1;
+            --_numTwins;
+            insert(site);
+            if (!drain()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // whether the triangles around site are still turned the right way, and wind around the hull sites once
+    private boolean starValid(int site) {
+        int start = _siteTriangle[site];
+        int t = start;
+        boolean hull = false;
+        do {
+            if (_tri[3 * t + 2] == INFINITY) {
+                hull = true;
+            } else if (orient(_tri[3 * t], _tri[3 * t + 1], _tri[3 * t + 2]) <= 0) {
+                return false;
+            }
+            t = _adj[3 * t + (position(t, site) + 2) % 3];
+        } while (t != start);
+        if (!hull) {
+            return true;
+        }
+        // moving a hull site turns its neighbors on the hull as well
+        do {
+            if (_tri[3 * t + 2] == INFINITY) {
+                int other = _tri[3 * t] == site ? _tri[3 * t + 1] : _tri[3 * t];
+                if (!windsOnce(other, t)) {
+                    return false;
+                }
+            }
+            t = _adj[3 * t + (position(t, site) + 2) % 3];
+        } while (t != start);
+        return windsOnce(site, start);
+    }
+
+    // whether the triangles around hull site turn through less than a full circle
+    private boolean windsOnce(int site, int start) {
+        double angle = 0;
+        int t = start;
+        do {
+            int i = position(t, site);
+            if (_tri[3 * t + 2] != INFINITY) {
+                int b = _tri[3 * t + (i + 1) % 3], c = _tri[3 * t + (i + 2) % 3];
+                double bx = _x[b] - _x[site], by = _y[b] - _y[site];
+                double cx = _x[c] - _x[site], cy = _y[c] - _y[site];
+                angle += Math.atan2(bx * cy - by * cx, bx * cx + by * cy);
+            }
+            t = _adj[3 * t + (i + 2) % 3];
+        } while (t != start);
+        return angle < 2 * Math.PI;
+    }
+
+    /**
+     * @return whether going around the hull turns through one full circle.
+     * A hull that folded over itself turns through two, even where every
+     * corner of it is convex.
+     */
+    private boolean hullTurnsOnce() {
+        int first = 0;
+        while (_tri[3 * first] == FREE || _tri[3 * first + 2] != INFINITY) {
+            ++first;
+        }
+        double angle = 0;
+        int g = first;
+        do {
+            // the next ghost's hull edge starts where this one's ends
+            int next = _adj[3 * g + 1];
+            int a = _tri[3 * g], b = _tri[3 * g + 1], c = _tri[3 * next + 1];
+            double ux = _x[b] - _x[a], uy = _y[b] - _y[a];
+            double vx = _x[c] - _x[b], vy = _y[c] - _y[b];
+            angle += Math.atan2(ux * vy - uy * vx, ux * vx + uy * vy);
+            g = next;
+        } while (g != first);
+        return Math.abs(angle) < 3 * Math.PI;
+    }
+
+    /**
+     * Flips every edge that is not Delaunay any more.
+     *
+     * @return false if that took more than _flipLimit flips
+     */
+    private boolean flipAll() {
+        for (int t = 0; t < _numSlots; ++t) {
+            for (int k = 0; k < 3 && _tri[3 * t] != FREE; ++k) {
+                // each edge once, from the triangle with the lower index
+                if (t < _adj[3 * t + k] && needsFlip(t, k)) {
+                    if (_flips >= _flipLimit) {
+                        return false;
+                    }
+                    flip(t, k);
+                    if (!drain()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flips the edges on the stack, and the ones those flips put there.
+     *
+     * @return false if that took more than _flipLimit flips
+     */
+    private boolean drain() {
+        while (_stackSize > 0) {
+            int e = _stack[--_stackSize];
+            if (_tri[e - e % 3] != FREE && needsFlip(e / 3, e % 3)) {
+                if (_flips >= _flipLimit) {
+                    _stackSize = 0;
+                    return false;
+                }
+                flip(e / 3, e % 3);
+            }
+        }
+        return true;
+    }
+
+    private boolean needsFlip(int t, int k) {
+        int a = _tri[3 * t + k], b = _tri[3 * t + (k + 1) % 3], c = _tri[3 * t + (k + 2) % 3];
+        int u = _adj[3 * t + k];
+        int d = _tri[3 * u + (slot(u, b, a) + 2) % 3];
+        // between two ghosts: flip where the hull is not convex, going around it with the outside on the left
+        if (a == INFINITY) {
+            return orient(d, b, c) > 0;
+        }
+        if (b == INFINITY) {
+            return orient(c, a, d) > 0;
+        }
+        // a hull edge stays
+        if (c == INFINITY || d == INFINITY) {
+            return false;
+        }
+        return inCircle(a, b, c, _x[d], _y[d]);
+    }
+
+    /**
+     * Replaces the edge a to b of t = (a, b, c) and u = (b, a, d) by the edge
+     * from c to d: t becomes (c, a, d) and u becomes (d, b, c).
+     */
+    private void flip(int t, int k) {
+        int a = _tri[3 * t + k], b = _tri[3 * t + (k + 1) % 3], c = _tri[3 * t + (k + 2) % 3];
+        int nbc = _adj[3 * t + (k + 1) % 3], nca = _adj[3 * t + (k + 2) % 3];
+        int u = _adj[3 * t + k];
+        int j = slot(u, b, a);
+        int d = _tri[3 * u + (j + 2) % 3];
+        int nad = _adj[3 * u + (j + 1) % 3], ndb = _adj[3 * u + (j + 2) % 3];
+        set(t, c, a, d);
+        set(u, d, b, c);
+        link(t, c, a, nca);
+        link(t, a, d, nad);
+        link(t, d, c, u);
+        link(u, d, b, ndb);
+        link(u, b, c, nbc);
+        pushEdges(t);
+        pushEdges(u);
+        ++_flips;
+    }
+
+    /**
+     * Triangulates the sites from scratch, inserting them along a Hilbert
+     * curve so that each insertion starts next to the one before.
+     */
+    private void rebuild() {
+        _numSlots = _numReal = _numFree = 0;
+        _numTwins = 0;
+        _stackSize = 0;
+        _lineA = _lineB = -1;
+        Arrays.fill(_siteTriangle, -1);
+        Arrays.fill(_twin, -1);
+        // a repair that gave up before relocate() leaves sites marked stuck
+        for (int i = 0; i < _numStuck; ++i) {
+            _isStuck[_stuck[i]] = false;
+        }
+        _numStuck = 0;
+        if (_numSites == 0) {
+            return;
+        }
+        sortAlongHilbertCurve();
+
+        // the first triangle: the first site, the first one apart from it, and the first one off their line
+        int a = site(0), b = -1, c = -1;
+        for (int i = 1; i < _numSites && c < 0; ++i) {
+            int s = site(i);
+            if (b < 0) {
+                if (_x[s] != _x[a] || _y[s] != _y[a]) {
+                    b = s;
+                }
+            } else if (orient(a, b, s) != 0) {
+                c = s;
+            }
+        }
+        _lineA = a;
+        _lineB = b;
+        if (c < 0) {
+            // all on one line: no triangles, and lineNeighbors() answers for them
+            return;
+        }
+        if (orient(a, b, c) < 0) {
+            int swap = b;
+            b = c;
+            c = swap;
+        }
+        int t = add(a, b, c);
+        int g0 = add(b, a, INFINITY), g1 = add(c, b, INFINITY), g2 = add(a, c, INFINITY);
+        link(t, a, b, g0);
+        link(t, b, c, g1);
+        link(t, c, a, g2);
+        link(g0, a, INFINITY, g2);
+        link(g1, b, INFINITY, g0);
+        link(g2, c, INFINITY, g1);
+        _stackSize = 0;
+
+        // however long it takes
+        int flipLimit = _flipLimit, flips = _flips;
+        _flipLimit = Integer.MAX_VALUE;
+        for (int i = 0; i < _numSites; ++i) {
+            int s = site(i);
+            if (s != a && s != b && s != c) {
+                insert(s);
+                drain();
+            }
+        }
+        _flipLimit = flipLimit;
+        // get_flips() counts the repair only
+        _flips = flips;
+    }
+
+    private void sortAlongHilbertCurve() {
+        double xmin = Double.MAX_VALUE, ymin = Double.MAX_VALUE;
+        double xmax = -Double.MAX_VALUE, ymax = -Double.MAX_VALUE;
+        for (int i = 0; i < _numSites; ++i) {
+            xmin = Math.min(xmin, _x[i]);
+            xmax = Math.max(xmax, _x[i]);
+            ymin = Math.min(ymin, _y[i]);
+            ymax = Math.max(ymax, _y[i]);
+        }
+        int side = 1 << HILBERT_BITS;
+        double scale = (side - 1) / Math.max(Math.max(xmax - xmin, ymax - ymin), Double.MIN_NORMAL);
+        for (int i = 0; i < _numSites; ++i) {
+            long d = hilbert((int) ((_x[i] - xmin) * scale), (int) ((_y[i] - ymin) * scale));
+            _order[i] = d << 32 | i;
+        }
+        Arrays.sort(_order);
+    }
+
+    private int site(int i) {
+        return (int) _order[i];
+    }
+
+    // the distance along the Hilbert curve of 2^HILBERT_BITS cells a side to cell (x, y)
+    private static long hilbert(int x, int y) {
+        int side = 1 << HILBERT_BITS;
+        long d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Splits the triangle site is in, leaving the edges around it on the
+     * stack; or makes the higher numbered of site and the site it is on top
+     * of the twin of the other.
+     */
+    private void insert(int site) {
+        double x = _x[site], y = _y[site];
+        int t = locate(x, y, _hint);
+        if (_tri[3 * t + 2] == INFINITY) {
+            // outside the hull edge of ghost t
+            split(t, site);
+            return;
+        }
+        for (int i = 0; i < 3; ++i) {
+            int s = _tri[3 * t + i];
+            if (_x[s] == x && _y[s] == y) {
+                if (s < site) {
+                    _twin[site] = s;
+                } else {
+                    takeOver(site, s);
+                }
+                ++_numTwins;
+                return;
+            }
+        }
+        for (int k = 0; k < 3; ++k) {
+            if (orient(_tri[3 * t + k], _tri[3 * t + (k + 1) % 3], x, y) == 0) {
+                splitEdge(t, k, site);
+                return;
+            }
+        }
+        split(t, site);
+    }
+
+    // gives site, on top of s, the triangles of s, and makes s and its twins the twins of site
+    private void takeOver(int site, int s) {
+        int start = _siteTriangle[s];
+        int t = start;
+        do {
+            int k = position(t, s);
+            _tri[3 * t + k] = site;
+            t = _adj[3 * t + (k + 2) % 3];
+        } while (t != start);
+        _siteTriangle[site] = start;
+        _siteTriangle[s] = -1;
+        for (int i = 0; i < _numSites; ++i) {
+            if (_twin[i] == s) {
+                _twin[i] = site;
+            }
+        }
+        _twin[s] = site;
+    }
+
+    // splits t = (a, b, c) into (a, b, p), (b, c, p) and (c, a, p)
+    private void split(int t, int p) {
+        int a = _tri[3 * t], b = _tri[3 * t + 1], c = _tri[3 * t + 2];
+        int nab = _adj[3 * t], nbc = _adj[3 * t + 1], nca = _adj[3 * t + 2];
+        set(t, a, b, p);
+        int t1 = add(b, c, p), t2 = add(c, a, p);
+        link(t, a, b, nab);
+        link(t1, b, c, nbc);
+        link(t2, c, a, nca);
+        link(t, b, p, t1);
+        link(t1, c, p, t2);
+        link(t2, a, p, t);
+        pushEdges(t);
+    }
+
+    /**
+     * Splits t = (a, b, c) and u = (b, a, d) at p on their edge a to b into
+     * (a, p, c), (p, b, c), (b, p, d) and (p, a, d).
+     */
+    private void splitEdge(int t, int k, int p) {
+        int a = _tri[3 * t + k], b = _tri[3 * t + (k + 1) % 3], c = _tri[3 * t + (k + 2) % 3];
+        int nbc = _adj[3 * t + (k + 1) % 3], nca = _adj[3 * t + (k + 2) % 3];
+        int u = _adj[3 * t + k];
+        int j = slot(u, b, a);
+        int d = _tri[3 * u + (j + 2) % 3];
+        int nad = _adj[3 * u + (j + 1) % 3], ndb = _adj[3 * u + (j + 2) % 3];
+        set(t, a, p, c);
+        set(u, b, p, d);
+        int t1 = add(p, b, c), u1 = add(p, a, d);
+        link(t, c, a, nca);
+        link(t1, b, c, nbc);
+        link(u, d, b, ndb);
+        link(u1, a, d, nad);
+        link(t, a, p, u1);
+        link(t, p, c, t1);
+        link(t1, p, b, u);
+        link(u, p, d, u1);
+        pushEdges(t);
+        pushEdges(u);
+    }
+
+    /**
+     * Takes site out of the triangulation and fills the hole with Delaunay
+     * ears, the way DiagramEditor.remove() does.
+     *
+     * @return false if no triangle is left
+     */
+    private boolean remove(int site) {
+        // the corners around site counterclockwise, and the triangle beyond the edge from each to the next
+        int n = 0, infinity = -1;
+        int start = _siteTriangle[site];
+        int t = start;
+        do {
+            int k = position(t, site);
+            if (n == _corners.length) {
+                growPolygon();
+            }
+            _corners[n] = _tri[3 * t + (k + 1) % 3];
+            _beyond[n] = _adj[3 * t + (k + 1) % 3];
+            if (_corners[n] == INFINITY) {
+                infinity = n;
+            }
+            ++n;
+            int next = _adj[3 * t + (k + 2) % 3];
+            release(t);
+            t = next;
+        } while (t != start);
+        _siteTriangle[site] = -1;
+        if (infinity < 0) {
+            fillPolygon(_corners, _beyond, n);
+        } else {
+            // a hull site: the corners from the one after INFINITY to the one
+            // before it are a path that the hole's new hull edges close
+            int m = n - 1;
+            for (int i = 0; i < m; ++i) {
+                _path[i] = _corners[(infinity + 1 + i) % n];
+                _pathBeyond[i] = _beyond[(infinity + 1 + i) % n];
+            }
+            fillPath(_path, _pathBeyond, m, _beyond[infinity]);
+        }
+        return _numReal > 0;
+    }
+
+    private void growPolygon() {
+        int capacity = 2 * _corners.length;
+        _corners = Arrays.copyOf(_corners, capacity);
+        _beyond = Arrays.copyOf(_beyond, capacity);
+        _path = Arrays.copyOf(_path, capacity);
+        _pathBeyond = Arrays.copyOf(_pathBeyond, capacity);
+    }
+
+    // the neighbors of a site when all sites are on one line: the nearest distinct ones on either side
+    private int lineNeighbors(int site, int[] out) {
+        if (_lineB < 0) {
+            return 0;
+        }
+        double dx = _x[_lineB] - _x[_lineA], dy = _y[_lineB] - _y[_lineA];
+        double at = _x[site] * dx + _y[site] * dy;
+        int below = -1, above = -1;
+        double belowAt = -Double.MAX_VALUE, aboveAt = Double.MAX_VALUE;
+        for (int s = 0; s < _numSites; ++s) {
+            double sAt = _x[s] * dx + _y[s] * dy;
+            if (sAt < at && sAt > belowAt) {
+                below = s;
+                belowAt = sAt;
+            } else if (sAt > at && sAt < aboveAt) {
+                above = s;
+                aboveAt = sAt;
+            }
+        }
+        int n = 0;
+        if (below >= 0) {
+            if (out != null) {
+                out[n] = below;
+            }
+            ++n;
+        }
+        if (above >= 0) {
+            if (out != null) {
+                out[n] = above;
+            }
+            ++n;
+        }
+        return n;
+    }
+
+    /**
+     * Cuts the polygon of n points in _clip down to the side of the bisector
+     * of site and neighbor that site is on.
+     *
+     * @return the number of points left
+     */
+    private int clip(int site, int neighbor, int n) {
+        double dx = _x[neighbor] - _x[site], dy = _y[neighbor] - _y[site];
+        double mx = (_x[neighbor] + _x[site]) / 2, my = (_y[neighbor] + _y[site]) / 2;
+        int m = 0;
+        double px = _clip[2 * n - 2], py = _clip[2 * n - 1];
+        double pSide = (px - mx) * dx + (py - my) * dy;
+        for (int i = 0; i < n; ++i) {
+            double qx = _clip[2 * i], qy = _clip[2 * i + 1];
+            double qSide = (qx - mx) * dx + (qy - my) * dy;
+            if ((pSide < 0 && qSide > 0) || (pSide > 0 && qSide < 0)) {
+                double f = pSide / (pSide - qSide);
+                _clipped[2 * m] = px + (qx - px) * f;
+                _clipped[2 * m + 1] = py + (qy - py) * f;
+                ++m;
+            }
+            if (qSide <= 0) {
+                _clipped[2 * m] = qx;
+                _clipped[2 * m + 1] = qy;
+                ++m;
+            }
+            px = qx;
+            py = qy;
+            pSide = qSide;
+        }
+        double[] swap = _clip;
+        _clip = _clipped;
+        _clipped = swap;
+        return m;
+    }
+
+    @Override
+    int add(int a, int b, int c) {
+        int t;
+        if (_numFree > 0) {
+            t = _free[--_numFree];
+        } else {
+            if (3 * _numSlots == _tri.length) {
+                _tri = Arrays.copyOf(_tri, 2 * _tri.length);
+                _adj = Arrays.copyOf(_adj, 2 * _adj.length);
+            }
+            t = _numSlots++;
+        }
+        _tri[3 * t] = FREE;
+        set(t, a, b, c);
+        pushEdges(t);
+        return t;
+    }
+
+    private void release(int t) {
+        if (real(t)) {
+            --_numReal;
+        }
+        _tri[3 * t] = FREE;
+        if (_numFree == _free.length) {
+            _free = Arrays.copyOf(_free, 2 * _numFree);
+        }
+        _free[_numFree++] = t;
+    }
+
+    // gives t the sites a, b, c, turned so that INFINITY comes last
+    private void set(int t, int a, int b, int c) {
+        if (a == INFINITY) {
+            set(t, b, c, a);
+            return;
+        }
+        if (b == INFINITY) {
+            set(t, c, a, b);
+            return;
+        }
+        if (real(t)) {
+            --_numReal;
+        }
+        _tri[3 * t] = a;
+        _tri[3 * t + 1] = b;
+        _tri[3 * t + 2] = c;
+        _siteTriangle[a] = t;
+        _siteTriangle[b] = t;
+        if (c != INFINITY) {
+            _siteTriangle[c] = t;
+            ++_numReal;
+        }
+        _hint = t;
+    }
+
+    private void pushEdges(int t) {
+        if (_stackSize + 3 > _stack.length) {
+            _stack = Arrays.copyOf(_stack, 2 * _stack.length);
+        }
+        _stack[_stackSize++] = 3 * t;
+        _stack[_stackSize++] = 3 * t + 1;
+        _stack[_stackSize++] = 3 * t + 2;
+    }
+
+    private boolean real(int t) {
+        return _tri[3 * t] != FREE && _tri[3 * t + 2] != INFINITY;
+    }
+}
@@ -0,0 +1,282 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Lloyd relaxation: each step() moves every site to the centroid of its
+ * region and builds the diagram again, which spreads the sites out more
+ * evenly every time.
+ *
+ * The centroids are the area centroids of the regions, worked out from the
+ * RegionTable on a fork-join pool into one coordinate buffer. The diagrams
+ * are built in one BuildContext, each recycling the objects of the one
+ * before. The new sites are given in the old diagram's y,
+ * then x order, and having barely moved they are still nearly in it, so they
+ * are insertion sorted (BuildOptions.nearlySorted) rather than radix sorted.
+ * A region with no area leaves its site where it is.
+ *
+ * Each step records how far the sites moved, and relax() can stop once they
+ * hardly move any more instead of after a fixed count. A Listener hears about
+ * every step: how far the sites moved, how long it took and how even the
+ * cells of the new diagram are.
+ */
+public final class LloydRelaxation {
+
+    /**
+     * Told about every step, on the thread that ran it.
+     */
+    public interface Listener {
+
+        /**
+         * @param iteration 1 for the first step
+         * @param maxDisplacement how far the site that moved furthest moved
+         * @param rmsDisplacement the root mean square of how far the sites
+         * moved
+         * @param nanos how long the step took, counting the region table of
+         * the new diagram, which the next step then finds built, but not
+         * working out areaVariance
+         * @param areaVariance the variance of the areas of the new diagram's
+         * cells, leaving out empty ones; its square root over the mean cell
+         * area is 0 for cells all the same size
+         */
+        void iterationFinished(int iteration, double maxDisplacement, double rmsDisplacement, long nanos,
+                double areaVariance);
+    }
+
+    // below this, splitting the sites over a pool costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private final ConvexPolygon _clipBounds;
+    private final BuildOptions _options;
+    private final BuildContext _context;
+    private final Listener _listener;
+    private Voronoi _voronoi;
+    // whether _voronoi was built here, and can be disposed once the next one is
+    private boolean _owned;
+    private double[] _coords = new double[0];
+    private int _iterations;
+    private double _maxDisplacement = Double.NaN, _rmsDisplacement = Double.NaN;
+
+    /**
+     * @param voronoi where to start from; it is only read
+     * @param options for the diagrams step() builds, or null for
+     * OutputMode.FLAT, which is all relaxation needs; they are copied, with
+     * nearlySorted set
+     */
+    public LloydRelaxation(Voronoi voronoi, BuildOptions options) {
+        this(voronoi, options, null);
+    }
+
+    /**
+     * @param listener to tell about every step, or null
+     */
+    public LloydRelaxation(Voronoi voronoi, BuildOptions options, Listener listener) {
+        _voronoi = voronoi;
+        _listener = listener;
+        _clipBounds = voronoi.get_clipBounds();
+        _options = (options != null ? options.copy() : new BuildOptions().outputMode(BuildOptions.OutputMode.FLAT))
+                .nearlySorted(true);
+        _context = new BuildContext();
+    }
+
+    /**
+     * @return the diagram of the last step, or the one relaxation started
+     * from; a diagram built here is disposed by the next step()
+     */
+    public Voronoi get_voronoi() {
+        return _voronoi;
+    }
+
+    /**
+     * @return the number of steps so far
+     */
+    public int get_iterations() {
+        return _iterations;
+    }
+
+    /**
+     * @return how far the site that moved furthest in the last step moved, or
+     * NaN before the first step
+     */
+    public double get_maxDisplacement() {
+        return _maxDisplacement;
+    }
+
+    /**
+     * @return the root mean square of how far the sites moved in the last
+     * step, or NaN before the first step
+     */
+    public double get_rmsDisplacement() {
+        return _rmsDisplacement;
+    }
+
+    /**
+     * @return the next diagram
+     */
+    public Voronoi step() {
+        long start = System.nanoTime();
+        VoronoiResult result = _voronoi.result();
+        if (_coords.length != result.siteCoords.length) {
+            _coords = new double[result.siteCoords.length];
+        }
+        double[] displacement = centroids(_voronoi.regionTable(), result.siteCoords, _coords, _options.pool);
+        _maxDisplacement = displacement[0];
+        _rmsDisplacement = displacement[1];
+        if (_owned) {
+            _voronoi.dispose();
+        }
+        _voronoi = new Voronoi(_coords, _clipBounds, _options, _context);
+        _owned = true;
+        ++_iterations;
+        if (_listener != null) {
+            // the next step needs the regions anyway, and would count them otherwise
+            RegionTable regions = _voronoi.regionTable();
+            long nanos = System.nanoTime() - start;
+            double areaVariance = areaVariance(regions, _options.pool);
+            _listener.iterationFinished(_iterations, _maxDisplacement, _rmsDisplacement, nanos, areaVariance);
+        }
+        return _voronoi;
+    }
+
+    /**
+     * @return the diagram after that many more steps
+     */
+    public Voronoi relax(int iterations) {
+        for (int i = 0; i < iterations; ++i) {
+            step();
+        }
+        return _voronoi;
+    }
+
+    /**
+     * Steps until the sites hardly move: until a step moves no site by
+     * maxDisplacement or more, or moves them by less than rmsDisplacement,
+     * root mean square, or until maxIterations more steps. Tolerances are in
+     * the units of the coordinates; a small fraction of the spacing of the
+     * sites, sqrt(area / numSites), suits maps of any size. A tolerance of 0
+     * is never met.
+     *
+     * @return the last diagram
+     */
+    public Voronoi relax(int maxIterations, double maxDisplacement, double rmsDisplacement) {
+        for (int i = 0; i < maxIterations; ++i) {
+            step();
+            if (_maxDisplacement < maxDisplacement || _rmsDisplacement < rmsDisplacement) {
+                break;
+            }
+        }
+        return _voronoi;
+    }
+
+    /**
+     * Writes the area centroid of every region to out, x, y per site; for a
+     * region with no area, the site itself.
+     *
+     * @param siteCoords x, y per site, numbered like regions
+     * @param pool to split the sites over, or null for the common pool
+     * @return how far the site furthest from its centroid is from it, and the
+     * root mean square of those distances
+     */
+    public static double[] centroids(RegionTable regions, double[] siteCoords, double[] out, ForkJoinPool pool) {
+        int n = regions.numSites;
+        ForkJoinPool p = pool != null ? pool : ForkJoinPool.commonPool();
+        int chunks = ParallelChunks.count(p, n, PARALLEL_THRESHOLD);
+        // squared distances, largest and sum, per chunk; added up in chunk order so the sum is the same every time
+        double[] max = new double[chunks], sum = new double[chunks];
+        ParallelChunks.forEach(chunks > 1 ? p : null, chunks, (chunk) -> {
+            double chunkMax = 0, chunkSum = 0;
+            for (int s = ParallelChunks.start(n, chunk, chunks); s < ParallelChunks.start(n, chunk + 1, chunks); ++s) {
+                centroid(regions, s, siteCoords, out);
+                double dx = out[2 * s] - siteCoords[2 * s], dy = out[2 * s + 1] - siteCoords[2 * s + 1];
+                double d = dx * dx + dy * dy;
+                chunkMax = Math.max(chunkMax, d);
+                chunkSum += d;
+            }
+            max[chunk] = chunkMax;
+            sum[chunk] = chunkSum;
+        });
+        double totalMax = 0, totalSum = 0;
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            totalMax = Math.max(totalMax, max[chunk]);
+            totalSum += sum[chunk];
+        }
+        return new double[]{Math.sqrt(totalMax), n > 0 ? Math.sqrt(totalSum / n) : 0};
+    }
+
+    /**
+     * @return the variance of the areas of the regions that have any, or NaN
+     * if none do
+     */
+    public static double areaVariance(RegionTable regions, ForkJoinPool pool) {
+        int n = regions.numSites;
+        ForkJoinPool p = pool != null ? pool : ForkJoinPool.commonPool();
+        int chunks = ParallelChunks.count(p, n, PARALLEL_THRESHOLD);
+        // the areas are added up relative to the first one, which keeps the squares from swamping the variance
+        double shift = n > 0 ? area(regions, 0) : 0;
+        double[] sum = new double[chunks], sumSquares = new double[chunks];
+        int[] count = new int[chunks];
+        ParallelChunks.forEach(chunks > 1 ? p : null, chunks, (chunk) -> {
+            for (int s = ParallelChunks.start(n, chunk, chunks); s < ParallelChunks.start(n, chunk + 1, chunks); ++s) {
+                double a = area(regions, s);
+                if (a > 0) {
+                    sum[chunk] += a - shift;
+                    sumSquares[chunk] += (a - shift) * (a - shift);
+                    count[chunk]++;
+                }
+            }
+        });
+        double totalSum = 0, totalSumSquares = 0;
+        int total = 0;
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            totalSum += sum[chunk];
+            totalSumSquares += sumSquares[chunk];
+            total += count[chunk];
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        double mean = totalSum / total;
+        return Math.max(0, totalSumSquares / total - mean * mean);
+    }
+
+    private static double area(RegionTable regions, int site) {
+        int first = regions.offsets[site], end = regions.offsets[site + 1];
+        double twice = 0;
+        if (end - first >= 3) {
+            double x0 = regions.coords[2 * first], y0 = regions.coords[2 * first + 1];
+            for (int i = first + 1; i < end - 1; ++i) {
+                double ax = regions.coords[2 * i] - x0, ay = regions.coords[2 * i + 1] - y0;
+                double bx = regions.coords[2 * i + 2] - x0, by = regions.coords[2 * i + 3] - y0;
+                twice += ax * by - ay * bx;
+            }
+        }
+        return Math.abs(twice) / 2;
+    }
+
+    private static void centroid(RegionTable regions, int site, double[] siteCoords, double[] out) {
+        int first = regions.offsets[site], end = regions.offsets[site + 1];
+        double area = 0, cx = 0, cy = 0;
+        if (end - first >= 3) {
+            // relative to the first point, which keeps the products small
+            double x0 = regions.coords[2 * first], y0 = regions.coords[2 * first + 1];
+            for (int i = first + 1; i < end - 1; ++i) {
+                double ax = regions.coords[2 * i] - x0, ay = regions.coords[2 * i + 1] - y0;
+                double bx = regions.coords[2 * i + 2] - x0, by = regions.coords[2 * i + 3] - y0;
+                double cross = ax * by - ay * bx;
+                area += cross;
+                cx += (ax + bx) * cross;
+                cy += (ay + by) * cross;
+            }
+            cx = x0 + cx / (3 * area);
+            cy = y0 + cy / (3 * area);
+        }
+        if (area != 0 && !Double.isNaN(cx) && !Double.isNaN(cy)) {
+            out[2 * site] = cx;
+            out[2 * site + 1] = cy;
+        } else {
+            out[2 * site] = siteCoords[2 * site];
+            out[2 * site + 1] = siteCoords[2 * site + 1];
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+/**
+ * The Delaunay neighbors of every site, as one flat table.
+ *
+ * The neighbors of site s are neighbors[offsets[s]] to
+ * neighbors[offsets[s + 1] - 1], numbered like the sites of VoronoiResult and
+ * listed in the order of the edges between them.
+ */
+public final class NeighborTable {
+
+    public final int numSites;
+    public final int[] offsets;
+    public final int[] neighbors;
+
+    private NeighborTable(int numSites, int[] offsets, int[] neighbors) {
+        this.numSites = numSites;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    public int degree(int site) {
+        return offsets[site + 1] - offsets[site];
+    }
+
+    /**
+     * @param pairs the two sites of each edge, in edge order
+     */
+    static NeighborTable create(int numSites, int[] pairs, int numPairs) {
+        int[] offsets = new int[numSites + 1];
+        for (int i = 0; i < 2 * numPairs; ++i) {
+            offsets[pairs[i] + 1]++;
+        }
+        for (int s = 0; s < numSites; ++s) {
+            offsets[s + 1] += offsets[s];
+        }
+        int[] neighbors = new int[2 * numPairs];
+        int[] fill = new int[numSites];
+        for (int i = 0; i < numPairs; ++i) {
+            int a = pairs[2 * i];
+            int b = pairs[2 * i + 1];
+            neighbors[offsets[a] + fill[a]++] = b;
+            neighbors[offsets[b] + fill[b]++] = a;
+        }
+        return new NeighborTable(numSites, offsets, neighbors);
+    }
+}
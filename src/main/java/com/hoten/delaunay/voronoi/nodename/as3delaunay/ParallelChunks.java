@@ -0,0 +1,58 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a body once per chunk of a range, all chunks at once on a fork-join
+ * pool.
+ */
+final class ParallelChunks {
+
+    private ParallelChunks() {
+    }
+
+    /**
+     * The number of chunks to split n items into: one per worker of pool, or
+     * one if pool is null, single threaded or n is below threshold.
+     */
+    static int count(ForkJoinPool pool, int n, int threshold) {
+        return pool != null && pool.getParallelism() > 1 && n >= threshold ? pool.getParallelism() : 1;
+    }
+
+    /**
+     * The first item of chunk, so chunk covers start(chunk) to
+     * start(chunk + 1) - 1.
+     */
+    static int start(int n, int chunk, int chunks) {
+        return (int) ((long) n * chunk / chunks);
+    }
+
+    /**
+     * Calls body with 0 to chunks - 1, on pool unless there is only one
+     * chunk.
+     */
+    static void forEach(ForkJoinPool pool, int chunks, IntConsumer body) {
+        if (chunks == 1) {
+            body.accept(0);
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                RecursiveAction[] tasks = new RecursiveAction[chunks];
+                for (int chunk = 0; chunk < chunks; ++chunk) {
+                    final int c = chunk;
+                    tasks[chunk] = new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            body.accept(c);
+                        }
+                    };
+                }
+                invokeAll(tasks);
+            }
+        });
+    }
+}
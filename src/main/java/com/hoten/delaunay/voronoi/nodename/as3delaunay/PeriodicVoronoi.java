@@ -0,0 +1,409 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.Arrays;
+
+/**
+ * The Voronoi diagram of sites on a torus: the domain wraps around, so that
+ * a site near the right side is a neighbor of the sites near the left side,
+ * and cells that cross a side go on at the other one.
+ *
+ * Only a halo of ghost sites is added around the domain, copies of the sites
+ * within a few site spacings of a side, shifted by the width and height of
+ * the domain. The sites and ghosts are triangulated with KineticVoronoi, and
+ * a site whose triangles' circumcircles do not all fit inside the halo makes
+ * the halo twice as wide and the triangulation start again; that is rare
+ * unless the sites are very uneven, and the halo stops growing at the size
+ * of the domain, where a diagram of a handful of sites may still be off.
+ *
+ * The outputs are numbered like the input sites. In result() each Voronoi
+ * vertex is a point of the domain, met by every cell around it; the clipped
+ * ends of an edge are not clipped, but are its vertices as seen from its
+ * left site, which is on the left of the edge going from the left vertex to
+ * the right one. They may lie outside the domain, by no more than the cell
+ * reaches beyond it. shiftX() and shiftY() tell which copy of the right site
+ * an edge is shared with. Regions are likewise whole, counterclockwise
+ * around their site, and may cross the sides. A site on top of another one
+ * gets no edges and no region.
+ */
+public final class PeriodicVoronoi {
+
+    // how far the halo starts out reaching past the domain, in site spacings
+    private static final double HALO_SPACINGS = 3;
+    // relative to the size of the domain; circumcenters closer than this are one vertex
+    private static final double EPSILON = 1e-9;
+
+    private final Rectangle _domain;
+    private final int _numSites;
+    // x, y per site, wrapped into the domain
+    private final double[] _siteCoords;
+    private double _halo;
+    private int _numGhosts;
+    // per edge: how many widths and heights the right site is shifted by from where the left site sees it
+    private int[] _shifts;
+    private VoronoiResult _result;
+    private NeighborTable _neighborTable;
+    private RegionTable _regionTable;
+
+    /**
+     * @param coords x, y per site; sites outside the domain are wrapped into
+     * it
+     */
+    public PeriodicVoronoi(double[] coords, Rectangle domain) {
+        if (!(domain.width > 0 && domain.height > 0)) {
+            throw new IllegalArgumentException("a periodic domain needs an area; got " + domain.width + " by "
+                    + domain.height);
+        }
+        _domain = domain;
+        _numSites = coords.length / 2;
+        _siteCoords = new double[2 * _numSites];
+        for (int i = 0; i < _numSites; ++i) {
+            _siteCoords[2 * i] = wrap(coords[2 * i], domain.x, domain.width);
+            _siteCoords[2 * i + 1] = wrap(coords[2 * i + 1], domain.y, domain.height);
+        }
+        _halo = HALO_SPACINGS * Math.sqrt(domain.width * domain.height / Math.max(1, _numSites));
+        new Builder().build();
+    }
+
+    private static double wrap(double v, double origin, double period) {
+        double w = v - Math.floor((v - origin) / period) * period;
+        // rounding can land a value just below origin on origin + period
+        return w < origin + period ? w : origin;
+    }
+
+    public Rectangle get_domain() {
+        return _domain;
+    }
+
+    public int get_numSites() {
+        return _numSites;
+    }
+
+    /**
+     * @return how far past the domain the ghost sites reached, in the end
+     */
+    public double get_halo() {
+        return _halo;
+    }
+
+    public int get_numGhosts() {
+        return _numGhosts;
+    }
+
+    /**
+     * @return the sites, wrapped into the domain
+     */
+    public double[] siteCoords() {
+        return _siteCoords.clone();
+    }
+
+    /**
+     * @return the number of domain widths to add to the right site of edge
+     * to get the copy of it the edge is shared with, -1, 0 or 1
+     */
+    public int shiftX(int edge) {
+        return _shifts[2 * edge];
+    }
+
+    public int shiftY(int edge) {
+        return _shifts[2 * edge + 1];
+    }
+
+    /**
+     * @return the diagram, with its clip bounds the domain
+     */
+    public VoronoiResult result() {
+        return _result;
+    }
+
+    /**
+     * @return the neighbors of each site across the sides as well; in a
+     * diagram of very few sites, a site may be listed twice, or be its own
+     * neighbor
+     */
+    public NeighborTable neighborTable() {
+        return _neighborTable;
+    }
+
+    public RegionTable regionTable() {
+        return _regionTable;
+    }
+
+    private final class Builder {
+
+        private final double _x0 = _domain.x, _y0 = _domain.y, _w = _domain.width, _h = _domain.height;
+        private final double _tolerance = EPSILON * (_w + _h);
+        private KineticVoronoi _kinetic;
+        // x, y per site and ghost; the sites come first
+        private double[] _ext;
+        // the site each ghost is a copy of, and the shift, per site and ghost
+        private int[] _ghostOf, _shiftOf;
+        // the neighbors of every site, counterclockwise, as site and shift
+        private int[] _starOffsets, _starSites, _starShifts;
+        // the circumcenter of the triangle of a site and two consecutive neighbors, as the site sees it
+        private double[] _centers;
+        private int[] _vertexOf;
+        private double[] _vertexCoords = new double[16];
+        private int _numVertices;
+
+        void build() {
+            while (!triangulate()) {
+                _halo *= 2;
+            }
+            gatherStars();
+            numberVertices();
+            gatherEdges();
+            gatherRegions();
+        }
+
+        // false if the halo has to grow
+        private boolean triangulate() {
+            double hx = Math.min(_halo, _w), hy = Math.min(_halo, _h);
+            int capacity = 2 * _numSites;
+            _ext = new double[2 * capacity];
+            _ghostOf = new int[capacity];
+            _shiftOf = new int[2 * capacity];
+            System.arraycopy(_siteCoords, 0, _ext, 0, 2 * _numSites);
+            for (int i = 0; i < _numSites; ++i) {
+                _ghostOf[i] = i;
+            }
+            int n = _numSites;
+            for (int i = 0; i < _numSites; ++i) {
+                double x = _siteCoords[2 * i], y = _siteCoords[2 * i + 1];
+                for (int sx = -1; sx <= 1; ++sx) {
+                    double gx = x + sx * _w;
+                    if (gx < _x0 - hx || gx > _x0 + _w + hx) {
+                        continue;
+                    }
+                    for (int sy = -1; sy <= 1; ++sy) {
+                        double gy = y + sy * _h;
+                        if ((sx == 0 && sy == 0) || gy < _y0 - hy || gy > _y0 + _h + hy) {
+                            continue;
+                        }
+                        if (n == _ghostOf.length) {
+                            _ext = Arrays.copyOf(_ext, 4 * n);
+                            _ghostOf = Arrays.copyOf(_ghostOf, 2 * n);
+                            _shiftOf = Arrays.copyOf(_shiftOf, 4 * n);
+                        }
+                        _ext[2 * n] = gx;
+                        _ext[2 * n + 1] = gy;
+                        _ghostOf[n] = i;
+                        _shiftOf[2 * n] = sx;
+                        _shiftOf[2 * n + 1] = sy;
+                        ++n;
+                    }
+                }
+            }
+            _numGhosts = n - _numSites;
+            Rectangle extended = new Rectangle(_x0 - hx, _y0 - hy, _w + 2 * hx, _h + 2 * hy);
+            _kinetic = new KineticVoronoi(Arrays.copyOf(_ext, 2 * n), extended);
+            if (hx == _w && hy == _h) {
+                // every copy next to the domain is in, and more would not help
+                return true;
+            }
+            int[] star = new int[16];
+            for (int s = 0; s < _numSites; ++s) {
+                if (_kinetic.twinOf(s) >= 0) {
+                    continue;
+                }
+                if (_kinetic.onHull(s)) {
+                    return false;
+                }
+                int k = _kinetic.numNeighbors(s);
+                if (star.length < k) {
+                    star = new int[2 * k];
+                }
+                _kinetic.neighborSites(s, star);
+                for (int j = 0; j < k; ++j) {
+                    // a site outside the circumcircle may be left out, so the circle has to be inside the halo
+                    int a = star[j], b = star[(j + 1) % k];
+                    double ux = _ext[2 * a] - _ext[2 * s], uy = _ext[2 * a + 1] - _ext[2 * s + 1];
+                    double vx = _ext[2 * b] - _ext[2 * s], vy = _ext[2 * b + 1] - _ext[2 * s + 1];
+                    double d = 2 * (ux * vy - uy * vx);
+                    double uu = ux * ux + uy * uy, vv = vx * vx + vy * vy;
+                    double cx = (vy * uu - uy * vv) / d, cy = (ux * vv - vx * uu) / d;
+                    double radius = Math.sqrt(cx * cx + cy * cy);
+                    cx += _ext[2 * s];
+                    cy += _ext[2 * s + 1];
+                    if (cx - radius < extended.left || cx + radius > extended.right
+                            || cy - radius < extended.top || cy + radius > extended.bottom) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void gatherStars() {
+            _starOffsets = new int[_numSites + 1];
+            for (int s = 0; s < _numSites; ++s) {
+                _starOffsets[s + 1] = _starOffsets[s] + (_kinetic.twinOf(s) >= 0 ? 0 : _kinetic.numNeighbors(s));
+            }
+            int total = _starOffsets[_numSites];
+            _starSites = new int[total];
+            _starShifts = new int[2 * total];
+            _centers = new double[2 * total];
+            int[] star = new int[16];
+            for (int s = 0; s < _numSites; ++s) {
+                int first = _starOffsets[s];
+                int k = _starOffsets[s + 1] - first;
+                if (k == 0) {
+                    continue;
+                }
+                if (star.length < k) {
+                    star = new int[2 * k];
+                }
+                _kinetic.neighborSites(s, star);
+                for (int j = 0; j < k; ++j) {
+                    int a = star[j];
+                    _starSites[first + j] = _ghostOf[a];
+                    _starShifts[2 * (first + j)] = _shiftOf[2 * a];
+                    _starShifts[2 * (first + j) + 1] = _shiftOf[2 * a + 1];
+                    int b = star[(j + 1) % k];
+                    double ux = _ext[2 * a] - _ext[2 * s], uy = _ext[2 * a + 1] - _ext[2 * s + 1];
+                    double vx = _ext[2 * b] - _ext[2 * s], vy = _ext[2 * b + 1] - _ext[2 * s + 1];
+                    double d = 2 * (ux * vy - uy * vx);
+                    double uu = ux * ux + uy * uy, vv = vx * vx + vy * vy;
+                    _centers[2 * (first + j)] = _ext[2 * s] + (vy * uu - uy * vv) / d;
+                    _centers[2 * (first + j) + 1] = _ext[2 * s + 1] + (ux * vv - vx * uu) / d;
+                }
+            }
+            _kinetic = null;
+            _ext = null;
+        }
+
+        // the same vertex is the circumcenter of a triangle around each of its sites, and of every triangle of cocircular sites
+        private void numberVertices() {
+            int total = _starOffsets[_numSites];
+            _vertexOf = new int[total];
+            double tolerance = _tolerance;
+            long cellsX = (long) (_w / tolerance) + 1, cellsY = (long) (_h / tolerance) + 1;
+            int size = Integer.highestOneBit(Math.max(16, 2 * total)) << 1;
+            long[] keys = new long[size];
+            int[] heads = new int[size];
+            Arrays.fill(heads, -1);
+            int[] next = new int[Math.max(16, total)];
+            for (int i = 0; i < total; ++i) {
+                double x = wrap(_centers[2 * i], _x0, _w), y = wrap(_centers[2 * i + 1], _y0, _h);
+                long gx = Math.min(cellsX - 1, (long) ((x - _x0) / tolerance));
+                long gy = Math.min(cellsY - 1, (long) ((y - _y0) / tolerance));
+                int found = -1;
+                for (int dx = -1; dx <= 1 && found < 0; ++dx) {
+                    for (int dy = -1; dy <= 1 && found < 0; ++dy) {
+                        long key = Math.floorMod(gx + dx, cellsX) * cellsY + Math.floorMod(gy + dy, cellsY);
+                        for (int v = heads[slot(keys, heads, key)]; v >= 0; v = next[v]) {
+                            if (Math.abs(minimumImage(x - _vertexCoords[2 * v], _w)) <= tolerance
+                                    && Math.abs(minimumImage(y - _vertexCoords[2 * v + 1], _h)) <= tolerance) {
+                                found = v;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (found < 0) {
+                    found = _numVertices++;
+                    if (_vertexCoords.length < 2 * _numVertices) {
+                        _vertexCoords = Arrays.copyOf(_vertexCoords, 4 * _numVertices);
+                    }
+                    _vertexCoords[2 * found] = x;
+                    _vertexCoords[2 * found + 1] = y;
+                    int slot = slot(keys, heads, gx * cellsY + gy);
+                    keys[slot] = gx * cellsY + gy;
+                    next[found] = heads[slot];
+                    heads[slot] = found;
+                }
+                _vertexOf[i] = found;
+            }
+        }
+
+        // open addressing: the slot of key, or the empty slot it would go in
+        private int slot(long[] keys, int[] heads, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (heads[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private double minimumImage(double d, double period) {
+            return d - Math.rint(d / period) * period;
+        }
+
+        private void gatherEdges() {
+            int total = _starOffsets[_numSites];
+            // every edge is seen from both of its sites, and kept from the one first in (site, shift) order
+            int[] edges = new int[2 * total];
+            double[] ends = new double[2 * total];
+            int[] shifts = new int[total];
+            int[] pairs = new int[total];
+            int numEdges = 0;
+            for (int s = 0; s < _numSites; ++s) {
+                int first = _starOffsets[s];
+                int k = _starOffsets[s + 1] - first;
+                for (int i = 0; i < k; ++i) {
+                    int p = _starSites[first + i];
+                    int sx = _starShifts[2 * (first + i)], sy = _starShifts[2 * (first + i) + 1];
+                    if (p < s || (p == s && (sx < 0 || (sx == 0 && sy <= 0)))) {
+                        continue;
+                    }
+                    int before = first + (i + k - 1) % k, after = first + i;
+                    if (same(before, after)) {
+                        // cocircular sites, and no edge between them
+                        continue;
+                    }
+                    edges[4 * numEdges] = s;
+                    edges[4 * numEdges + 1] = p;
+                    edges[4 * numEdges + 2] = _vertexOf[before];
+                    edges[4 * numEdges + 3] = _vertexOf[after];
+                    ends[4 * numEdges] = _centers[2 * before];
+                    ends[4 * numEdges + 1] = _centers[2 * before + 1];
+                    ends[4 * numEdges + 2] = _centers[2 * after];
+                    ends[4 * numEdges + 3] = _centers[2 * after + 1];
+                    shifts[2 * numEdges] = sx;
+                    shifts[2 * numEdges + 1] = sy;
+                    pairs[2 * numEdges] = s;
+                    pairs[2 * numEdges + 1] = p;
+                    ++numEdges;
+                }
+            }
+            _shifts = Arrays.copyOf(shifts, 2 * numEdges);
+            // sites keep their input index; one on top of another is a site of its own
+            int[] inputSites = new int[_numSites];
+            for (int i = 0; i < _numSites; ++i) {
+                inputSites[i] = i;
+            }
+            _result = VoronoiResult.create(ConvexPolygon.of(_domain), inputSites, _siteCoords.clone(),
+                    Arrays.copyOf(_vertexCoords, 2 * _numVertices), Arrays.copyOf(edges, 4 * numEdges),
+                    Arrays.copyOf(ends, 4 * numEdges));
+            _neighborTable = NeighborTable.create(_numSites, pairs, numEdges);
+        }
+
+        // whether two circumcenters around one site are the same point; a single site's are all one vertex, but not one point
+        private boolean same(int i, int j) {
+            return _vertexOf[i] == _vertexOf[j] && Math.abs(_centers[2 * i] - _centers[2 * j]) <= _tolerance
+                    && Math.abs(_centers[2 * i + 1] - _centers[2 * j + 1]) <= _tolerance;
+        }
+
+        private void gatherRegions() {
+            int[] offsets = new int[_numSites + 1];
+            double[] coords = new double[2 * _starOffsets[_numSites]];
+            int n = 0;
+            for (int s = 0; s < _numSites; ++s) {
+                int first = _starOffsets[s], last = _starOffsets[s + 1] - 1;
+                for (int j = first; j <= last; ++j) {
+                    // a vertex of cocircular sites comes up once per triangle
+                    int previous = j > first ? j - 1 : last;
+                    if (j == previous || !same(j, previous)) {
+                        coords[2 * n] = _centers[2 * j];
+                        coords[2 * n + 1] = _centers[2 * j + 1];
+                        ++n;
+                    }
+                }
+                offsets[s + 1] = n;
+            }
+            _regionTable = RegionTable.create(offsets, Arrays.copyOf(coords, 2 * n));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Bridson's Poisson-disc sampling: points no closer than a radius to each
+ * other, added around the points already there until no more fit, in time
+ * linear in their number. A background grid of cells a radius / sqrt(2) on a
+ * side, each holding at most one point, answers whether a candidate is too
+ * close.
+ */
+final class PoissonDisc {
+
+    // candidates tried around a point before it is given up on
+    private static final int CANDIDATES = 30;
+    // a full sampling has about 0.62 points per squared radius; this is a little under, so that it overshoots
+    private static final double DENSITY = 0.60;
+
+    // the cells that can hold a point closer than the radius, nearest first; not the corners of the 5 x 5 around it
+    private static final int[] NEAR_COLUMNS = {0, -1, 1, 0, 0, -1, 1, -1, 1, -2, 2, 0, 0, -2, -2, 2, 2, -1, 1, -1, 1};
+    private static final int[] NEAR_ROWS = {0, 0, 0, -1, 1, -1, -1, 1, 1, 0, 0, -2, 2, -1, 1, -1, 1, -2, -2, 2, 2};
+
+    private PoissonDisc() {
+    }
+
+    /**
+     * Exactly numSites points of [0, width) x [0, height): a sampling with the
+     * radius that should give a few more, the points over numSites dropped at
+     * random; with too few, the radius shrinks and it starts again.
+     *
+     * @return x0, y0, x1, y1, ...
+     */
+    static double[] sample(int numSites, double width, double height, Random r) {
+        if (numSites == 0) {
+            return new double[0];
+        }
+        if (!(width > 0 && height > 0)) {
+            throw new IllegalArgumentException("Poisson-disc sampling needs an area; got " + width + " by " + height);
+        }
+        double radius = Math.sqrt(DENSITY * width * height / numSites);
+        while (true) {
+            double[] xy = sample(radius, width, height, r);
+            int n = xy.length / 2;
+            if (n >= numSites) {
+                // a partial Fisher-Yates shuffle picks the points to keep
+                for (int i = 0; i < numSites; ++i) {
+                    int j = i + r.nextInt(n - i);
+                    double x = xy[2 * i], y = xy[2 * i + 1];
+                    xy[2 * i] = xy[2 * j];
+                    xy[2 * i + 1] = xy[2 * j + 1];
+                    xy[2 * j] = x;
+                    xy[2 * j + 1] = y;
+                }
+                return Arrays.copyOf(xy, 2 * numSites);
+            }
+            radius *= Math.sqrt((double) n / numSites) * .99;
+        }
+    }
+
+    /**
+     * @return as many points as fit, x0, y0, x1, y1, ...
+     */
+    static double[] sample(double radius, double width, double height, Random random) {
+        // millions of draws; Random's atomic seed would take most of the time
+        SplittableRandom r = new SplittableRandom(random.nextLong());
+        double cell = radius / Math.sqrt(2);
+        int columns = Math.max(1, (int) Math.ceil(width / cell));
+        int rows = Math.max(1, (int) Math.ceil(height / cell));
+        // the point in each cell, or -1
+        int[] grid = new int[columns * rows];
+        Arrays.fill(grid, -1);
+        double[] xy = new double[2 * Math.max(16, (int) (width * height / (radius * radius)))];
+        int[] active = new int[xy.length / 2];
+        int n = 0, numActive = 0;
+        double radiusSquared = radius * radius;
+
+        xy[0] = r.nextDouble() * width;
+        xy[1] = r.nextDouble() * height;
+        grid[cellOf(xy[0], xy[1], cell, columns, rows)] = 0;
+        active[numActive++] = n++;
+        while (numActive > 0) {
+            int a = r.nextInt(numActive);
+            int p = active[a];
+            boolean placed = false;
+            for (int k = 0; k < CANDIDATES; ++k) {
+                // uniform over the ring from radius to twice the radius, picked from the square around it
+                double dx, dy, d;
+                do {
+                    dx = (4 * r.nextDouble() - 2) * radius;
+                    dy = (4 * r.nextDouble() - 2) * radius;
+                    d = dx * dx + dy * dy;
+                } while (d < radiusSquared || d > 4 * radiusSquared);
+                double x = xy[2 * p] + dx;
+                double y = xy[2 * p + 1] + dy;
+                if (!(x >= 0 && x < width && y >= 0 && y < height)
+                        || crowded(x, y, xy, grid, cell, columns, rows, radiusSquared)) {
+                    continue;
+                }
+                if (2 * n == xy.length) {
+                    xy = Arrays.copyOf(xy, 2 * xy.length);
+                    active = Arrays.copyOf(active, 2 * active.length);
+                }
+                xy[2 * n] = x;
+                xy[2 * n + 1] = y;
+                grid[cellOf(x, y, cell, columns, rows)] = n;
+                active[numActive++] = n++;
+                placed = true;
+                break;
+            }
+            if (!placed) {
+                active[a] = active[--numActive];
+            }
+        }
+        return Arrays.copyOf(xy, 2 * n);
+    }
+
+    private static int cellOf(double x, double y, double cell, int columns, int rows) {
+        int column = Math.min(columns - 1, (int) (x / cell));
+        int row = Math.min(rows - 1, (int) (y / cell));
+        return row * columns + column;
+    }
+
+    // whether some point is closer than the radius to (x, y); those are at most two cells away, and the nearest
+    // cells, which most candidates that fail fail on, are looked at first
+    private static boolean crowded(double x, double y, double[] xy, int[] grid, double cell, int columns, int rows,
+            double radiusSquared) {
+        int column = Math.min(columns - 1, (int) (x / cell));
+        int row = Math.min(rows - 1, (int) (y / cell));
+        for (int k = 0; k < NEAR_COLUMNS.length; ++k) {
+            int i = column + NEAR_COLUMNS[k], j = row + NEAR_ROWS[k];
+            if (i < 0 || i >= columns || j < 0 || j >= rows) {
+                continue;
+            }
+            int q = grid[j * columns + i];
+            if (q >= 0) {
+                double dx = xy[2 * q] - x, dy = xy[2 * q + 1] - y;
+                if (dx * dx + dy * dy < radiusSquared) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
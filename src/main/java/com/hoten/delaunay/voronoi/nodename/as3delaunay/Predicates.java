@@ -0,0 +1,72 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.math.BigDecimal;
+
+/**
+ * Exact orientation and circle tests. They work in doubles and only fall back
+ * to exact arithmetic when the result is too close to 0 for rounding to be
+ * ruled out, so near-cocircular and near-collinear sites get answers that
+ * agree with each other.
+ */
+final class Predicates {
+
+    // how far off orient() and inCircle() in doubles can be, relative to the sizes of their terms (Shewchuk)
+    private static final double EPSILON = Math.ulp(1.0) / 2;
+    private static final double ORIENT_BOUND = (3 + 16 * EPSILON) * EPSILON;
+    private static final double IN_CIRCLE_BOUND = (10 + 96 * EPSILON) * EPSILON;
+
+    private Predicates() {
+    }
+
+    /**
+     * @return twice the signed area of a, b, c: positive if they turn
+     * counterclockwise, 0 exactly when they are collinear
+     */
+    static double orient(double ax, double ay, double bx, double by, double cx, double cy) {
+        double left = (bx - ax) * (cy - ay), right = (by - ay) * (cx - ax);
+        double det = left - right;
+        double bound = ORIENT_BOUND * (Math.abs(left) + Math.abs(right));
+        if (det > bound || -det > bound) {
+            return det;
+        }
+        BigDecimal exact = exact(bx, ax).multiply(exact(cy, ay)).subtract(exact(by, ay).multiply(exact(cx, ax)));
+        return exact.signum();
+    }
+
+    /**
+     * @return positive if d is inside the circumcircle of counterclockwise
+     * a, b, c, negative if outside, 0 exactly when on it
+     */
+    static double inCircle(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+        double adx = ax - dx, ady = ay - dy;
+        double bdx = bx - dx, bdy = by - dy;
+        double cdx = cx - dx, cdy = cy - dy;
+        double alift = adx * adx + ady * ady;
+        double blift = bdx * bdx + bdy * bdy;
+        double clift = cdx * cdx + cdy * cdy;
+        double det = alift * (bdx * cdy - cdx * bdy) + blift * (cdx * ady - adx * cdy)
+                + clift * (adx * bdy - bdx * ady);
+        double permanent = alift * (Math.abs(bdx * cdy) + Math.abs(cdx * bdy))
+                + blift * (Math.abs(cdx * ady) + Math.abs(adx * cdy))
+                + clift * (Math.abs(adx * bdy) + Math.abs(bdx * ady));
+        double bound = IN_CIRCLE_BOUND * permanent;
+        if (det > bound || -det > bound) {
+            return det;
+        }
+        BigDecimal eadx = exact(ax, dx), eady = exact(ay, dy);
+        BigDecimal ebdx = exact(bx, dx), ebdy = exact(by, dy);
+        BigDecimal ecdx = exact(cx, dx), ecdy = exact(cy, dy);
+        BigDecimal ealift = eadx.multiply(eadx).add(eady.multiply(eady));
+        BigDecimal eblift = ebdx.multiply(ebdx).add(ebdy.multiply(ebdy));
+        BigDecimal eclift = ecdx.multiply(ecdx).add(ecdy.multiply(ecdy));
+        BigDecimal exact = ealift.multiply(ebdx.multiply(ecdy).subtract(ecdx.multiply(ebdy)))
+                .add(eblift.multiply(ecdx.multiply(eady).subtract(eadx.multiply(ecdy))))
+                .add(eclift.multiply(eadx.multiply(ebdy).subtract(ebdx.multiply(eady))));
+        return exact.signum();
+    }
+
+    // p - q with nothing rounded off
+    private static BigDecimal exact(double p, double q) {
+        return new BigDecimal(p).subtract(new BigDecimal(q));
+    }
+}
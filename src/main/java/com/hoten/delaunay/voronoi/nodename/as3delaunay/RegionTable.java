@@ -0,0 +1,283 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import com.hoten.delaunay.geom.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The clipped region of every site of a VoronoiResult, as one flat table.
+ *
+ * The region of site s is the counterclockwise polygon of points offsets[s]
+ * to offsets[s + 1] - 1, point i being (coords[2i], coords[2i + 1]). Sites
+ * whose region lies outside the bounds get no points.
+ *
+ * Each region is gathered from the clipped ends of the site's edges plus the
+ * corners of the clip bounds that are nearer to the site than to any neighbor,
+ * and then sorted by direction from their mean. That needs no edge chaining,
+ * and the corners come out right however much of the bounds a region takes.
+ */
+public final class RegionTable {
+
+    // relative to the size of the bounds; ends closer than that are one point
+    final private static double EPSILON = 1e-10;
+    // below this, splitting the sites over a pool costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    // regions with more points than this are sorted with Arrays.sort
+    private static final int INSERTION_SORT_MAX = 32;
+
+    public final int numSites;
+    public final int[] offsets;
+    // x, y per point
+    public final double[] coords;
+
+    private RegionTable(int numSites, int[] offsets, double[] coords) {
+        this.numSites = numSites;
+        this.offsets = offsets;
+        this.coords = coords;
+    }
+
+    public int size(int site) {
+        return offsets[site + 1] - offsets[site];
+    }
+
+    public ArrayList<Point> region(int site) {
+        ArrayList<Point> points = new ArrayList(size(site));
+        for (int i = offsets[site]; i < offsets[site + 1]; ++i) {
+            points.add(new Point(coords[2 * i], coords[2 * i + 1]));
+        }
+        return points;
+    }
+
+    /**
+     * A table of regions gathered elsewhere, as PeriodicVoronoi does; the
+     * arrays are kept, not copied.
+     */
+    static RegionTable create(int[] offsets, double[] coords) {
+        return new RegionTable(offsets.length - 1, offsets, coords);
+    }
+
+    /**
+     * @param result needs its clipped ends
+     * @param pool to split the sites over, or null to build sequentially
+     */
+    public static RegionTable create(VoronoiResult result, ForkJoinPool pool) {
+        return new Builder(result).build(pool);
+    }
+
+    private static final class Builder {
+
+        private final VoronoiResult _result;
+        private final int _numSites;
+        private final ConvexPolygon _clipBounds;
+        private final int _numCorners;
+        private final double _epsilon;
+        // the edges of site s are _siteEdges[_siteEdgeOffsets[s]] to _siteEdges[_siteEdgeOffsets[s + 1] - 1]
+        private final int[] _siteEdgeOffsets;
+        private final int[] _siteEdges;
+        // every site gets room for both ends of its edges and all the corners
+        private final int[] _scratchOffsets;
+        private final double[] _scratch;
+        private final int[] _counts;
+
+        Builder(VoronoiResult result) {
+            _result = result;
+            _numSites = result.numSites;
+            _clipBounds = result.clipBounds;
+            _numCorners = _clipBounds.numCorners();
+            _epsilon = EPSILON * (result.bounds.width + result.bounds.height);
+
+            int[] edges = result.edges;
+            _siteEdgeOffsets = new int[_numSites + 1];
+            for (int e = 0; e < result.numEdges; ++e) {
+                _siteEdgeOffsets[edges[4 * e] + 1]++;
+                _siteEdgeOffsets[edges[4 * e + 1] + 1]++;
+            }
+            for (int s = 0; s < _numSites; ++s) {
+                _siteEdgeOffsets[s + 1] += _siteEdgeOffsets[s];
+            }
+            _siteEdges = new int[2 * result.numEdges];
+            int[] fill = Arrays.copyOf(_siteEdgeOffsets, _numSites);
+            for (int e = 0; e < result.numEdges; ++e) {
+                _siteEdges[fill[edges[4 * e]]++] = e;
+                _siteEdges[fill[edges[4 * e + 1]]++] = e;
+            }
+
+            _scratchOffsets = new int[_numSites + 1];
+            for (int s = 0; s < _numSites; ++s) {
+                _scratchOffsets[s + 1] = _scratchOffsets[s]
+                        + 2 * (_siteEdgeOffsets[s + 1] - _siteEdgeOffsets[s]) + _numCorners;
+            }
+            _scratch = new double[2 * _scratchOffsets[_numSites]];
+            _counts = new int[_numSites];
+        }
+
+        RegionTable build(ForkJoinPool pool) {
+            int chunks = ParallelChunks.count(pool, _numSites, PARALLEL_THRESHOLD);
+            ParallelChunks.forEach(pool, chunks, (chunk) -> {
+                double[] angles = new double[16];
+                for (int s = ParallelChunks.start(_numSites, chunk, chunks);
+                        s < ParallelChunks.start(_numSites, chunk + 1, chunks); ++s) {
+                    int n = _scratchOffsets[s + 1] - _scratchOffsets[s];
+                    if (angles.length < n) {
+                        angles = new double[n];
+                    }
+                    _counts[s] = gather(s, angles);
+                }
+            });
+
+            int[] offsets = new int[_numSites + 1];
+            for (int s = 0; s < _numSites; ++s) {
+                offsets[s + 1] = offsets[s] + _counts[s];
+            }
+            double[] coords = new double[2 * offsets[_numSites]];
+            ParallelChunks.forEach(pool, chunks, (chunk) -> {
+                for (int s = ParallelChunks.start(_numSites, chunk, chunks);
+                        s < ParallelChunks.start(_numSites, chunk + 1, chunks); ++s) {
+                    System.arraycopy(_scratch, 2 * _scratchOffsets[s], coords, 2 * offsets[s], 2 * _counts[s]);
+                }
+            });
+            return new RegionTable(_numSites, offsets, coords);
+        }
+
+        /**
+         * Writes the region of site to its part of _scratch.
+         *
+         * @return the number of points
+         */
+        private int gather(int site, double[] angles) {
+            double[] ends = _result.clippedEnds;
+            int base = 2 * _scratchOffsets[site];
+            int n = 0;
+            // a region that reaches no border of the bounds cannot hold a corner
+            boolean border = _siteEdgeOffsets[site] == _siteEdgeOffsets[site + 1];
+            for (int k = _siteEdgeOffsets[site]; k < _siteEdgeOffsets[site + 1]; ++k) {
+                int e = _siteEdges[k];
+                if (Double.isNaN(ends[4 * e])) {
+                    border = true;
+                } else {
+                    System.arraycopy(ends, 4 * e, _scratch, base + 2 * n, 4);
+                    n += 2;
+                    border = border || onBorder(ends[4 * e], ends[4 * e + 1])
+                            || onBorder(ends[4 * e + 2], ends[4 * e + 3]);
+                }
+            }
+            for (int c = 0; c < _numCorners && border; ++c) {
+                double x = _clipBounds.cornerX(c);
+                double y = _clipBounds.cornerY(c);
+                if (nearest(site, x, y)) {
+                    _scratch[base + 2 * n] = x;
+                    _scratch[base + 2 * n + 1] = y;
+                    ++n;
+                }
+            }
+            if (n == 0) {
+                return 0;
+            }
+
+            double cx = 0, cy = 0;
+            for (int i = 0; i < n; ++i) {
+                cx += _scratch[base + 2 * i];
+                cy += _scratch[base + 2 * i + 1];
+            }
+            cx /= n;
+            cy /= n;
+            for (int i = 0; i < n; ++i) {
+                angles[i] = pseudoAngle(_scratch[base + 2 * i] - cx, _scratch[base + 2 * i + 1] - cy);
+            }
+            sortByAngle(base, n, angles);
+
+            // neighboring edges share their ends, and corners can be ends too
+            int kept = 1;
+            for (int i = 1; i < n; ++i) {
+                double x = _scratch[base + 2 * i];
+                double y = _scratch[base + 2 * i + 1];
+                if (!closeEnough(_scratch[base + 2 * kept - 2], _scratch[base + 2 * kept - 1], x, y, _epsilon)) {
+                    _scratch[base + 2 * kept] = x;
+                    _scratch[base + 2 * kept + 1] = y;
+                    ++kept;
+                }
+            }
+            if (kept > 1 && closeEnough(_scratch[base], _scratch[base + 1],
+                    _scratch[base + 2 * kept - 2], _scratch[base + 2 * kept - 1], _epsilon)) {
+                --kept;
+            }
+            return kept;
+        }
+
+        // clipping puts the ends it moves on the border, exactly for a Rectangle
+        private boolean onBorder(double x, double y) {
+            return _clipBounds.liesOnBorder(x, y, _epsilon);
+        }
+
+        // whether (x, y) is no farther from site than from any of its neighbors
+        private boolean nearest(int site, double x, double y) {
+            double[] sites = _result.siteCoords;
+            int[] edges = _result.edges;
+            double d = distanceSquared(sites, site, x, y);
+            for (int k = _siteEdgeOffsets[site]; k < _siteEdgeOffsets[site + 1]; ++k) {
+                int e = _siteEdges[k];
+                int neighbor = edges[4 * e] == site ? edges[4 * e + 1] : edges[4 * e];
+                if (distanceSquared(sites, neighbor, x, y) < d) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void sortByAngle(int base, int n, double[] angles) {
+            if (n <= INSERTION_SORT_MAX) {
+                for (int i = 1; i < n; ++i) {
+                    double angle = angles[i];
+                    double x = _scratch[base + 2 * i];
+                    double y = _scratch[base + 2 * i + 1];
+                    int j = i - 1;
+                    while (j >= 0 && angles[j] > angle) {
+                        angles[j + 1] = angles[j];
+                        _scratch[base + 2 * j + 2] = _scratch[base + 2 * j];
+                        _scratch[base + 2 * j + 3] = _scratch[base + 2 * j + 1];
+                        --j;
+                    }
+                    angles[j + 1] = angle;
+                    _scratch[base + 2 * j + 2] = x;
+                    _scratch[base + 2 * j + 3] = y;
+                }
+                return;
+            }
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; ++i) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(angles[a], angles[b]));
+            double[] sorted = new double[2 * n];
+            for (int i = 0; i < n; ++i) {
+                sorted[2 * i] = _scratch[base + 2 * order[i]];
+                sorted[2 * i + 1] = _scratch[base + 2 * order[i] + 1];
+            }
+            System.arraycopy(sorted, 0, _scratch, base, 2 * n);
+        }
+    }
+
+    /**
+     * A number in [0, 4) that orders directions like atan2(dy, dx) does, only
+     * much cheaper.
+     */
+    private static double pseudoAngle(double dx, double dy) {
+        double p = dy / (Math.abs(dx) + Math.abs(dy));
+        if (dx < 0) {
+            return 2 - p;
+        }
+        return dy < 0 ? 4 + p : p;
+    }
+
+    private static double distanceSquared(double[] coords, int i, double x, double y) {
+        double dx = coords[2 * i] - x;
+        double dy = coords[2 * i + 1] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static boolean closeEnough(double x0, double y0, double x1, double y1, double epsilon) {
+        return Math.abs(x1 - x0) <= epsilon && Math.abs(y1 - y0) <= epsilon;
+    }
+}
@@ -0,0 +1,160 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import com.hoten.delaunay.geom.Point;
+import java.util.ArrayList;
+
+/**
+ * Turns what the sweep does into IVoronoiSink events.
+ *
+ * An edge is complete once both its vertices are set, or at the end of the
+ * sweep. A site is finished once none of its arcs is left on the beach line,
+ * so that it cannot get new edges, and all its edges are complete. For that
+ * it counts arcs and incomplete edges per site.
+ *
+ * Unless the objects are retained, a completed edge is taken off its sites
+ * and disposed right after it is emitted, so the sweep keeps reusing the
+ * same few Edge objects.
+ */
+final class SinkDispatcher {
+
+    private final IVoronoiSink _sink;
+    private final ConvexPolygon _bounds;
+    private final int _vertexBase;
+    private final boolean _retain;
+    private final int[] _arcs;
+    private final int[] _openEdges;
+    private final boolean[] _finished;
+    private final double[] _ends = new double[4];
+
+    SinkDispatcher(IVoronoiSink sink, ConvexPolygon bounds, int vertexBase, int numSites, boolean retain) {
+        _sink = sink;
+        _bounds = bounds;
+        _vertexBase = vertexBase;
+        _retain = retain;
+        _arcs = new int[numSites];
+        _openEdges = new int[numSites];
+        _finished = new boolean[numSites];
+    }
+
+    void arcAdded(Site site) {
+        _arcs[site.get_siteIndex()]++;
+    }
+
+    void arcRemoved(Site site) {
+        _arcs[site.get_siteIndex()]--;
+        finishIfDone(site);
+    }
+
+    void edgeCreated(Edge edge) {
+        _openEdges[edge.get_leftSite().get_siteIndex()]++;
+        _openEdges[edge.get_rightSite().get_siteIndex()]++;
+    }
+
+    void vertexCreated(Vertex vertex) {
+        _sink.vertexCreated(vertex.get_vertexIndex() - _vertexBase, vertex.get_x(), vertex.get_y());
+    }
+
+    /**
+     * Call after setting a vertex of edge; completes it if that was the
+     * second one.
+     */
+    void vertexSet(Edge edge) {
+        if (edge.get_leftVertex() != null && edge.get_rightVertex() != null) {
+            complete(edge);
+        }
+    }
+
+    /**
+     * Complete the edges left on the beach line, which extend to infinity,
+     * then finish the sites that are still open.
+     */
+    void finishSweep(EdgeList edgeList, SiteList sites) {
+        Halfedge halfEdge = edgeList.leftEnd.edgeListRightNeighbor;
+        while (halfEdge != edgeList.rightEnd) {
+            Halfedge next = halfEdge.edgeListRightNeighbor;
+            Edge edge = halfEdge.edge;
+            // an edge without vertices is on the beach line twice
+            if (edge.get_leftVertex() != null || edge.get_rightVertex() != null
+                    || halfEdge.leftRight == LR.LEFT) {
+                complete(edge);
+            }
+            halfEdge = next;
+        }
+        finishAll(sites);
+    }
+
+    /**
+     * Emit a diagram that was built some other way.
+     */
+    void replay(ArrayList<Edge> edges, SiteList sites, int numVertices) {
+        boolean[] emitted = new boolean[numVertices];
+        for (Edge edge : edges) {
+            edgeCreated(edge);
+        }
+        for (Edge edge : edges) {
+            for (Vertex vertex : new Vertex[]{edge.get_leftVertex(), edge.get_rightVertex()}) {
+                if (vertex != null && !emitted[vertex.get_vertexIndex() - _vertexBase]) {
+                    emitted[vertex.get_vertexIndex() - _vertexBase] = true;
+                    vertexCreated(vertex);
+                }
+            }
+            complete(edge);
+        }
+        finishAll(sites);
+    }
+
+    private void finishAll(SiteList sites) {
+        for (int i = 0; i < sites.get_length(); ++i) {
+            if (!_finished[i]) {
+                _finished[i] = true;
+                Site site = sites.get(i);
+                _sink.siteFinished(i, site.get_x(), site.get_y());
+            }
+        }
+    }
+
+    private void complete(Edge edge) {
+        if (_retain) {
+            edge.clipVertices(_bounds);
+            if (edge.get_visible()) {
+                Point left = edge.clippedEnd(LR.LEFT);
+                Point right = edge.clippedEnd(LR.RIGHT);
+                _ends[0] = left.x;
+                _ends[1] = left.y;
+                _ends[2] = right.x;
+                _ends[3] = right.y;
+            } else {
+                _ends[0] = _ends[1] = _ends[2] = _ends[3] = Double.NaN;
+            }
+        } else if (!edge.clipVertices(_bounds, _ends, 0)) {
+            _ends[0] = _ends[1] = _ends[2] = _ends[3] = Double.NaN;
+        }
+        Site left = edge.get_leftSite();
+        Site right = edge.get_rightSite();
+        _sink.edgeCompleted(left.get_siteIndex(), right.get_siteIndex(),
+                vertexIndex(edge.get_leftVertex()), vertexIndex(edge.get_rightVertex()),
+                _ends[0], _ends[1], _ends[2], _ends[3]);
+        if (!_retain) {
+            left.removeEdge(edge);
+            right.removeEdge(edge);
+            edge.dispose();
+        }
+        _openEdges[left.get_siteIndex()]--;
+        _openEdges[right.get_siteIndex()]--;
+        finishIfDone(left);
+        finishIfDone(right);
+    }
+
+    private int vertexIndex(Vertex vertex) {
+        return vertex == null ? -1 : vertex.get_vertexIndex() - _vertexBase;
+    }
+
+    private void finishIfDone(Site site) {
+        int i = site.get_siteIndex();
+        if (_arcs[i] == 0 && _openEdges[i] == 0 && !_finished[i]) {
+            _finished[i] = true;
+            _sink.siteFinished(i, site.get_x(), site.get_y());
+        }
+    }
+}
@@ -1,93 +1,102 @@
 package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 
+import com.hoten.delaunay.geom.ConvexPolygon;
 import com.hoten.delaunay.geom.Point;
 import com.hoten.delaunay.geom.Rectangle;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Stack;
 
 public final class Site implements ICoord {
 
-    private static Stack<Site> _pool = new Stack();
+    public static Site create(BuildContext context, Point p, int index, double weight, Color color) {
+        Site site = create(context, p.x, p.y, index, weight, color);
+        site._coord = p;
+        return site;
+    }
 
-    public static Site create(Point p, int index, double weight, Color color) {
-        if (_pool.size() > 0) {
-            return _pool.pop().init(p, index, weight, color);
+    /**
+     * A Site without a Point; get_coord() makes one the first time it is
+     * called.
+     */
+    static Site create(BuildContext context, double x, double y, int index, double weight, Color color) {
+        if (context.sitePool.size() > 0) {
+            return context.sitePool.pop().init(x, y, index, weight, color);
         } else {
-            return new Site(p, index, weight, color);
+            return new Site(context, x, y, index, weight, color);
         }
     }
 
-    public static void sortSites(ArrayList<Site> sites) {
-        //sites.sort(Site.compare);
-        Collections.sort(sites, new Comparator<Site>() {
-            @Override
-            public int compare(Site o1, Site o2) {
-                return (int) Site.compare(o1, o2);
-            }
-        });
-    }
-
     /**
-     * sort sites on y, then x, coord also change each site's _siteIndex to
-     * match its new position in the list so the _siteIndex can be used to
-     * identify the site for nearest-neighbor queries
-     *
-     * haha "also" - means more than one responsibility...
-     *
+     * sort sites on y, then x; see SiteSorter. Their _siteIndex values are
+     * left alone, SiteList.sort() settles them afterwards
      */
-    private static double compare(Site s1, Site s2) {
-        int returnValue = Voronoi.compareByYThenX(s1, s2);
-
-        // swap _siteIndex values if necessary to match new ordering:
-        int tempIndex;
-        if (returnValue == -1) {
-            if (s1._siteIndex > s2._siteIndex) {
-                tempIndex = s1._siteIndex;
-                s1._siteIndex = s2._siteIndex;
-                s2._siteIndex = tempIndex;
-            }
-        } else if (returnValue == 1) {
-            if (s2._siteIndex > s1._siteIndex) {
-                tempIndex = s2._siteIndex;
-                s2._siteIndex = s1._siteIndex;
-                s1._siteIndex = tempIndex;
-            }
-
-        }
-
-        return returnValue;
+    public static void sortSites(ArrayList<Site> sites) {
+        SiteSorter.sort(sites, null);
     }
+
     final private static double EPSILON = .005;
 
     private static boolean closeEnough(Point p0, Point p1) {
         return Point.distance(p0, p1) < EPSILON;
     }
+    private double _x, _y;
     private Point _coord;
 
     @Override
     public Point get_coord() {
+        if (_coord == null) {
+            _coord = new Point(_x, _y);
+        }
         return _coord;
     }
     public Color color;
     public double weight;
     private int _siteIndex;
+
+    /**
+     * @return the position of this Site in y, then x order once the sites
+     * have been sorted; its position in the input before that
+     */
+    public int get_siteIndex() {
+        return _siteIndex;
+    }
+
+    void set_siteIndex(int index) {
+        _siteIndex = index;
+    }
+    // the position of this Site in the input, or -1 for one inserted later
+    private int _inputIndex;
+
+    int get_inputIndex() {
+        return _inputIndex;
+    }
     // the edges that define this Site's Voronoi region:
     public ArrayList<Edge> _edges;
     // which end of each edge hooks up with the previous edge in _edges:
     private ArrayList<LR> _edgeOrientations;
     // ordered list of points that define the region clipped to bounds:
     private ArrayList<Point> _region;
+    // the arena this Site returns to when disposed
+    private final BuildContext _context;
 
-    public Site(Point p, int index, double weight, Color color) {
-        init(p, index, weight, color);
+    public Site(BuildContext context, Point p, int index, double weight, Color color) {
+        this(context, p.x, p.y, index, weight, color);
+        _coord = p;
     }
 
-    private Site init(Point p, int index, double weight, Color color) {
-        _coord = p;
+    private Site(BuildContext context, double x, double y, int index, double weight, Color color) {
+        _context = context;
+        init(x, y, index, weight, color);
+    }
+
+    private Site init(double x, double y, int index, double weight, Color color) {
+        _x = x;
+        _y = y;
+        _coord = null;
         _siteIndex = index;
+        _inputIndex = index;
         this.weight = weight;
         this.color = color;
         _edges = new ArrayList();
@@ -102,13 +111,15 @@ public final class Site implements ICoord {
 
     private void move(Point p) {
         clear();
+        _x = p.x;
+        _y = p.y;
         _coord = p;
     }
 
     public void dispose() {
         _coord = null;
         clear();
-        _pool.push(this);
+        _context.sitePool.push(this);
     }
 
     private void clear() {
@@ -130,6 +141,19 @@ public final class Site implements ICoord {
         _edges.add(edge);
     }
 
+    void removeEdge(Edge edge) {
+        _edges.remove(edge);
+    }
+
+    /**
+     * Forget the order of the edges and the region, once an edit has changed
+     * the edges.
+     */
+    void edgesChanged() {
+        _edgeOrientations = null;
+        _region = null;
+    }
+
     public Edge nearestEdge() {
         // _edges.sort(Edge.compareSitesDistances);
         Collections.sort(_edges, new Comparator<Edge>() {
@@ -165,18 +189,28 @@ public final class Site implements ICoord {
         return null;
     }
 
-    ArrayList<Point> region(Rectangle clippingBounds) {
+    /**
+     * @param cache whether to keep the region for the next call
+     */
+    ArrayList<Point> region(ConvexPolygon clippingBounds, boolean cache) {
         if (_edges == null || _edges.isEmpty()) {
             return new ArrayList();
         }
         if (_edgeOrientations == null) {
             reorderEdges();
-            _region = clipToBounds(clippingBounds);
-            if ((new Polygon(_region)).winding() == Winding.CLOCKWISE) {
-                Collections.reverse(_region);
-            }
+        } else if (_region != null) {
+            return _region;
+        }
+        ArrayList<Point> region = clippingBounds.asRectangle() != null
+                ? clipToBounds(clippingBounds.asRectangle())
+                : clipToBounds(clippingBounds);
+        if ((new Polygon(region)).winding() == Winding.CLOCKWISE) {
+            Collections.reverse(region);
+        }
+        if (cache) {
+            _region = region;
         }
-        return _region;
+        return region;
     }
 
     private void reorderEdges() {
@@ -203,8 +237,8 @@ public final class Site implements ICoord {
         }
         edge = _edges.get(i);
         LR orientation = _edgeOrientations.get(i);
-        points.add(edge.get_clippedEnds().get(orientation));
-        points.add(edge.get_clippedEnds().get((LR.other(orientation))));
+        points.add(edge.clippedEnd(orientation));
+        points.add(edge.clippedEnd(LR.other(orientation)));
 
         for (int j = i + 1; j < n; ++j) {
             edge = _edges.get(j);
@@ -219,12 +253,86 @@ public final class Site implements ICoord {
         return points;
     }
 
+    private ArrayList<Point> clipToBounds(ConvexPolygon bounds) {
+        ArrayList<Point> points = new ArrayList();
+        // the border has to be followed the same way as the edges go around the site
+        boolean counterclockwise = edgesCounterclockwise();
+        Point last = null;
+        for (int j = 0; j < _edges.size(); ++j) {
+            Edge edge = _edges.get(j);
+            if (edge.get_visible() == false) {
+                continue;
+            }
+            LR orientation = _edgeOrientations.get(j);
+            Point start = edge.clippedEnd(orientation);
+            Point end = edge.clippedEnd(LR.other(orientation));
+            if (last == null) {
+                points.add(start);
+            } else if (!closeEnough(last, start)) {
+                // both were clipped at the border
+                followBorder(points, bounds, last, start, counterclockwise);
+                points.add(start);
+            }
+            if (!closeEnough(points.get(points.size() - 1), end) && !closeEnough(points.get(0), end)) {
+                points.add(end);
+            }
+            last = end;
+        }
+        if (last != null && !closeEnough(last, points.get(0))) {
+            followBorder(points, bounds, last, points.get(0), counterclockwise);
+        }
+        return points;
+    }
+
+    /**
+     * The site is on the left of its edges if they go around it
+     * counterclockwise. Only an edge whose clipped ends are apart tells: where
+     * four or more sites are cocircular, as on a grid, an edge can have no
+     * length at all.
+     */
+    private boolean edgesCounterclockwise() {
+        for (int j = 0; j < _edges.size(); ++j) {
+            Edge edge = _edges.get(j);
+            if (edge.get_visible() == false) {
+                continue;
+            }
+            LR orientation = _edgeOrientations.get(j);
+            Point start = edge.clippedEnd(orientation);
+            Point end = edge.clippedEnd(LR.other(orientation));
+            if (!closeEnough(start, end)) {
+                return (end.x - start.x) * (_y - start.y) - (end.y - start.y) * (_x - start.x) > 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the corners of bounds passed going from one point on its border to
+     * another. Two points on the same side need no corner, as the region is
+     * convex.
+     */
+    private static void followBorder(ArrayList<Point> points, ConvexPolygon bounds, Point from, Point to,
+            boolean counterclockwise) {
+        int n = bounds.numCorners();
+        int side = bounds.side(from.x, from.y);
+        int lastSide = bounds.side(to.x, to.y);
+        while (side != lastSide) {
+            int c = counterclockwise ? (side + 1) % n : side;
+            Point corner = new Point(bounds.cornerX(c), bounds.cornerY(c));
+            // an end on a corner may be taken to lie on either side of it
+            if (!closeEnough(points.get(points.size() - 1), corner) && !closeEnough(corner, to)) {
+                points.add(corner);
+            }
+            side = counterclockwise ? (side + 1) % n : (side + n - 1) % n;
+        }
+    }
+
     private void connect(ArrayList<Point> points, int j, Rectangle bounds, boolean closingUp) {
         Point rightPoint = points.get(points.size() - 1);
         Edge newEdge = _edges.get(j);
         LR newOrientation = _edgeOrientations.get(j);
         // the point that  must be connected to rightPoint:
-        Point newPoint = newEdge.get_clippedEnds().get(newOrientation);
+        Point newPoint = newEdge.clippedEnd(newOrientation);
         if (!closeEnough(rightPoint, newPoint)) {
             // The points do not coincide, so they must have been clipped at the bounds;
             // see if they are on the same border of the bounds:
@@ -314,22 +422,23 @@ public final class Site implements ICoord {
             }
             points.add(newPoint);
         }
-        Point newRightPoint = newEdge.get_clippedEnds().get(LR.other(newOrientation));
+        Point newRightPoint = newEdge.clippedEnd(LR.other(newOrientation));
         if (!closeEnough(points.get(0), newRightPoint)) {
             points.add(newRightPoint);
         }
     }
 
     public double get_x() {
-        return _coord.x;
+        return _x;
     }
 
     public double get_y() {
-        return _coord.y;
+        return _y;
     }
 
     public double dist(ICoord p) {
-        return Point.distance(p.get_coord(), this._coord);
+        Point coord = p.get_coord();
+        return Math.sqrt((coord.x - _x) * (coord.x - _x) + (coord.y - _y) * (coord.y - _y));
     }
 }
 
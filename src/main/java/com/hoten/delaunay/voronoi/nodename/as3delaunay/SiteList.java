@@ -3,15 +3,22 @@ package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 import com.hoten.delaunay.geom.Point;
 import com.hoten.delaunay.geom.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 public final class SiteList implements IDisposable {
 
     private ArrayList<Site> _sites;
+    // exact duplicates set aside by sort(), each indexed like the Site it duplicates
+    private ArrayList<Site> _duplicates;
     private int _currentIndex;
     private boolean _sorted;
+    // how many sites were pushed, duplicates included
+    private int _numInputs;
 
     public SiteList() {
         _sites = new ArrayList();
+        _duplicates = new ArrayList();
         _sorted = false;
     }
 
@@ -24,11 +31,19 @@ public final class SiteList implements IDisposable {
             _sites.clear();
             _sites = null;
         }
+        if (_duplicates != null) {
+            for (Site site : _duplicates) {
+                site.dispose();
+            }
+            _duplicates.clear();
+            _duplicates = null;
+        }
     }
 
     public int push(Site site) {
         _sorted = false;
         _sites.add(site);
+        ++_numInputs;
         return _sites.size();
     }
 
@@ -36,6 +51,10 @@ public final class SiteList implements IDisposable {
         return _sites.size();
     }
 
+    Site get(int index) {
+        return _sites.get(index);
+    }
+
     public Site next() {
         if (_sorted == false) {
             throw new Error("SiteList::next():  sites have not been sorted");
@@ -47,18 +66,132 @@ public final class SiteList implements IDisposable {
         }
     }
 
-    public Rectangle getSitesBounds() {
-        if (_sorted == false) {
-            Site.sortSites(_sites);
-            _currentIndex = 0;
-            _sorted = true;
+    void sort() {
+        sort(null);
+    }
+
+    /**
+     * Sort the sites on y, then x, and set exact duplicates aside, so that no
+     * two sites coincide and each index matches the Site's position.
+     *
+     * @param pool to sort large lists in parallel on, or null
+     */
+    void sort(ForkJoinPool pool) {
+        sort(pool, false);
+    }
+
+    /**
+     * @param nearlySorted whether the sites are close to sorted already, as
+     * BuildOptions.nearlySorted says
+     */
+    void sort(ForkJoinPool pool, boolean nearlySorted) {
+        if (_sorted) {
+            return;
+        }
+        SiteSorter.sort(_sites, pool, nearlySorted);
+        int n = 0;
+        for (int i = 0; i < _sites.size(); ++i) {
+            Site site = _sites.get(i);
+            if (n > 0 && Voronoi.compareByYThenX(_sites.get(n - 1), site) == 0) {
+                site.set_siteIndex(n - 1);
+                _duplicates.add(site);
+                continue;
+            }
+            site.set_siteIndex(n);
+            _sites.set(n++, site);
+        }
+        _sites.subList(n, _sites.size()).clear();
+        _currentIndex = 0;
+        _sorted = true;
+    }
+
+    ArrayList<Site> duplicates() {
+        return _duplicates;
+    }
+
+    /**
+     * @return the index of the Site that each pushed site became, in the
+     * order they were pushed: a duplicate's is the Site it coincides with, a
+     * removed site's is -1
+     */
+    int[] inputSites() {
+        int[] inputSites = new int[_numInputs];
+        Arrays.fill(inputSites, -1);
+        for (Site site : _sites) {
+            if (site.get_inputIndex() >= 0) {
+                inputSites[site.get_inputIndex()] = site.get_siteIndex();
+            }
         }
+        for (Site site : _duplicates) {
+            inputSites[site.get_inputIndex()] = site.get_siteIndex();
+        }
+        return inputSites;
+    }
+
+    /**
+     * Add a site once the list is sorted, numbered after all the others.
+     */
+    void append(Site site) {
+        site.set_siteIndex(_sites.size());
+        _sites.add(site);
+    }
+
+    /**
+     * Dispose the site at index and its duplicates, and move the last site
+     * into its place.
+     *
+     * @return the site that moved, or null if index was the last one
+     */
+    Site remove(int index) {
+        Site removed = _sites.get(index);
+        Site last = _sites.remove(_sites.size() - 1);
+        Site moved = null;
+        if (last != removed) {
+            _sites.set(index, last);
+            moved = last;
+        }
+        for (int i = _duplicates.size() - 1; i >= 0; --i) {
+            Site duplicate = _duplicates.get(i);
+            if (duplicate.get_siteIndex() == index) {
+                _duplicates.remove(i).dispose();
+            } else if (moved != null && duplicate.get_siteIndex() == _sites.size()) {
+                duplicate.set_siteIndex(index);
+            }
+        }
+        if (moved != null) {
+            moved.set_siteIndex(index);
+        }
+        removed.dispose();
+        return moved;
+    }
+
+    /**
+     * @return count ascending x values that cut the sites into count + 1
+     * groups of about the same size, estimated from an evenly strided sample
+     */
+    double[] xQuantiles(int count) {
+        int n = _sites.size();
+        int sampleSize = Math.min(n, 16 * (count + 1));
+        double[] sample = new double[sampleSize];
+        for (int i = 0; i < sampleSize; ++i) {
+            sample[i] = _sites.get((int) ((long) i * n / sampleSize)).get_x();
+        }
+        Arrays.sort(sample);
+        double[] quantiles = new double[count];
+        for (int k = 0; k < count; ++k) {
+            quantiles[k] = sample[(int) ((long) (k + 1) * sampleSize / (count + 1))];
+        }
+        return quantiles;
+    }
+
+    public Rectangle getSitesBounds() {
+        sort();
         double xmin, xmax, ymin, ymax;
         if (_sites.isEmpty()) {
             return new Rectangle(0, 0, 0, 0);
         }
         xmin = Double.MAX_VALUE;
-        xmax = Double.MIN_VALUE;
+        xmax = -Double.MAX_VALUE;
         for (Site site : _sites) {
             if (site.get_x() < xmin) {
                 xmin = site.get_x();
@@ -112,13 +245,6 @@ public final class SiteList implements IDisposable {
         return circles;
     }
 
-    public ArrayList<ArrayList<Point>> regions(Rectangle plotBounds) {
-        ArrayList<ArrayList<Point>> regions = new ArrayList();
-        for (Site site : _sites) {
-            regions.add(site.region(plotBounds));
-        }
-        return regions;
-    }
     /**
      *
      * @param proximityMap a BitmapData whose regions are filled with the site
@@ -0,0 +1,39 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.Random;
+
+/**
+ * How Voronoi(int numSites, ...) places its sites in [0, maxWidth) x [0,
+ * maxHeight). Unlike BuildOptions, this changes the diagram.
+ */
+public enum SiteSampling {
+
+    /** independent uniform points, which VoronoiGraph evens out with Lloyd relaxations */
+    UNIFORM {
+        @Override
+        public double[] sample(int numSites, double maxWidth, double maxHeight, Random r) {
+            double[] xy = new double[2 * numSites];
+            for (int i = 0; i < numSites; i++) {
+                xy[2 * i] = r.nextDouble() * maxWidth;
+                xy[2 * i + 1] = r.nextDouble() * maxHeight;
+            }
+            return xy;
+        }
+    },
+    /**
+     * Poisson-disc points (blue noise), no two closer than a radius picked
+     * for numSites, in one pass: about as even as uniform points after two
+     * Lloyd relaxations, so those can be left out
+     */
+    POISSON_DISC {
+        @Override
+        public double[] sample(int numSites, double maxWidth, double maxHeight, Random r) {
+            return PoissonDisc.sample(numSites, maxWidth, maxHeight, r);
+        }
+    };
+
+    /**
+     * @return x0, y0, x1, y1, ... of numSites points
+     */
+    public abstract double[] sample(int numSites, double maxWidth, double maxHeight, Random r);
+}
@@ -0,0 +1,222 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * LSD radix sort of sites on y, then x, in the order of
+ * Voronoi.compareByYThenX.
+ *
+ * Each coordinate is mapped to a 64 bit key whose unsigned order is the
+ * numeric order of the doubles (-0.0 is folded into 0.0 first, as the
+ * comparison treats them as equal). The sites are then sorted on the x keys
+ * and, since every pass is stable, on the y keys after that, 11 bits per pass
+ * (2048 buckets stay in cache while scattering, 65536 do not).
+ * Passes in which all keys share the same digit are skipped, which for
+ * coordinates from a limited range usually drops the high ones. Equal sites
+ * keep their input order.
+ *
+ * With a pool and enough sites, each pass counts and scatters contiguous
+ * chunks in parallel; the result is the same.
+ *
+ * Sites that are nearly in order already, as when a diagram is built again
+ * from its own sites moved a little, are insertion sorted on the same keys
+ * instead, in time proportional to how far out of order they are; past
+ * MAX_MOVES_PER_SITE moves per site that gives up for the radix sort.
+ */
+final class SiteSorter {
+
+    private static final int BITS = 11;
+    private static final int RADIX = 1 << BITS;
+    private static final int MASK = RADIX - 1;
+    // below this, a parallel pass costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 1 << 17;
+    // what the insertion sort of nearly sorted sites may move each site by, on average, before giving up
+    private static final int MAX_MOVES_PER_SITE = 64;
+
+    private final Site[] _sites;
+    private final int _n;
+    private final ForkJoinPool _pool;
+    private final int _chunks;
+    private long[] _keys, _keysOut;
+    private int[] _order, _orderOut;
+
+    /**
+     * @param pool to run large sorts on, or null to always sort sequentially
+     */
+    static void sort(ArrayList<Site> sites, ForkJoinPool pool) {
+        sort(sites, pool, false);
+    }
+
+    /**
+     * @param nearlySorted whether to try an insertion sort first
+     */
+    static void sort(ArrayList<Site> sites, ForkJoinPool pool, boolean nearlySorted) {
+        if (sites.size() < 2) {
+            return;
+        }
+        SiteSorter sorter = new SiteSorter(sites.toArray(new Site[sites.size()]), pool);
+        if (!nearlySorted || !sorter.insertionSort()) {
+            sorter.sort();
+        }
+        for (int i = 0; i < sorter._n; ++i) {
+            sites.set(i, sorter._sites[sorter._order[i]]);
+        }
+    }
+
+    static long key(double d) {
+        // adding 0.0 turns -0.0 into 0.0 and leaves everything else alone
+        long bits = Double.doubleToLongBits(d + 0.0);
+        // flip all bits of negatives and the sign bit of positives
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    private SiteSorter(Site[] sites, ForkJoinPool pool) {
+        _sites = sites;
+        _n = sites.length;
+        _chunks = ParallelChunks.count(pool, _n, PARALLEL_THRESHOLD);
+        _pool = _chunks > 1 ? pool : null;
+        _keys = new long[_n];
+        _keysOut = new long[_n];
+        _order = new int[_n];
+        _orderOut = new int[_n];
+    }
+
+    private void sort() {
+        forEachChunk((chunk) -> {
+            for (int i = start(chunk); i < start(chunk + 1); ++i) {
+                _order[i] = i;
+                _keys[i] = key(_sites[i].get_x());
+            }
+        });
+        sortOnKeys();
+        forEachChunk((chunk) -> {
+            for (int i = start(chunk); i < start(chunk + 1); ++i) {
+                _keys[i] = key(_sites[_order[i]].get_y());
+            }
+        });
+        sortOnKeys();
+    }
+
+    // on y keys, then x keys; false if the sites are too far out of order
+    private boolean insertionSort() {
+        long[] yKeys = _keys, xKeys = _keysOut;
+        for (int i = 0; i < _n; ++i) {
+            yKeys[i] = key(_sites[i].get_y());
+            xKeys[i] = key(_sites[i].get_x());
+            _order[i] = i;
+        }
+        long budget = (long) MAX_MOVES_PER_SITE * _n;
+        for (int i = 1; i < _n; ++i) {
+            long y = yKeys[i], x = xKeys[i];
+            int site = _order[i];
+            int j = i - 1;
+            while (j >= 0 && (Long.compareUnsigned(yKeys[j], y) > 0
+                    || (yKeys[j] == y && Long.compareUnsigned(xKeys[j], x) > 0))) {
+                yKeys[j + 1] = yKeys[j];
+                xKeys[j + 1] = xKeys[j];
+                _order[j + 1] = _order[j];
+                --j;
+            }
+            budget -= i - 1 - j;
+            if (budget < 0) {
+                return false;
+            }
+            yKeys[j + 1] = y;
+            xKeys[j + 1] = x;
+            _order[j + 1] = site;
+        }
+        return true;
+    }
+
+    private void sortOnKeys() {
+        for (int shift = 0; shift < 64; shift += BITS) {
+            if (_pool == null) {
+                pass(shift);
+            } else {
+                parallelPass(shift);
+            }
+        }
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) (key >>> shift) & MASK;
+    }
+
+    private void pass(int shift) {
+        int[] offsets = new int[RADIX];
+        for (int i = 0; i < _n; ++i) {
+            offsets[digit(_keys[i], shift)]++;
+        }
+        if (offsets[digit(_keys[0], shift)] == _n) {
+            return;
+        }
+        int sum = 0;
+        for (int d = 0; d < RADIX; ++d) {
+            int count = offsets[d];
+            offsets[d] = sum;
+            sum += count;
+        }
+        for (int i = 0; i < _n; ++i) {
+            int pos = offsets[digit(_keys[i], shift)]++;
+            _keysOut[pos] = _keys[i];
+            _orderOut[pos] = _order[i];
+        }
+        swap();
+    }
+
+    private void parallelPass(int shift) {
+        int[][] offsets = new int[_chunks][];
+        forEachChunk((chunk) -> {
+            int[] counts = new int[RADIX];
+            for (int i = start(chunk); i < start(chunk + 1); ++i) {
+                counts[digit(_keys[i], shift)]++;
+            }
+            offsets[chunk] = counts;
+        });
+        int first = digit(_keys[0], shift);
+        int total = 0;
+        for (int chunk = 0; chunk < _chunks; ++chunk) {
+            total += offsets[chunk][first];
+        }
+        if (total == _n) {
+            return;
+        }
+        // digit by digit, then chunk by chunk, so every chunk scatters after the ones before it
+        int sum = 0;
+        for (int d = 0; d < RADIX; ++d) {
+            for (int chunk = 0; chunk < _chunks; ++chunk) {
+                int count = offsets[chunk][d];
+                offsets[chunk][d] = sum;
+                sum += count;
+            }
+        }
+        forEachChunk((chunk) -> {
+            int[] chunkOffsets = offsets[chunk];
+            for (int i = start(chunk); i < start(chunk + 1); ++i) {
+                int pos = chunkOffsets[digit(_keys[i], shift)]++;
+                _keysOut[pos] = _keys[i];
+                _orderOut[pos] = _order[i];
+            }
+        });
+        swap();
+    }
+
+    private void swap() {
+        long[] keys = _keys;
+        _keys = _keysOut;
+        _keysOut = keys;
+        int[] order = _order;
+        _order = _orderOut;
+        _orderOut = order;
+    }
+
+    private int start(int chunk) {
+        return ParallelChunks.start(_n, chunk, _chunks);
+    }
+
+    private void forEachChunk(IntConsumer body) {
+        ParallelChunks.forEach(_pool, _chunks, body);
+    }
+}
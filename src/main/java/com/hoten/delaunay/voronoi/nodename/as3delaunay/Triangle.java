@@ -2,6 +2,14 @@ package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 
 import java.util.ArrayList;
 
+/**
+ * Three sites of a Delaunay triangle. Voronoi no longer makes these.
+ *
+ * @deprecated build with BuildOptions.triangles and read
+ * Voronoi.triangles(), three site indices per triangle; siteCoords() gives
+ * their coordinates
+ */
+@Deprecated
 public final class Triangle {
 
     private ArrayList<Site> _sites;
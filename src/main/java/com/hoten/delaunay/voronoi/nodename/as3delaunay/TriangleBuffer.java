@@ -0,0 +1,37 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import java.util.Arrays;
+
+/**
+ * Collects Delaunay triangles as site index triples while a diagram is
+ * built, each turned counterclockwise: positive signed area, the way
+ * Polygon.winding() counts (clockwise on screen, where y grows down).
+ */
+final class TriangleBuffer {
+
+    private int[] _sites;
+    private int _size;
+
+    TriangleBuffer(int capacity) {
+        _sites = new int[3 * Math.max(1, capacity)];
+    }
+
+    void add(Site a, Site b, Site c) {
+        if (_size + 3 > _sites.length) {
+            _sites = Arrays.copyOf(_sites, 2 * _sites.length);
+        }
+        // exact, since a rounded sign would turn slivers the wrong way
+        if (Predicates.orient(a.get_x(), a.get_y(), b.get_x(), b.get_y(), c.get_x(), c.get_y()) < 0) {
+            Site swap = b;
+            b = c;
+            c = swap;
+        }
+        _sites[_size++] = a.get_siteIndex();
+        _sites[_size++] = b.get_siteIndex();
+        _sites[_size++] = c.get_siteIndex();
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(_sites, _size);
+    }
+}
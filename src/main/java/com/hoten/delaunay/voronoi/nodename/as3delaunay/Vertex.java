@@ -1,26 +1,25 @@
 package com.hoten.delaunay.voronoi.nodename.as3delaunay;
 
 import com.hoten.delaunay.geom.Point;
-import java.util.Stack;
 
 final public class Vertex extends Object implements ICoord {
 
-    final public static Vertex VERTEX_AT_INFINITY = new Vertex(Double.NaN, Double.NaN);
-    final private static Stack<Vertex> _pool = new Stack();
+    final public static Vertex VERTEX_AT_INFINITY = new Vertex(null, Double.NaN, Double.NaN);
 
-    private static Vertex create(double x, double y) {
+    static Vertex create(BuildContext context, double x, double y) {
 
         if (Double.isNaN(x) || Double.isNaN(y)) {
             return VERTEX_AT_INFINITY;
         }
-        if (_pool.size() > 0) {
+        if (context.vertexPool.size() > 0) {
 
-            return _pool.pop().init(x, y);
+            return context.vertexPool.pop().init(x, y);
         } else {
-            return new Vertex(x, y);
+            return new Vertex(context, x, y);
         }
     }
-    private static int _nvertices = 0;
+    // the arena this Vertex returns to when disposed; null for VERTEX_AT_INFINITY
+    private final BuildContext _context;
     private Point _coord;
 
     @Override
@@ -33,22 +32,37 @@ final public class Vertex extends Object implements ICoord {
         return _vertexIndex;
     }
 
-    public Vertex(double x, double y) {
+    public Vertex(BuildContext context, double x, double y) {
+        _context = context;
         init(x, y);
     }
 
     private Vertex init(double x, double y) {
         _coord = new Point(x, y);
+        _vertexIndex = -1;
         return this;
     }
 
     public void dispose() {
+        if (_context == null || _coord == null) {
+            // VERTEX_AT_INFINITY, or already back in the pool
+            return;
+        }
         _coord = null;
-        _pool.push(this);
+        _context.vertexPool.push(this);
     }
 
     public void setIndex() {
-        _vertexIndex = _nvertices++;
+        if (_context != null) {
+            _vertexIndex = _context.nvertices++;
+        }
+    }
+
+    /**
+     * @return true once setIndex() has made this an actual Voronoi vertex
+     */
+    boolean isIndexed() {
+        return _vertexIndex >= 0;
     }
 
     @Override
@@ -64,7 +78,7 @@ final public class Vertex extends Object implements ICoord {
      * @return
      *
      */
-    public static Vertex intersect(Halfedge halfedge0, Halfedge halfedge1) {
+    public static Vertex intersect(BuildContext context, Halfedge halfedge0, Halfedge halfedge1) {
         Edge edge0, edge1, edge;
         Halfedge halfedge;
         double determinant, intersectionX, intersectionY;
@@ -101,7 +115,7 @@ final public class Vertex extends Object implements ICoord {
             return null;
         }
 
-        return Vertex.create(intersectionX, intersectionY);
+        return Vertex.create(context, intersectionX, intersectionY);
     }
 
     public double get_x() {
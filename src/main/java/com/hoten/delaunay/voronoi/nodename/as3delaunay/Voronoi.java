@@ -28,119 +28,372 @@ package com.hoten.delaunay.voronoi.nodename.as3delaunay;
  * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
  */
 
+import com.hoten.delaunay.geom.ConvexPolygon;
 import com.hoten.delaunay.geom.Point;
 import com.hoten.delaunay.geom.Rectangle;
 
 import java.awt.Color;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public final class Voronoi {
 
     private SiteList _sites;
     private HashMap<Point, Site> _sitesIndexedByLocation;
-    private ArrayList<Triangle> _triangles;
     private ArrayList<Edge> _edges;
-    // TODO generalize this so it doesn't have to be a rectangle;
-    // then we can make the fractal voronois-within-voronois
+    // what the edges and regions are clipped to, and the Rectangle around it
+    private ConvexPolygon _clipBounds;
     private Rectangle _plotBounds;
+    private BuildOptions _options;
+    private BuildContext _context;
+    private boolean _privateContext;
+    // the Voronoi vertices of this build are numbered from _vertexBase on
+    private int _vertexBase, _numVertices;
+    private VoronoiResult _result;
+    private RegionTable _regionTable;
+    // the two sites of each edge, as the edges are made; turned into _neighborTable when asked for
+    private int[] _neighborPairs;
+    private int _numSites, _numNeighborPairs;
+    private NeighborTable _neighborTable;
+    // only with BuildOptions.triangles
+    private TriangleBuffer _triangleBuffer;
+    private int[] _triangleSites;
+    // made by the first insertSite() or removeSite()
+    private DiagramEditor _editor;
+    // built with OutputMode.FLAT or STREAM: the objects are gone
+    private boolean _released;
 
     public Rectangle get_plotBounds() {
         return _plotBounds;
     }
 
+    /**
+     * @return the polygon the diagram is clipped to; the four corners of
+     * get_plotBounds() unless the diagram was built with a ConvexPolygon
+     */
+    public ConvexPolygon get_clipBounds() {
+        return _clipBounds;
+    }
+
     public void dispose() {
-        int i, n;
+        if (_context != null) {
+            _context.unregister(this);
+        }
+        disposeObjects();
+        _clipBounds = null;
+        _plotBounds = null;
+        _result = null;
+        _regionTable = null;
+        _neighborPairs = null;
+        _neighborTable = null;
+        _triangleBuffer = null;
+        _triangleSites = null;
+        _editor = null;
+        _context = null;
+    }
+
+    private void disposeObjects() {
         if (_sites != null) {
             _sites.dispose();
             _sites = null;
         }
-        if (_triangles != null) {
-            n = _triangles.size();
-            for (i = 0; i < n; ++i) {
-                _triangles.get(i).dispose();
-            }
-            _triangles.clear();
-            _triangles = null;
-        }
         if (_edges != null) {
-            n = _edges.size();
-            for (i = 0; i < n; ++i) {
-                _edges.get(i).dispose();
-            }
-            _edges.clear();
+            disposeEdges();
             _edges = null;
         }
-        _plotBounds = null;
         _sitesIndexedByLocation = null;
     }
 
+    private void disposeEdges() {
+        int n = _edges.size();
+        for (int i = 0; i < n; ++i) {
+            Edge edge = _edges.get(i);
+            // vertices are shared by up to three edges; Vertex.dispose() ignores repeats
+            if (edge.get_leftVertex() != null) {
+                edge.get_leftVertex().dispose();
+            }
+            if (edge.get_rightVertex() != null) {
+                edge.get_rightVertex().dispose();
+            }
+            edge.dispose();
+        }
+        _edges.clear();
+    }
+
+    /**
+     * The diagram as flat arrays. Unless the OutputMode asked for them during
+     * construction, they are built from the objects on the first call.
+     */
+    public VoronoiResult result() {
+        if (_result == null) {
+            checkObjects();
+            if (_editor != null) {
+                renumberVertices();
+            }
+            _result = VoronoiResult.create(_sites, _edges, _vertexBase, _numVertices, _clipBounds, true);
+        }
+        return _result;
+    }
+
+    private void checkObjects() {
+        if (_released) {
+            throw new IllegalStateException("Voronoi was built with OutputMode." + _options.outputMode
+                    + " and kept no objects");
+        }
+    }
+
     public Voronoi(ArrayList<Point> points, ArrayList<Color> colors, Rectangle plotBounds) {
-        init(points, colors, plotBounds);
-        fortunesAlgorithm();
+        this(points, colors, plotBounds, new BuildOptions());
+    }
+
+    public Voronoi(ArrayList<Point> points, ArrayList<Color> colors, Rectangle plotBounds, BuildOptions options) {
+        this(points, colors, plotBounds, options, null);
+    }
+
+    /**
+     * @param plotBounds the bounds to clip to, or null for the bounds of the
+     * points
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(ArrayList<Point> points, ArrayList<Color> colors, Rectangle plotBounds, BuildOptions options, BuildContext context) {
+        this(points, colors, plotBounds != null ? ConvexPolygon.of(plotBounds) : null, options, context);
+    }
+
+    public Voronoi(ArrayList<Point> points, ArrayList<Color> colors, ConvexPolygon clipBounds) {
+        this(points, colors, clipBounds, new BuildOptions(), null);
+    }
+
+    /**
+     * @param clipBounds the polygon to clip to, or null for the bounds of the
+     * points
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(ArrayList<Point> points, ArrayList<Color> colors, ConvexPolygon clipBounds, BuildOptions options, BuildContext context) {
+        _options = options;
+        init(context);
+        _sitesIndexedByLocation = new HashMap();
+        Rectangle dataBounds = addSites(points, colors);
+        setClipBounds(clipBounds != null ? clipBounds : ConvexPolygon.of(dataBounds));
+        build();
     }
 
-    //TODO check points for negative values. We must search min value too and translate whole list to fit it in positive quadrant.
     public Voronoi(ArrayList<Point> points, ArrayList<Color> colors) {
-        double maxWidth = 0, maxHeight = 0;
-        for (Point p : points) {
-            maxWidth = Math.max(maxWidth, p.x);
-            maxHeight = Math.max(maxHeight, p.y);
+        this(points, colors, (Rectangle) null);
+    }
+
+    public Voronoi(double[] coords, Rectangle plotBounds) {
+        this(coords, plotBounds, new BuildOptions());
+    }
+
+    public Voronoi(double[] coords, Rectangle plotBounds, BuildOptions options) {
+        this(coords, plotBounds, options, null);
+    }
+
+    /**
+     * @param coords x0, y0, x1, y1, ...
+     * @param plotBounds the bounds to clip to, or null for the bounds of the
+     * coordinates
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(double[] coords, Rectangle plotBounds, BuildOptions options, BuildContext context) {
+        this(DoubleBuffer.wrap(coords), plotBounds, options, context);
+    }
+
+    public Voronoi(double[] coords, ConvexPolygon clipBounds) {
+        this(coords, clipBounds, new BuildOptions(), null);
+    }
+
+    /**
+     * @param coords x0, y0, x1, y1, ...
+     * @param clipBounds the polygon to clip to, or null for the bounds of the
+     * coordinates
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(double[] coords, ConvexPolygon clipBounds, BuildOptions options, BuildContext context) {
+        this(DoubleBuffer.wrap(coords), clipBounds, options, context);
+    }
+
+    public Voronoi(DoubleBuffer coords, Rectangle plotBounds) {
+        this(coords, plotBounds, new BuildOptions());
+    }
+
+    public Voronoi(DoubleBuffer coords, Rectangle plotBounds, BuildOptions options) {
+        this(coords, plotBounds, options, null);
+    }
+
+    /**
+     * Sites straight from a buffer, for instance one mapped from a file: no
+     * Point is made for a site until something asks for its coordinates as a
+     * Point. Only the buffer's remaining content is read, and its position is
+     * left alone.
+     *
+     * @param coords x0, y0, x1, y1, ...
+     * @param plotBounds the bounds to clip to, or null for the bounds of the
+     * coordinates
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(DoubleBuffer coords, Rectangle plotBounds, BuildOptions options, BuildContext context) {
+        this(coords, plotBounds != null ? ConvexPolygon.of(plotBounds) : null, options, context);
+    }
+
+    /**
+     * Same as Voronoi(DoubleBuffer, Rectangle, BuildOptions, BuildContext),
+     * clipped to a convex polygon instead: every edge is clipped to it once
+     * as it is finished, and the regions follow its border.
+     *
+     * @param clipBounds the polygon to clip to, or null for the bounds of the
+     * coordinates
+     */
+    public Voronoi(DoubleBuffer coords, ConvexPolygon clipBounds, BuildOptions options, BuildContext context) {
+        if (coords.remaining() % 2 != 0) {
+            throw new IllegalArgumentException("coords must hold x, y pairs; got " + coords.remaining() + " values");
         }
-        System.out.println(maxWidth + "," + maxHeight);
-        init(points, colors, new Rectangle(0, 0, maxWidth, maxHeight));
-        fortunesAlgorithm();
+        _options = options;
+        init(context);
+        Rectangle dataBounds = addSites(coords);
+        setClipBounds(clipBounds != null ? clipBounds : ConvexPolygon.of(dataBounds));
+        build();
     }
 
     public Voronoi(int numSites, double maxWidth, double maxHeight, Random r, ArrayList<Color> colors) {
-        ArrayList<Point> points = new ArrayList();
+        this(numSites, maxWidth, maxHeight, r, colors, new BuildOptions());
+    }
+
+    public Voronoi(int numSites, double maxWidth, double maxHeight, Random r, ArrayList<Color> colors, BuildOptions options) {
+        this(numSites, maxWidth, maxHeight, r, colors, options, null);
+    }
+
+    /**
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(int numSites, double maxWidth, double maxHeight, Random r, ArrayList<Color> colors, BuildOptions options, BuildContext context) {
+        this(numSites, maxWidth, maxHeight, r, colors, SiteSampling.UNIFORM, options, context);
+    }
+
+    public Voronoi(int numSites, double maxWidth, double maxHeight, Random r, ArrayList<Color> colors, SiteSampling sampling) {
+        this(numSites, maxWidth, maxHeight, r, colors, sampling, new BuildOptions(), null);
+    }
+
+    /**
+     * @param sampling how the sites are drawn from r
+     * @param context arena to allocate from, or null to use a private one
+     */
+    public Voronoi(int numSites, double maxWidth, double maxHeight, Random r, ArrayList<Color> colors, SiteSampling sampling, BuildOptions options, BuildContext context) {
+        _options = options;
+        init(context);
+        double[] xy = sampling.sample(numSites, maxWidth, maxHeight, r);
         for (int i = 0; i < numSites; i++) {
-            points.add(new Point(r.nextDouble() * maxWidth, r.nextDouble() * maxHeight));
+            addSite(xy[2 * i], xy[2 * i + 1], colors != null ? colors.get(i) : null, i);
         }
-        init(points, colors, new Rectangle(0, 0, maxWidth, maxHeight));
-        fortunesAlgorithm();
+        setClipBounds(ConvexPolygon.of(new Rectangle(0, 0, maxWidth, maxHeight)));
+        build();
+    }
+
+    private void setClipBounds(ConvexPolygon clipBounds) {
+        _clipBounds = clipBounds;
+        _plotBounds = clipBounds.bounds;
     }
 
-    private void init(ArrayList<Point> points, ArrayList<Color> colors, Rectangle plotBounds) {
+    private void init(BuildContext context) {
+        _privateContext = context == null;
+        _context = _privateContext ? new BuildContext() : context;
+        _context.register(this);
         _sites = new SiteList();
-        _sitesIndexedByLocation = new HashMap();
-        addSites(points, colors);
-        _plotBounds = plotBounds;
-        _triangles = new ArrayList();
         _edges = new ArrayList();
     }
 
-    private void addSites(ArrayList<Point> points, ArrayList<Color> colors) {
+    /**
+     * @return the bounds of the points
+     */
+    private Rectangle addSites(ArrayList<Point> points, ArrayList<Color> colors) {
+        double xmin = Double.MAX_VALUE, ymin = Double.MAX_VALUE;
+        double xmax = -Double.MAX_VALUE, ymax = -Double.MAX_VALUE;
         int length = points.size();
         for (int i = 0; i < length; ++i) {
-            addSite(points.get(i), colors != null ? colors.get(i) : null, i);
+            Point p = points.get(i);
+            addSite(p, colors != null ? colors.get(i) : null, i);
+            xmin = Math.min(xmin, p.x);
+            xmax = Math.max(xmax, p.x);
+            ymin = Math.min(ymin, p.y);
+            ymax = Math.max(ymax, p.y);
         }
+        return length == 0 ? new Rectangle(0, 0, 0, 0) : new Rectangle(xmin, ymin, xmax - xmin, ymax - ymin);
+    }
+
+    /**
+     * @return the bounds of the coordinates
+     */
+    private Rectangle addSites(DoubleBuffer coords) {
+        double xmin = Double.MAX_VALUE, ymin = Double.MAX_VALUE;
+        double xmax = -Double.MAX_VALUE, ymax = -Double.MAX_VALUE;
+        int base = coords.position();
+        int length = coords.remaining() / 2;
+        for (int i = 0; i < length; ++i) {
+            double x = coords.get(base + 2 * i);
+            double y = coords.get(base + 2 * i + 1);
+            addSite(x, y, null, i);
+            xmin = Math.min(xmin, x);
+            xmax = Math.max(xmax, x);
+            ymin = Math.min(ymin, y);
+            ymax = Math.max(ymax, y);
+        }
+        return length == 0 ? new Rectangle(0, 0, 0, 0) : new Rectangle(xmin, ymin, xmax - xmin, ymax - ymin);
     }
 
     private void addSite(Point p, Color color, int index) {
         double weight = Math.random() * 100;
-        Site site = Site.create(p, index, weight, color);
+        Site site = Site.create(_context, p, index, weight, color);
         _sites.push(site);
         _sitesIndexedByLocation.put(p, site);
     }
 
+    private void addSite(double x, double y, Color color, int index) {
+        double weight = Math.random() * 100;
+        _sites.push(Site.create(_context, x, y, index, weight, color));
+    }
+
+    /**
+     * @return the Site at p, by identity: p has to be one of the Points that
+     * were passed in, or that siteCoords() returned
+     */
+    private Site siteAt(Point p) {
+        if (_sitesIndexedByLocation == null) {
+            // built from coordinates: index each Site by its Point, the one siteCoords() hands out
+            _sitesIndexedByLocation = new HashMap();
+            for (int i = 0; i < _sites.get_length(); ++i) {
+                Site site = _sites.get(i);
+                _sitesIndexedByLocation.put(site.get_coord(), site);
+            }
+        }
+        return _sitesIndexedByLocation.get(p);
+    }
+
     public ArrayList<Edge> edges() {
+        checkObjects();
         return _edges;
     }
 
     public ArrayList<Point> region(Point p) {
-        Site site = _sitesIndexedByLocation.get(p);
+        checkObjects();
+        Site site = siteAt(p);
         if (site == null) {
             return new ArrayList();
         }
-        return site.region(_plotBounds);
+        return site.region(_clipBounds, _options.cacheRegions);
     }
 
-    // TODO: bug: if you call this before you call region(), something goes wrong :(
+    /**
+     * @return the Points of the sites around the one at coord, in order
+     * around it; see neighborTable() for all of them at once
+     */
     public ArrayList<Point> neighborSitesForSite(Point coord) {
+        checkObjects();
         ArrayList<Point> points = new ArrayList();
-        Site site = _sitesIndexedByLocation.get(coord);
+        Site site = siteAt(coord);
         if (site == null) {
             return points;
         }
@@ -152,25 +405,24 @@ public final class Voronoi {
     }
 
     public ArrayList<Circle> circles() {
+        checkObjects();
         return _sites.circles();
     }
 
-    private ArrayList<Edge> selectEdgesForSitePoint(Point coord, ArrayList<Edge> edgesToTest) {
-        ArrayList<Edge> filtered = new ArrayList();
-
-        for (Edge e : edgesToTest) {
-            if (((e.get_leftSite() != null && e.get_leftSite().get_coord() == coord)
-                    || (e.get_rightSite() != null && e.get_rightSite().get_coord() == coord))) {
-                filtered.add(e);
-            }
-        }
-        return filtered;
+    /**
+     * @return the index of the Site at p, the one result() and the index
+     * based accessors use, or -1 if p is not a site Point; see siteAt()
+     */
+    public int siteIndex(Point p) {
+        checkObjects();
+        Site site = siteAt(p);
+        return site == null ? -1 : site.get_siteIndex();
+    }
 
-        /*function myTest(edge:Edge, index:int, vector:Vector.<Edge>):Boolean
-         {
-         return ((edge.leftSite && edge.leftSite.coord == coord)
-         ||  (edge.rightSite && edge.rightSite.coord == coord));
-         }*/
+    // the edges of the Site at coord, or none
+    private ArrayList<Edge> edgesForSitePoint(Point coord) {
+        Site site = siteAt(coord);
+        return site == null ? new ArrayList() : site._edges;
     }
 
     private ArrayList<LineSegment> visibleLineSegments(ArrayList<Edge> edges) {
@@ -178,8 +430,8 @@ public final class Voronoi {
 
         for (Edge edge : edges) {
             if (edge.get_visible()) {
-                Point p1 = edge.get_clippedEnds().get(LR.LEFT);
-                Point p2 = edge.get_clippedEnds().get(LR.RIGHT);
+                Point p1 = edge.clippedEnd(LR.LEFT);
+                Point p2 = edge.clippedEnd(LR.RIGHT);
                 segments.add(new LineSegment(p1, p2));
             }
         }
@@ -198,14 +450,51 @@ public final class Voronoi {
     }
 
     public ArrayList<LineSegment> voronoiBoundaryForSite(Point coord) {
-        return visibleLineSegments(selectEdgesForSitePoint(coord, _edges));
+        checkObjects();
+        return visibleLineSegments(edgesForSitePoint(coord));
+    }
+
+    public ArrayList<LineSegment> voronoiBoundaryForSite(int site) {
+        checkObjects();
+        return visibleLineSegments(_sites.get(site)._edges);
+    }
+
+    /**
+     * voronoiBoundaryForSite() for each of sites, in the same order.
+     */
+    public ArrayList<ArrayList<LineSegment>> voronoiBoundariesForSites(int[] sites) {
+        checkObjects();
+        ArrayList<ArrayList<LineSegment>> boundaries = new ArrayList(sites.length);
+        for (int site : sites) {
+            boundaries.add(visibleLineSegments(_sites.get(site)._edges));
+        }
+        return boundaries;
     }
 
     public ArrayList<LineSegment> delaunayLinesForSite(Point coord) {
-        return delaunayLinesForEdges(selectEdgesForSitePoint(coord, _edges));
+        checkObjects();
+        return delaunayLinesForEdges(edgesForSitePoint(coord));
+    }
+
+    public ArrayList<LineSegment> delaunayLinesForSite(int site) {
+        checkObjects();
+        return delaunayLinesForEdges(_sites.get(site)._edges);
+    }
+
+    /**
+     * delaunayLinesForSite() for each of sites, in the same order.
+     */
+    public ArrayList<ArrayList<LineSegment>> delaunayLinesForSites(int[] sites) {
+        checkObjects();
+        ArrayList<ArrayList<LineSegment>> lines = new ArrayList(sites.length);
+        for (int site : sites) {
+            lines.add(delaunayLinesForEdges(_sites.get(site)._edges));
+        }
+        return lines;
     }
 
     public ArrayList<LineSegment> voronoiDiagram() {
+        checkObjects();
         return visibleLineSegments(_edges);
     }
 
@@ -214,6 +503,7 @@ public final class Voronoi {
      return delaunayLinesForEdges(selectNonIntersectingEdges(keepOutMask, _edges));
      }*/
     public ArrayList<LineSegment> hull() {
+        checkObjects();
         return delaunayLinesForEdges(hullEdges());
     }
 
@@ -237,6 +527,7 @@ public final class Voronoi {
     }
 
     public ArrayList<Point> hullPointsInOrder() {
+        checkObjects();
         ArrayList<Edge> hullEdges = hullEdges();
 
         ArrayList<Point> points = new ArrayList();
@@ -266,8 +557,233 @@ public final class Voronoi {
      ArrayList<LineSegment>  segments = delaunayLinesForEdges(edges);
      return kruskal(segments, type);
      }*/
+    /**
+     * The regions of all sites, in the order of siteCoords(); see
+     * regionTable().
+     */
     public ArrayList<ArrayList<Point>> regions() {
-        return _sites.regions(_plotBounds);
+        RegionTable table = regionTable();
+        ArrayList<ArrayList<Point>> regions = new ArrayList(table.numSites);
+        for (int i = 0; i < table.numSites; ++i) {
+            regions.add(table.region(i));
+        }
+        return regions;
+    }
+
+    /**
+     * The Delaunay neighbors of all sites, indexed like result(). Recorded
+     * while the diagram is built, so it is there with every OutputMode.
+     */
+    public NeighborTable neighborTable() {
+        if (_neighborTable == null) {
+            if (_neighborPairs == null) {
+                // edited since it was built: take them from the edges
+                _neighborPairs = new int[2 * Math.max(1, _edges.size())];
+                _numNeighborPairs = 0;
+                for (Edge edge : _edges) {
+                    addNeighbors(edge.get_leftSite(), edge.get_rightSite());
+                }
+            }
+            _neighborTable = NeighborTable.create(_numSites, _neighborPairs, _numNeighborPairs);
+            _neighborPairs = null;
+        }
+        return _neighborTable;
+    }
+
+    /**
+     * The Delaunay triangles, three site indices each (numbered like
+     * result()), turned counterclockwise as Polygon.winding() counts it.
+     * Only collected with BuildOptions.triangles.
+     */
+    public int[] triangles() {
+        if (_triangleSites == null) {
+            if (_triangleBuffer != null) {
+                _triangleSites = _triangleBuffer.toArray();
+                _triangleBuffer = null;
+            } else if (_editor != null && _options.triangles) {
+                _triangleSites = _editor.triangles();
+            } else {
+                throw new IllegalStateException("Voronoi was built without BuildOptions.triangles");
+            }
+        }
+        return _triangleSites;
+    }
+
+    /**
+     * Adds a site at p and updates the diagram around it only: the Edges of
+     * the sites whose regions change, and the Vertices between them. The
+     * flat outputs (result(), regionTable(), neighborTable(), triangles())
+     * are built again on their next call.
+     *
+     * @return the sites whose regions changed, in ascending order; the new
+     * site is among them, numbered after all the others
+     * @throws IllegalArgumentException if there already is a site at p
+     */
+    public int[] insertSite(Point p) {
+        checkObjects();
+        DiagramEditor editor = editor();
+        if (editor != null ? editor.siteAt(p.x, p.y) >= 0 : hasSiteAt(p.x, p.y)) {
+            throw new IllegalArgumentException("there already is a site at " + p);
+        }
+        edited();
+        // not in the input; append() numbers it
+        Site site = Site.create(_context, p, -1, Math.random() * 100, null);
+        _sites.append(site);
+        if (_sitesIndexedByLocation != null) {
+            _sitesIndexedByLocation.put(p, site);
+        }
+        int[] affected = editor != null ? editor.insert(site.get_siteIndex()) : null;
+        if (affected == null) {
+            affected = rebuildEdges();
+        }
+        _numSites = _sites.get_length();
+        return affected;
+    }
+
+    /**
+     * Takes away a site and updates the diagram around it only, like
+     * insertSite(). The last site takes over the index of the removed one,
+     * and in result().inputSites the input sites that were the removed one
+     * become -1.
+     *
+     * @return the sites whose regions changed, in ascending order, numbered
+     * as they are after the removal; the site that took over the index is
+     * among them
+     */
+    public int[] removeSite(int site) {
+        checkObjects();
+        int last = _sites.get_length() - 1;
+        if (site < 0 || site > last) {
+            throw new IndexOutOfBoundsException("no site " + site + " among " + (last + 1));
+        }
+        DiagramEditor editor = editor();
+        edited();
+        int[] affected = editor != null ? editor.remove(site) : null;
+        if (_sitesIndexedByLocation != null) {
+            _sitesIndexedByLocation.remove(_sites.get(site).get_coord());
+            for (Site duplicate : _sites.duplicates()) {
+                if (duplicate.get_siteIndex() == site) {
+                    _sitesIndexedByLocation.remove(duplicate.get_coord());
+                }
+            }
+        }
+        _sites.remove(site);
+        _numSites = _sites.get_length();
+        if (affected == null) {
+            _editor = null;
+            return rebuildEdges();
+        }
+        if (site == last) {
+            return affected;
+        }
+        editor.moveSite(last, site);
+        // the moved site has a new index, whether its region changed or not
+        int n = affected.length;
+        if (affected[n - 1] == last) {
+            --n;
+        }
+        int[] renumbered = Arrays.copyOf(affected, n + 1);
+        renumbered[n] = site;
+        Arrays.sort(renumbered);
+        int unique = 1;
+        for (int i = 1; i <= n; ++i) {
+            if (renumbered[i] != renumbered[unique - 1]) {
+                renumbered[unique++] = renumbered[i];
+            }
+        }
+        return Arrays.copyOf(renumbered, unique);
+    }
+
+    private DiagramEditor editor() {
+        if (_editor == null) {
+            _editor = DiagramEditor.create(_context, _sites, _edges, _clipBounds, _vertexBase, _numVertices);
+        }
+        return _editor;
+    }
+
+    private boolean hasSiteAt(double x, double y) {
+        for (int i = 0; i < _sites.get_length(); ++i) {
+            Site site = _sites.get(i);
+            if (site.get_x() == x && site.get_y() == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // drops everything that is built from the objects on demand
+    private void edited() {
+        _result = null;
+        _regionTable = null;
+        _neighborPairs = null;
+        _neighborTable = null;
+        _triangleBuffer = null;
+        _triangleSites = null;
+    }
+
+    /**
+     * Triangulates all sites again, keeping their indices, for when the
+     * diagram has no triangle to edit, as with fewer than three sites or
+     * collinear ones. This is always the divide and conquer engine, whatever
+     * BuildOptions.engine says: the sweep numbers the sites in its own order.
+     *
+     * @return every site
+     */
+    private int[] rebuildEdges() {
+        disposeEdges();
+        int n = _sites.get_length();
+        for (int i = 0; i < n; ++i) {
+            Site site = _sites.get(i);
+            site._edges.clear();
+            site.edgesChanged();
+        }
+        _vertexBase = _context.nvertices;
+        _triangleBuffer = _options.triangles ? new TriangleBuffer(2 * n) : null;
+        new DivideAndConquerDelaunay(_sites).build(_context, _options.pool, _edges, _triangleBuffer);
+        _numVertices = _context.nvertices - _vertexBase;
+        for (Edge edge : _edges) {
+            edge.clipVertices(_clipBounds);
+        }
+        _editor = DiagramEditor.create(_context, _sites, _edges, _clipBounds, _vertexBase, _numVertices);
+        int[] all = new int[n];
+        for (int i = 0; i < n; ++i) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    // edits number their vertices after everything else in the context; number them all again, densely
+    private void renumberVertices() {
+        _vertexBase = _context.nvertices;
+        for (Edge edge : _edges) {
+            if (edge.get_leftVertex() != null && edge.get_leftVertex().get_vertexIndex() < _vertexBase) {
+                edge.get_leftVertex().setIndex();
+            }
+            if (edge.get_rightVertex() != null && edge.get_rightVertex().get_vertexIndex() < _vertexBase) {
+                edge.get_rightVertex().setIndex();
+            }
+        }
+        _numVertices = _context.nvertices - _vertexBase;
+    }
+
+    private void addNeighbors(Site site0, Site site1) {
+        if (2 * _numNeighborPairs == _neighborPairs.length) {
+            _neighborPairs = Arrays.copyOf(_neighborPairs, 2 * _neighborPairs.length);
+        }
+        _neighborPairs[2 * _numNeighborPairs] = site0.get_siteIndex();
+        _neighborPairs[2 * _numNeighborPairs + 1] = site1.get_siteIndex();
+        ++_numNeighborPairs;
+    }
+
+    /**
+     * The clipped regions of all sites, indexed like result(). Built on the
+     * first call, in parallel on the build's pool.
+     */
+    public RegionTable regionTable() {
+        if (_regionTable == null) {
+            _regionTable = RegionTable.create(result(), pool());
+        }
+        return _regionTable;
     }
 
     /*public ArrayList<Integer> siteColors(referenceImage:BitmapData = null)
@@ -288,13 +804,88 @@ public final class Voronoi {
      return _sites.nearestSitePoint(proximityMap, x, y);
      }*/
     public ArrayList<Point> siteCoords() {
+        checkObjects();
         return _sites.siteCoords();
     }
 
-    private void fortunesAlgorithm() {
+    private ForkJoinPool pool() {
+        return _options.pool != null ? _options.pool : ForkJoinPool.commonPool();
+    }
+
+    private void build() {
+        BuildOptions.OutputMode mode = _options.outputMode;
+        if (mode == BuildOptions.OutputMode.STREAM && _options.sink == null) {
+            throw new IllegalArgumentException("OutputMode.STREAM needs a sink");
+        }
+        _vertexBase = _context.nvertices;
+        _sites.sort(pool(), _options.nearlySorted);
+        for (Site duplicate : _sites.duplicates()) {
+            // its Point, if it has one, now stands for the Site it duplicates
+            if (_sitesIndexedByLocation != null) {
+                _sitesIndexedByLocation.put(duplicate.get_coord(), _sites.get(duplicate.get_siteIndex()));
+            }
+        }
+        SinkDispatcher sink = _options.sink == null ? null
+                : new SinkDispatcher(_options.sink, _clipBounds, _vertexBase, _sites.get_length(),
+                        mode != BuildOptions.OutputMode.STREAM);
+        _numSites = _sites.get_length();
+        // a planar triangulation has fewer than 3 edges per site
+        _neighborPairs = new int[6 * Math.max(1, _numSites)];
+        _numNeighborPairs = 0;
+        // one triangle per Voronoi vertex, about two per site
+        _triangleBuffer = _options.triangles ? new TriangleBuffer(2 * _numSites) : null;
+        if (_options.engine == BuildOptions.Engine.DIVIDE_AND_CONQUER) {
+            divideAndConquer();
+            for (Edge edge : _edges) {
+                addNeighbors(edge.get_leftSite(), edge.get_rightSite());
+            }
+            _numVertices = _context.nvertices - _vertexBase;
+            if (sink != null) {
+                sink.replay(_edges, _sites, _numVertices);
+            }
+        } else {
+            fortunesAlgorithm(sink);
+            _numVertices = _context.nvertices - _vertexBase;
+        }
+
+        // the sink has clipped every edge it passed on
+        boolean clipped = sink != null;
+        if (!clipped && mode != BuildOptions.OutputMode.FLAT) {
+            // we need the vertices to clip the edges
+            for (Edge e : _edges) {
+                e.clipVertices(_clipBounds);
+            }
+            clipped = true;
+        }
+        if (mode == BuildOptions.OutputMode.OBJECTS_AND_FLAT || mode == BuildOptions.OutputMode.FLAT) {
+            _result = VoronoiResult.create(_sites, _edges, _vertexBase, _numVertices, _clipBounds, clipped);
+        }
+        if (mode == BuildOptions.OutputMode.FLAT || mode == BuildOptions.OutputMode.STREAM) {
+            // hand the objects straight back, so the next build in this context reuses them
+            _context.unregister(this);
+            if (mode == BuildOptions.OutputMode.STREAM) {
+                // the sink already disposed them
+                _edges.clear();
+            }
+            disposeObjects();
+            _released = true;
+        }
+        if (_privateContext) {
+            // nobody else builds in a private context, so don't hold on to its spares
+            _context.releasePools();
+        }
+    }
+
+    private void divideAndConquer() {
+        new DivideAndConquerDelaunay(_sites).build(_context, _options.pool, _edges, _triangleBuffer);
+    }
+
+    /**
+     * @param sink to tell about the diagram as it is built, or null
+     */
+    private void fortunesAlgorithm(SinkDispatcher sink) {
         Site newSite, bottomSite, topSite, tempSite;
         Vertex v, vertex;
-        Point newintstar = null;
         LR leftRight;
         Halfedge lbnd, rbnd, llbnd, rrbnd, bisector;
         Edge edge;
@@ -302,26 +893,27 @@ public final class Voronoi {
         Rectangle dataBounds = _sites.getSitesBounds();
 
         int sqrt_nsites = (int) Math.sqrt(_sites.get_length() + 4);
-        HalfedgePriorityQueue heap = new HalfedgePriorityQueue(dataBounds.y, dataBounds.height, sqrt_nsites);
-        EdgeList edgeList = new EdgeList(dataBounds.x, dataBounds.width, sqrt_nsites);
+        IHalfedgeQueue heap = createEventQueue(dataBounds, sqrt_nsites);
+        EdgeList edgeList = createEdgeList(dataBounds, sqrt_nsites);
+        // when streaming, drop everything as soon as possible instead of recycling it at the end
+        boolean retain = _options.outputMode != BuildOptions.OutputMode.STREAM;
         ArrayList<Halfedge> halfEdges = new ArrayList();
         ArrayList<Vertex> vertices = new ArrayList();
 
         Site bottomMostSite = _sites.next();
         newSite = _sites.next();
+        if (sink != null && bottomMostSite != null) {
+            sink.arcAdded(bottomMostSite);
+        }
 
         for (;;) {
-            if (heap.empty() == false) {
-                newintstar = heap.min();
-            }
-
             if (newSite != null
-                    && (heap.empty() || compareByYThenX(newSite, newintstar) < 0)) {
+                    && (heap.empty() || compareByYThenX(newSite, heap.minX(), heap.minY()) < 0)) {
                 /* new site is smallest */
                 //trace("smallest: new site " + newSite);
 
                 // Step 8:
-                lbnd = edgeList.edgeListLeftNeighbor(newSite.get_coord());	// the Halfedge just to the left of newSite
+                lbnd = edgeList.edgeListLeftNeighbor(newSite.get_x(), newSite.get_y());	// the Halfedge just to the left of newSite
                 //trace("lbnd: " + lbnd);
                 rbnd = lbnd.edgeListRightNeighbor;		// the Halfedge just to the right
                 //trace("rbnd: " + rbnd);
@@ -330,19 +922,32 @@ public final class Voronoi {
                 //trace("new Site is in region of existing site: " + bottomSite);
 
                 // Step 9:
-                edge = Edge.createBisectingEdge(bottomSite, newSite);
+                edge = Edge.createBisectingEdge(_context, bottomSite, newSite);
+                addNeighbors(bottomSite, newSite);
                 //trace("new edge: " + edge);
-                _edges.add(edge);
+                if (retain) {
+                    _edges.add(edge);
+                }
+                if (sink != null) {
+                    // the new site's arc splits bottomSite's in two
+                    sink.edgeCreated(edge);
+                    sink.arcAdded(bottomSite);
+                    sink.arcAdded(newSite);
+                }
 
-                bisector = Halfedge.create(edge, LR.LEFT);
-                halfEdges.add(bisector);
+                bisector = Halfedge.create(_context, edge, LR.LEFT);
+                if (retain) {
+                    halfEdges.add(bisector);
+                }
                 // inserting two Halfedges into edgeList constitutes Step 10:
                 // insert bisector to the right of lbnd:
                 edgeList.insert(lbnd, bisector);
 
                 // first half of Step 11:
-                if ((vertex = Vertex.intersect(lbnd, bisector)) != null) {
-                    vertices.add(vertex);
+                if ((vertex = Vertex.intersect(_context, lbnd, bisector)) != null) {
+                    if (retain) {
+                        vertices.add(vertex);
+                    }
                     heap.remove(lbnd);
                     lbnd.vertex = vertex;
                     lbnd.ystar = vertex.get_y() + newSite.dist(vertex);
@@ -350,15 +955,19 @@ public final class Voronoi {
                 }
 
                 lbnd = bisector;
-                bisector = Halfedge.create(edge, LR.RIGHT);
-                halfEdges.add(bisector);
+                bisector = Halfedge.create(_context, edge, LR.RIGHT);
+                if (retain) {
+                    halfEdges.add(bisector);
+                }
                 // second Halfedge for Step 10:
                 // insert bisector to the right of lbnd:
                 edgeList.insert(lbnd, bisector);
 
                 // second half of Step 11:
-                if ((vertex = Vertex.intersect(bisector, rbnd)) != null) {
-                    vertices.add(vertex);
+                if ((vertex = Vertex.intersect(_context, bisector, rbnd)) != null) {
+                    if (retain) {
+                        vertices.add(vertex);
+                    }
                     bisector.vertex = vertex;
                     bisector.ystar = vertex.get_y() + newSite.dist(vertex);
                     heap.insert(bisector);
@@ -373,14 +982,23 @@ public final class Voronoi {
                 rrbnd = rbnd.edgeListRightNeighbor;
                 bottomSite = leftRegion(lbnd, bottomMostSite);
                 topSite = rightRegion(rbnd, bottomMostSite);
+                // the arc between lbnd and rbnd vanishes
+                Site middleSite = rightRegion(lbnd, bottomMostSite);
                 // these three sites define a Delaunay triangle
-                // (not actually using these for anything...)
-                //_triangles.push(new Triangle(bottomSite, topSite, rightRegion(lbnd)));
+                if (_triangleBuffer != null) {
+                    _triangleBuffer.add(bottomSite, middleSite, topSite);
+                }
 
                 v = lbnd.vertex;
                 v.setIndex();
                 lbnd.edge.setVertex(lbnd.leftRight, v);
                 rbnd.edge.setVertex(rbnd.leftRight, v);
+                if (sink != null) {
+                    sink.vertexCreated(v);
+                    sink.vertexSet(lbnd.edge);
+                    sink.vertexSet(rbnd.edge);
+                    sink.arcRemoved(middleSite);
+                }
                 edgeList.remove(lbnd);
                 heap.remove(rbnd);
                 edgeList.remove(rbnd);
@@ -391,21 +1009,33 @@ public final class Voronoi {
                     topSite = tempSite;
                     leftRight = LR.RIGHT;
                 }
-                edge = Edge.createBisectingEdge(bottomSite, topSite);
-                _edges.add(edge);
-                bisector = Halfedge.create(edge, leftRight);
-                halfEdges.add(bisector);
+                edge = Edge.createBisectingEdge(_context, bottomSite, topSite);
+                addNeighbors(bottomSite, topSite);
+                if (retain) {
+                    _edges.add(edge);
+                }
+                bisector = Halfedge.create(_context, edge, leftRight);
+                if (retain) {
+                    halfEdges.add(bisector);
+                }
                 edgeList.insert(llbnd, bisector);
                 edge.setVertex(LR.other(leftRight), v);
-                if ((vertex = Vertex.intersect(llbnd, bisector)) != null) {
-                    vertices.add(vertex);
+                if (sink != null) {
+                    sink.edgeCreated(edge);
+                }
+                if ((vertex = Vertex.intersect(_context, llbnd, bisector)) != null) {
+                    if (retain) {
+                        vertices.add(vertex);
+                    }
                     heap.remove(llbnd);
                     llbnd.vertex = vertex;
                     llbnd.ystar = vertex.get_y() + bottomSite.dist(vertex);
                     heap.insert(llbnd);
                 }
-                if ((vertex = Vertex.intersect(bisector, rrbnd)) != null) {
-                    vertices.add(vertex);
+                if ((vertex = Vertex.intersect(_context, bisector, rrbnd)) != null) {
+                    if (retain) {
+                        vertices.add(vertex);
+                    }
                     bisector.vertex = vertex;
                     bisector.ystar = vertex.get_y() + bottomSite.dist(vertex);
                     heap.insert(bisector);
@@ -415,6 +1045,10 @@ public final class Voronoi {
             }
         }
 
+        if (sink != null) {
+            sink.finishSweep(edgeList, _sites);
+        }
+
         // heap should be empty now
         heap.dispose();
         edgeList.dispose();
@@ -424,17 +1058,29 @@ public final class Voronoi {
         }
         halfEdges.clear();
 
-        // we need the vertices to clip the edges
-        for (Edge e : _edges) {
-            e.clipVertices(_plotBounds);
-        }
-        // but we don't actually ever use them again!
+        // the edges keep their vertices until the diagram is disposed;
+        // recycle only the candidates that never became Voronoi vertices
         for (Vertex v0 : vertices) {
-            v0.dispose();
+            if (!v0.isIndexed()) {
+                v0.dispose();
+            }
         }
         vertices.clear();
 
+    }
 
+    private IHalfedgeQueue createEventQueue(Rectangle dataBounds, int sqrt_nsites) {
+        if (_options.eventQueue == BuildOptions.EventQueue.BUCKETS) {
+            return new HalfedgePriorityQueue(_context, dataBounds.y, dataBounds.height, sqrt_nsites);
+        }
+        return new HalfedgeHeap(4 * sqrt_nsites);
+    }
+
+    private EdgeList createEdgeList(Rectangle dataBounds, int sqrt_nsites) {
+        if (_options.edgeListHash == BuildOptions.EdgeListHash.QUANTILES && _sites.get_length() > 0) {
+            return new EdgeList(_context, _sites.xQuantiles(2 * sqrt_nsites - 1));
+        }
+        return new EdgeList(_context, dataBounds.x, dataBounds.width, sqrt_nsites);
     }
 
     Site leftRegion(Halfedge he, Site bottomMostSite) {
@@ -470,16 +1116,20 @@ public final class Voronoi {
     }
 
     public static int compareByYThenX(Site s1, Point s2) {
-        if (s1.get_y() < s2.y) {
+        return compareByYThenX(s1, s2.x, s2.y);
+    }
+
+    public static int compareByYThenX(Site s1, double x, double y) {
+        if (s1.get_y() < y) {
             return -1;
         }
-        if (s1.get_y() > s2.y) {
+        if (s1.get_y() > y) {
             return 1;
         }
-        if (s1.get_x() < s2.x) {
+        if (s1.get_x() < x) {
             return -1;
         }
-        if (s1.get_x() > s2.x) {
+        if (s1.get_x() > x) {
             return 1;
         }
         return 0;
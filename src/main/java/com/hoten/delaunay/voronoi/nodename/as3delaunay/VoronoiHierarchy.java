@@ -0,0 +1,303 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A coarse Voronoi diagram whose cells are each filled with a finer diagram,
+ * clipped to the cell. The fine diagrams are built when first asked for,
+ * by child(), or ahead of time on a fork-join pool by prefetch() and
+ * children(); they are independent, so any number can be built at once.
+ *
+ * Cells are the sites of the coarse diagram, numbered like its
+ * VoronoiResult. A cell whose region is empty, as for a site outside the
+ * clip bounds, has no child. subdivide() makes another level below a
+ * cell.
+ */
+public final class VoronoiHierarchy {
+
+    /**
+     * Picks the sites of the diagram inside one cell. Children can be built
+     * on several threads at once, so this has to be thread safe.
+     */
+    public interface SiteSource {
+
+        /**
+         * @param bounds the region of the cell
+         * @return x0, y0, x1, y1, ...
+         */
+        double[] sites(int cell, ConvexPolygon bounds);
+    }
+
+    private final VoronoiHierarchy _parent;
+    private final int _parentCell;
+    private final Voronoi _voronoi;
+    private final SiteSource _source;
+    private final BuildOptions _childOptions;
+    private final ForkJoinPool _pool;
+    private final double[] _siteCoords;
+    private final NeighborTable _neighbors;
+    // null for a cell with an empty region
+    private final ConvexPolygon[] _cellBounds;
+    // the build of each child, once something asked for it
+    private final AtomicReferenceArray<ForkJoinTask<Voronoi>> _children;
+    // where the last locate() ended; a good start for the next one
+    private volatile int _hint;
+
+    /**
+     * @param voronoi the coarse diagram; it is only read
+     * @param childOptions for every child, or null for the defaults
+     * @param pool to build children ahead of time on, or null for the common
+     * pool
+     */
+    public VoronoiHierarchy(Voronoi voronoi, SiteSource source, BuildOptions childOptions, ForkJoinPool pool) {
+        this(null, -1, voronoi, source, childOptions, pool);
+    }
+
+    private VoronoiHierarchy(VoronoiHierarchy parent, int parentCell, Voronoi voronoi, SiteSource source,
+            BuildOptions childOptions, ForkJoinPool pool) {
+        _parent = parent;
+        _parentCell = parentCell;
+        _voronoi = voronoi;
+        _source = source;
+        _childOptions = childOptions != null ? childOptions : new BuildOptions();
+        _pool = pool != null ? pool : ForkJoinPool.commonPool();
+        // everything children need is taken from the coarse diagram now, so they can be built on any thread
+        VoronoiResult result = voronoi.result();
+        _siteCoords = result.siteCoords;
+        _neighbors = voronoi.neighborTable();
+        RegionTable regions = voronoi.regionTable();
+        _cellBounds = new ConvexPolygon[result.numSites];
+        for (int cell = 0; cell < result.numSites; ++cell) {
+            // a site with no neighbors among several is a duplicate, and has no region of its own
+            if (regions.size(cell) < 3 || (_neighbors.degree(cell) == 0 && result.numSites > 1)) {
+                continue;
+            }
+            try {
+                _cellBounds[cell] = new ConvexPolygon(Arrays.copyOfRange(regions.coords,
+                        2 * regions.offsets[cell], 2 * regions.offsets[cell + 1]));
+            } catch (IllegalArgumentException e) {
+                // a sliver with no area to speak of
+            }
+        }
+        _children = new AtomicReferenceArray(result.numSites);
+    }
+
+    /**
+     * Sites spread evenly over each cell, numSites of them. The same seed
+     * gives the same sites for a cell whatever order cells are built in.
+     */
+    public static SiteSource uniform(int numSites, long seed) {
+        return (cell, bounds) -> {
+            Random r = new Random(seed ^ (0x9E3779B97F4A7C15L * (cell + 1)));
+            int n = bounds.numCorners();
+            // fan the polygon into triangles from corner 0, picked by their area
+            double[] cumulative = new double[n - 2];
+            double total = 0;
+            for (int i = 1; i < n - 1; ++i) {
+                total += Math.abs(cross(bounds, 0, i, i + 1));
+                cumulative[i - 1] = total;
+            }
+            double[] xy = new double[2 * numSites];
+            for (int s = 0; s < numSites; ++s) {
+                double pick = r.nextDouble() * total;
+                int t = 0;
+                while (t < n - 3 && cumulative[t] < pick) {
+                    ++t;
+                }
+                double u = r.nextDouble(), v = r.nextDouble();
+                if (u + v > 1) {
+                    u = 1 - u;
+                    v = 1 - v;
+                }
+                double x0 = bounds.cornerX(0), y0 = bounds.cornerY(0);
+                xy[2 * s] = x0 + u * (bounds.cornerX(t + 1) - x0) + v * (bounds.cornerX(t + 2) - x0);
+                xy[2 * s + 1] = y0 + u * (bounds.cornerY(t + 1) - y0) + v * (bounds.cornerY(t + 2) - y0);
+            }
+            return xy;
+        };
+    }
+
+    private static double cross(ConvexPolygon p, int a, int b, int c) {
+        return (p.cornerX(b) - p.cornerX(a)) * (p.cornerY(c) - p.cornerY(a))
+                - (p.cornerY(b) - p.cornerY(a)) * (p.cornerX(c) - p.cornerX(a));
+    }
+
+    public Voronoi get_voronoi() {
+        return _voronoi;
+    }
+
+    /**
+     * @return the level above, or null for the top one
+     */
+    public VoronoiHierarchy get_parent() {
+        return _parent;
+    }
+
+    /**
+     * @return the cell of get_parent() this level fills, or -1 for the top
+     * one
+     */
+    public int get_parentCell() {
+        return _parentCell;
+    }
+
+    public int get_numCells() {
+        return _cellBounds.length;
+    }
+
+    /**
+     * @return the region of cell, which its child is clipped to, or null if
+     * it is empty
+     */
+    public ConvexPolygon cellBounds(int cell) {
+        return _cellBounds[cell];
+    }
+
+    /**
+     * @return the cell whose site is nearest to (x, y), which is the cell
+     * holding it if it is inside the clip bounds at all; -1 if there are no
+     * cells
+     */
+    public int locate(double x, double y) {
+        if (_siteCoords.length == 0) {
+            return -1;
+        }
+        int site = _hint;
+        if (_neighbors.degree(site) == 0) {
+            return nearestByScan(x, y);
+        }
+        // a greedy walk along Delaunay edges ends at the nearest site
+        double best = distanceSquared(site, x, y);
+        for (boolean moved = true; moved;) {
+            moved = false;
+            int from = site;
+            for (int k = _neighbors.offsets[from]; k < _neighbors.offsets[from + 1]; ++k) {
+                int n = _neighbors.neighbors[k];
+                double d = distanceSquared(n, x, y);
+                if (d < best) {
+                    best = d;
+                    site = n;
+                    moved = true;
+                }
+            }
+        }
+        _hint = site;
+        return site;
+    }
+
+    private int nearestByScan(double x, double y) {
+        int nearest = 0;
+        double best = Double.MAX_VALUE;
+        for (int s = 0; s < _siteCoords.length / 2; ++s) {
+            double d = distanceSquared(s, x, y);
+            if (d < best) {
+                best = d;
+                nearest = s;
+            }
+        }
+        if (_neighbors.degree(nearest) > 0) {
+            _hint = nearest;
+        }
+        return nearest;
+    }
+
+    private double distanceSquared(int site, double x, double y) {
+        double dx = _siteCoords[2 * site] - x;
+        double dy = _siteCoords[2 * site + 1] - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * The diagram inside cell, built now by this thread if nothing has asked
+     * for it yet, or waited for if it is being built elsewhere.
+     *
+     * @return null if the cell's region is empty
+     */
+    public Voronoi child(int cell) {
+        if (_cellBounds[cell] == null) {
+            return null;
+        }
+        ForkJoinTask<Voronoi> task = _children.get(cell);
+        if (task == null) {
+            ForkJoinTask<Voronoi> created = build(cell);
+            if (_children.compareAndSet(cell, null, created)) {
+                return created.invoke();
+            }
+            task = _children.get(cell);
+        }
+        return task.join();
+    }
+
+    /**
+     * Starts building the children of cells that nothing has asked for yet
+     * on the pool, and returns without waiting for them.
+     */
+    public void prefetch(int... cells) {
+        for (int cell : cells) {
+            if (_cellBounds[cell] != null && _children.get(cell) == null) {
+                ForkJoinTask<Voronoi> created = build(cell);
+                if (_children.compareAndSet(cell, null, created)) {
+                    _pool.execute(created);
+                }
+            }
+        }
+    }
+
+    /**
+     * The children of cells, built in parallel on the pool where needed.
+     *
+     * @return null for cells with an empty region
+     */
+    public Voronoi[] children(int... cells) {
+        prefetch(cells);
+        Voronoi[] children = new Voronoi[cells.length];
+        for (int i = 0; i < cells.length; ++i) {
+            children[i] = child(cells[i]);
+        }
+        return children;
+    }
+
+    /**
+     * @return whether the child of cell is built and child(cell) will not
+     * wait
+     */
+    public boolean isBuilt(int cell) {
+        ForkJoinTask<Voronoi> task = _children.get(cell);
+        return task != null && task.isDone();
+    }
+
+    /**
+     * Forgets the child of cell, so that it can be collected; the next
+     * child(cell) builds it again, with the same sites if the SiteSource
+     * gives them.
+     */
+    public void release(int cell) {
+        _children.set(cell, null);
+    }
+
+    /**
+     * The level below cell: its child as the coarse diagram of another
+     * hierarchy, with the same options and pool.
+     *
+     * @return null if the cell's region is empty
+     */
+    public VoronoiHierarchy subdivide(int cell, SiteSource source) {
+        Voronoi child = child(cell);
+        if (child == null) {
+            return null;
+        }
+        return new VoronoiHierarchy(this, cell, child, source, _childOptions, _pool);
+    }
+
+    private ForkJoinTask<Voronoi> build(int cell) {
+        return ForkJoinTask.adapt(() -> {
+            ConvexPolygon bounds = _cellBounds[cell];
+            return new Voronoi(_source.sites(cell, bounds), bounds, _childOptions, null);
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.ArrayList;
+
+/**
+ * A Voronoi diagram as flat arrays, with no objects per site, edge or vertex.
+ *
+ * Sites are numbered in y, then x order, the same order siteCoords() uses,
+ * after exact duplicates are dropped, until Voronoi.insertSite() or
+ * removeSite() renumber some of them. Input site i, counting duplicates, is
+ * site inputSites[i]: a duplicate is the site it coincides with, and a
+ * removed site is -1. Voronoi vertices are numbered 0..numVertices-1 for
+ * each build; edges keep the order of edges(). Edge e bisects sites
+ * edges[4e] (left) and edges[4e + 1] (right) and runs from vertex
+ * edges[4e + 2] (left) to vertex edges[4e + 3] (right), where -1 means the
+ * edge extends to infinity on that side. Its visible part runs from
+ * (clippedEnds[4e], clippedEnds[4e + 1]) to (clippedEnds[4e + 2],
+ * clippedEnds[4e + 3]); all four are NaN if no part of the edge is inside
+ * clipBounds.
+ */
+public final class VoronoiResult {
+
+    // what the edges are clipped to, and the Rectangle around it
+    public final ConvexPolygon clipBounds;
+    public final Rectangle bounds;
+    public final int numSites, numVertices, numEdges;
+    // x, y per site
+    public final double[] siteCoords;
+    // site per input site
+    public final int[] inputSites;
+    // x, y per vertex
+    public final double[] vertexCoords;
+    // left site, right site, left vertex, right vertex per edge
+    public final int[] edges;
+    // left x, left y, right x, right y per edge
+    public final double[] clippedEnds;
+
+    private VoronoiResult(ConvexPolygon clipBounds, int[] inputSites, int numSites, int numVertices, int numEdges) {
+        this.clipBounds = clipBounds;
+        this.inputSites = inputSites;
+        this.bounds = clipBounds.bounds;
+        this.numSites = numSites;
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        siteCoords = new double[2 * numSites];
+        vertexCoords = new double[2 * numVertices];
+        edges = new int[4 * numEdges];
+        clippedEnds = new double[4 * numEdges];
+    }
+
+    private VoronoiResult(ConvexPolygon clipBounds, int[] inputSites, double[] siteCoords, double[] vertexCoords,
+            int[] edges, double[] clippedEnds) {
+        this.clipBounds = clipBounds;
+        this.inputSites = inputSites;
+        this.bounds = clipBounds.bounds;
+        this.numSites = siteCoords.length / 2;
+        this.numVertices = vertexCoords.length / 2;
+        this.numEdges = edges.length / 4;
+        this.siteCoords = siteCoords;
+        this.vertexCoords = vertexCoords;
+        this.edges = edges;
+        this.clippedEnds = clippedEnds;
+    }
+
+    /**
+     * A result made up elsewhere, as PeriodicVoronoi does; the arrays are
+     * kept, not copied.
+     */
+    static VoronoiResult create(ConvexPolygon clipBounds, int[] inputSites, double[] siteCoords,
+            double[] vertexCoords, int[] edges, double[] clippedEnds) {
+        return new VoronoiResult(clipBounds, inputSites, siteCoords, vertexCoords, edges, clippedEnds);
+    }
+
+    /**
+     * @param sites sorted, so that their indices are settled
+     * @param vertexBase the index the first Voronoi vertex of this build got
+     * @param clipped whether clipVertices() has been called on the edges
+     */
+    static VoronoiResult create(SiteList sites, ArrayList<Edge> edgeList, int vertexBase, int numVertices,
+            ConvexPolygon clipBounds, boolean clipped) {
+        int numSites = sites.get_length();
+        int numEdges = edgeList.size();
+        VoronoiResult result = new VoronoiResult(clipBounds, sites.inputSites(), numSites, numVertices, numEdges);
+
+        for (int i = 0; i < numSites; ++i) {
+            Site site = sites.get(i);
+            result.siteCoords[2 * i] = site.get_x();
+            result.siteCoords[2 * i + 1] = site.get_y();
+        }
+
+        int[] edges = result.edges;
+        double[] clippedEnds = result.clippedEnds;
+        for (int i = 0; i < numEdges; ++i) {
+            Edge edge = edgeList.get(i);
+            int k = 4 * i;
+            edges[k] = edge.get_leftSite().get_siteIndex();
+            edges[k + 1] = edge.get_rightSite().get_siteIndex();
+            edges[k + 2] = result.vertexIndex(edge.get_leftVertex(), vertexBase);
+            edges[k + 3] = result.vertexIndex(edge.get_rightVertex(), vertexBase);
+
+            boolean visible;
+            if (clipped) {
+                visible = edge.get_visible();
+                if (visible) {
+                    clippedEnds[k] = edge.clippedEnd(LR.LEFT).x;
+                    clippedEnds[k + 1] = edge.clippedEnd(LR.LEFT).y;
+                    clippedEnds[k + 2] = edge.clippedEnd(LR.RIGHT).x;
+                    clippedEnds[k + 3] = edge.clippedEnd(LR.RIGHT).y;
+                }
+            } else {
+                visible = edge.clipVertices(clipBounds, clippedEnds, k);
+            }
+            if (!visible) {
+                clippedEnds[k] = clippedEnds[k + 1] = clippedEnds[k + 2] = clippedEnds[k + 3] = Double.NaN;
+            }
+        }
+        return result;
+    }
+
+    // also records the vertex coordinates, which are only reachable through the edges
+    private int vertexIndex(Vertex vertex, int vertexBase) {
+        if (vertex == null) {
+            return -1;
+        }
+        int index = vertex.get_vertexIndex() - vertexBase;
+        vertexCoords[2 * index] = vertex.get_x();
+        vertexCoords[2 * index + 1] = vertex.get_y();
+        return index;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.ConvexPolygon;
+import com.hoten.delaunay.geom.Point;
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Clipped to a polygon that is not a rectangle, region() follows the border
+ * the same way as regionTable(), for sites on a grid, whose zero-length edges
+ * tell nothing about which way they go around a site, and for random sites.
+ */
+public class ClipTest {
+
+    private static final ConvexPolygon[] BOUNDS = {
+        new ConvexPolygon(new double[]{50, -20, 120, 30, 100, 110, 10, 120, -15, 40}),
+        new ConvexPolygon(new double[]{-30, -10, 100, -25, 40, 90}),
+        new ConvexPolygon(new double[]{20, -15, 45, -15, 70, 5, 70, 30, 45, 50, 20, 50, -5, 30, -5, 5})
+    };
+
+    @Test
+    public void regionsOfGridSites() {
+        for (int k : new int[]{2, 3, 7}) {
+            double[] coords = new double[2 * 7 * k];
+            for (int i = 0; i < 7 * k; i++) {
+                coords[2 * i] = 10 * (i % 7);
+                coords[2 * i + 1] = 10 * (i / 7);
+            }
+            compare(coords, "7 by " + k + " grid", true);
+        }
+    }
+
+    @Test
+    public void regionsOfRandomSites() {
+        Random r = new Random(1);
+        for (int trial = 0; trial < 20; trial++) {
+            double[] coords = new double[2 * (3 + r.nextInt(200))];
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] = 140 * r.nextDouble() - 30;
+            }
+            compare(coords, "trial " + trial, false);
+        }
+    }
+
+    /**
+     * Checks that region() has the points of regionTable(), or for sites in
+     * general position, which may have ends closer than region() keeps apart,
+     * the same area.
+     */
+    private static void compare(double[] coords, String input, boolean exact) {
+        for (int b = 0; b < BOUNDS.length; b++) {
+            for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+                String in = input + ", bounds " + b + ", " + engine;
+                Voronoi voronoi = new Voronoi(coords, BOUNDS[b], new BuildOptions().engine(engine), null);
+                RegionTable table = voronoi.regionTable();
+                ArrayList<Point> sites = voronoi.siteCoords();
+                for (int s = 0; s < table.numSites; s++) {
+                    ArrayList<Point> region = voronoi.region(sites.get(s));
+                    ArrayList<Point> expected = table.region(s);
+                    String message = in + ", site " + s + ": " + region + " vs " + expected;
+                    if (!exact) {
+                        assertEquals(message, area(expected), area(region), 0.05);
+                        continue;
+                    }
+                    assertEquals(message, expected.size(), region.size());
+                    for (Point p : region) {
+                        assertTrue(message, contains(expected, p));
+                    }
+                }
+                voronoi.dispose();
+            }
+        }
+    }
+
+    private static boolean contains(ArrayList<Point> points, Point p) {
+        for (Point q : points) {
+            if (Point.distance(p, q) < 1e-6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double area(ArrayList<Point> points) {
+        return Math.abs(new Polygon(points).area());
+    }
+}
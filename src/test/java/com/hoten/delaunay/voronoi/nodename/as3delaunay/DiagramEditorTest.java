@@ -0,0 +1,210 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * A diagram edited with insertSite() and removeSite() is the diagram built
+ * from its sites again: the same regions, neighbors and triangles, whether
+ * DiagramEditor patched it or it fell back on building it again.
+ */
+public class DiagramEditorTest {
+
+    private static final Rectangle BOUNDS = new Rectangle(0, 0, 1000, 1000);
+
+    @Test
+    public void randomEditsMatchRebuild() {
+        Random r = new Random(1);
+        for (int sequence = 0; sequence < 200; sequence++) {
+            BuildOptions.Engine engine = sequence % 2 == 0 ? BuildOptions.Engine.SWEEP
+                    : BuildOptions.Engine.DIVIDE_AND_CONQUER;
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 20 + r.nextInt(100); i > 0; i--) {
+                points.add(new Point(1000 * r.nextDouble(), 1000 * r.nextDouble()));
+            }
+            Voronoi voronoi = new Voronoi(points, null, BOUNDS, options(engine));
+            for (int step = 0; step < 20; step++) {
+                String input = "sequence " + sequence + ", step " + step;
+                if (r.nextBoolean()) {
+                    remove(voronoi, engine, r.nextInt(voronoi.siteCoords().size()), input);
+                } else {
+                    // sites outside the bounds too, which change the hull
+                    insert(voronoi, engine, new Point(1200 * r.nextDouble() - 100, 1200 * r.nextDouble() - 100), input);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void removalsDownToTwoSites() {
+        Random r = new Random(2);
+        for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < 8; i++) {
+                points.add(new Point(1000 * r.nextDouble(), 1000 * r.nextDouble()));
+            }
+            Voronoi voronoi = new Voronoi(points, null, BOUNDS, options(engine));
+            while (voronoi.siteCoords().size() > 1) {
+                remove(voronoi, engine, r.nextInt(voronoi.siteCoords().size()), engine + ", " + voronoi.siteCoords().size());
+            }
+            insert(voronoi, engine, new Point(500, 500), engine + ", insert after");
+            insert(voronoi, engine, new Point(250, 750), engine + ", insert after");
+            insert(voronoi, engine, new Point(750, 600), engine + ", insert after");
+        }
+    }
+
+    @Test
+    public void editsThroughCollinearSites() {
+        for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < 6; i++) {
+                points.add(new Point(100 + 150 * i, 200 + 100 * i));
+            }
+            points.add(new Point(800, 100));
+            Voronoi voronoi = new Voronoi(points, null, BOUNDS, options(engine));
+            // taking away the one site off the line leaves no triangle
+            remove(voronoi, engine, 6, engine + ", off the line");
+            insert(voronoi, engine, new Point(475, 450), engine + ", on the line");
+            remove(voronoi, engine, 0, engine + ", end of the line");
+            insert(voronoi, engine, new Point(200, 900), engine + ", off the line again");
+            remove(voronoi, engine, 2, engine + ", from the line");
+        }
+    }
+
+    @Test
+    public void rebuildsAroundALongLine() {
+        for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < 300; i++) {
+                points.add(new Point(100 + 2.5 * i, 150 + 2 * i));
+            }
+            Voronoi voronoi = new Voronoi(points, null, BOUNDS, options(engine));
+            // both are rebuilt by the divide and conquer engine, whichever one built the diagram
+            insert(voronoi, engine, new Point(500, 300), engine + ", off the line");
+            remove(voronoi, engine, voronoi.siteCoords().size() - 1, engine + ", back to the line");
+        }
+    }
+
+    private static BuildOptions options(BuildOptions.Engine engine) {
+        return new BuildOptions().engine(engine).triangles(true);
+    }
+
+    private static void insert(Voronoi voronoi, BuildOptions.Engine engine, Point p, String input) {
+        NeighborTable before = voronoi.neighborTable();
+        int[] affected = voronoi.insertSite(p);
+        int site = voronoi.siteCoords().size() - 1;
+        assertAt(voronoi, site, p, input);
+        assertTrue(input, Arrays.binarySearch(affected, site) >= 0);
+        check(voronoi, engine, before, -1, -1, affected, input);
+    }
+
+    private static void remove(Voronoi voronoi, BuildOptions.Engine engine, int site, String input) {
+        NeighborTable before = voronoi.neighborTable();
+        int last = voronoi.siteCoords().size() - 1;
+        Point moved = voronoi.siteCoords().get(last);
+        int[] affected = voronoi.removeSite(site);
+        if (site != last) {
+            // the last site takes over the index
+            assertAt(voronoi, site, moved, input);
+            assertTrue(input, Arrays.binarySearch(affected, site) >= 0);
+        }
+        check(voronoi, engine, before, site, last, affected, input);
+    }
+
+    private static void assertAt(Voronoi voronoi, int site, Point p, String input) {
+        Point at = voronoi.siteCoords().get(site);
+        assertTrue(input + ", site " + site + " at " + at + ", not " + p, at.x == p.x && at.y == p.y);
+    }
+
+    /**
+     * Compares voronoi with the diagram built from its sites, and checks that
+     * every site whose neighbors changed is among affected.
+     *
+     * @param removed the index of the removed site, or -1
+     * @param last the index of the site that took over removed's before
+     */
+    private static void check(Voronoi voronoi, BuildOptions.Engine engine, NeighborTable before, int removed,
+            int last, int[] affected, String input) {
+        ArrayList<Point> sites = voronoi.siteCoords();
+        Voronoi fresh = new Voronoi(new ArrayList(sites), null, BOUNDS, options(engine));
+        // a fresh build numbers the sites in its own order
+        HashMap<String, Integer> numbers = new HashMap();
+        for (int s = 0; s < sites.size(); s++) {
+            numbers.put(sites.get(s).x + " " + sites.get(s).y, s);
+        }
+        ArrayList<Point> freshSites = fresh.siteCoords();
+        int[] renumber = new int[freshSites.size()], freshIndex = new int[sites.size()];
+        for (int f = 0; f < renumber.length; f++) {
+            renumber[f] = numbers.get(freshSites.get(f).x + " " + freshSites.get(f).y);
+            freshIndex[renumber[f]] = f;
+        }
+        NeighborTable neighbors = voronoi.neighborTable(), freshNeighbors = fresh.neighborTable();
+        RegionTable regions = voronoi.regionTable(), freshRegions = fresh.regionTable();
+        assertEquals(input, sites.size(), neighbors.numSites);
+        assertEquals(input, sites.size(), regions.numSites);
+        for (int s = 0; s < sites.size(); s++) {
+            String at = input + ", site " + s;
+            int[] expected = neighbors(freshNeighbors, freshIndex[s], renumber);
+            assertArrayEquals(at, expected, neighbors(neighbors, s, null));
+            double area = area(freshRegions, freshIndex[s]);
+            assertEquals(at, area, area(regions, s), area * 1e-9);
+            if (Arrays.binarySearch(affected, s) < 0) {
+                // the same neighbors as before, the last site going by its new index
+                int[] was = neighbors(before, s, null);
+                for (int i = 0; i < was.length; i++) {
+                    if (was[i] == last) {
+                        was[i] = removed;
+                    }
+                }
+                Arrays.sort(was);
+                assertArrayEquals(at + " changed but was not reported", expected, was);
+            }
+        }
+        assertEquals(input, triangles(fresh, renumber), triangles(voronoi, null));
+        fresh.dispose();
+    }
+
+    // the neighbors of site, renumbered unless renumber is null, in ascending order
+    private static int[] neighbors(NeighborTable table, int site, int[] renumber) {
+        int[] neighbors = Arrays.copyOfRange(table.neighbors, table.offsets[site], table.offsets[site + 1]);
+        for (int i = 0; renumber != null && i < neighbors.length; i++) {
+            neighbors[i] = renumber[neighbors[i]];
+        }
+        Arrays.sort(neighbors);
+        return neighbors;
+    }
+
+    private static double area(RegionTable regions, int site) {
+        double twice = 0;
+        for (int i = regions.offsets[site]; i < regions.offsets[site + 1]; i++) {
+            int j = i + 1 < regions.offsets[site + 1] ? i + 1 : regions.offsets[site];
+            twice += regions.coords[2 * i] * regions.coords[2 * j + 1] - regions.coords[2 * j] * regions.coords[2 * i + 1];
+        }
+        return Math.abs(twice) / 2;
+    }
+
+    // the triangles, renumbered like neighbors(), each starting at its lowest site, in order
+    private static String triangles(Voronoi voronoi, int[] renumber) {
+        int[] out = voronoi.triangles().clone();
+        for (int i = 0; renumber != null && i < out.length; i++) {
+            out[i] = renumber[out[i]];
+        }
+        String[] triangles = new String[out.length / 3];
+        for (int t = 0; t < triangles.length; t++) {
+            int a = out[3 * t], b = out[3 * t + 1], c = out[3 * t + 2];
+            int k = a < b && a < c ? 0 : b < c ? 1 : 2;
+            triangles[t] = out[3 * t + k] + " " + out[3 * t + (k + 1) % 3] + " " + out[3 * t + (k + 2) % 3];
+        }
+        Arrays.sort(triangles);
+        return String.join(", ", triangles);
+    }
+}
@@ -0,0 +1,229 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The divide and conquer engine finds the same Delaunay edges as the sweep
+ * for random sites, which are well separated and in general position. For
+ * sites on circles and grids, near a line, in tight clusters or given twice,
+ * its triangulation is a valid Delaunay triangulation.
+ */
+public class EngineTest {
+
+    private static final Rectangle BOUNDS = new Rectangle(0, 0, 1000, 1000);
+
+    @Test
+    public void edgesMatchSweepOnSmallInputs() {
+        Random r = new Random(1);
+        for (int trial = 0; trial < 500; trial++) {
+            compare(random(3 + r.nextInt(60), r), "trial " + trial);
+        }
+    }
+
+    @Test
+    public void edgesMatchSweepOnLargeInputs() {
+        Random r = new Random(2);
+        for (int n : new int[]{1000, 20000}) {
+            compare(random(n, r), n + " sites");
+        }
+    }
+
+    @Test
+    public void sitesOnACircle() {
+        for (int n : new int[]{4, 5, 16, 256, 1000, 2000}) {
+            for (boolean center : new boolean[]{false, true}) {
+                ArrayList<Point> points = new ArrayList();
+                for (int i = 0; i < n; i++) {
+                    points.add(new Point(500 + 400 * Math.cos(2 * Math.PI * i / n),
+                            500 + 400 * Math.sin(2 * Math.PI * i / n)));
+                }
+                if (center) {
+                    points.add(new Point(500, 500));
+                }
+                checkDelaunay(points, n + " sites on a circle" + (center ? " and its center" : ""));
+            }
+        }
+    }
+
+    @Test
+    public void sitesOnAGrid() {
+        for (int k : new int[]{2, 3, 7, 40}) {
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < k * k; i++) {
+                points.add(new Point(100 + 800.0 * (i % k) / k, 100 + 800.0 * (i / k) / k));
+            }
+            checkDelaunay(points, k + " by " + k + " grid");
+        }
+    }
+
+    @Test
+    public void sitesNearALine() {
+        Random r = new Random(3);
+        for (int n : new int[]{10, 2000}) {
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < n; i++) {
+                double x = 1000 * r.nextDouble();
+                points.add(new Point(x, 200 + 0.6 * x + 1e-9 * r.nextDouble()));
+            }
+            checkDelaunay(points, n + " sites near a line");
+        }
+    }
+
+    @Test
+    public void tightClusters() {
+        Random r = new Random(4);
+        ArrayList<Point> points = new ArrayList();
+        for (int c = 0; c < 20; c++) {
+            double x = 1000 * r.nextDouble(), y = 1000 * r.nextDouble();
+            for (int i = 0; i < 100; i++) {
+                points.add(new Point(x + 1e-7 * r.nextDouble(), y + 1e-7 * r.nextDouble()));
+            }
+        }
+        checkDelaunay(points, "20 clusters of 100 sites");
+    }
+
+    @Test
+    public void duplicateSites() {
+        Random r = new Random(5);
+        ArrayList<Point> points = random(1000, r);
+        for (int i = 1000; i < 3000; i++) {
+            Point of = points.get(r.nextInt(i));
+            points.add(new Point(of.x, of.y));
+        }
+        assertEquals(1000, checkDelaunay(points, "1000 sites given 3000 times"));
+        compare(points, "1000 sites given 3000 times");
+    }
+
+    private static ArrayList<Point> random(int n, Random r) {
+        ArrayList<Point> points = new ArrayList();
+        for (int i = 0; i < n; i++) {
+            points.add(new Point(1000 * r.nextDouble(), 1000 * r.nextDouble()));
+        }
+        return points;
+    }
+
+    private static void compare(ArrayList<Point> points, String input) {
+        HashSet<String> sweep = delaunayEdges(new Voronoi(points, null, BOUNDS,
+                new BuildOptions().engine(BuildOptions.Engine.SWEEP)));
+        HashSet<String> divideAndConquer = delaunayEdges(new Voronoi(points, null, BOUNDS,
+                new BuildOptions().engine(BuildOptions.Engine.DIVIDE_AND_CONQUER)));
+        assertEquals(input, sweep, divideAndConquer);
+    }
+
+    // the Delaunay edges of voronoi, by the coordinates of their sites
+    private static HashSet<String> delaunayEdges(Voronoi voronoi) {
+        HashSet<String> edges = new HashSet();
+        for (Edge edge : voronoi.edges()) {
+            String left = key(edge.get_leftSite()), right = key(edge.get_rightSite());
+            edges.add(left.compareTo(right) < 0 ? left + " " + right : right + " " + left);
+        }
+        voronoi.dispose();
+        return edges;
+    }
+
+    /**
+     * Checks that the divide and conquer triangulation of points, read off its
+     * edges with one Voronoi vertex per triangle, covers the convex hull of the
+     * sites, once, with triangles whose circumcircles have no neighboring site
+     * strictly inside. The sweep must build points as well.
+     *
+     * @return the number of sites left once duplicates are set aside
+     */
+    private static int checkDelaunay(ArrayList<Point> points, String input) {
+        new Voronoi(points, null, BOUNDS, new BuildOptions().engine(BuildOptions.Engine.SWEEP)).dispose();
+        Voronoi voronoi = new Voronoi(points, null, BOUNDS,
+                new BuildOptions().engine(BuildOptions.Engine.DIVIDE_AND_CONQUER));
+        HashSet<String> sites = new HashSet();
+        for (Point p : points) {
+            sites.add(p.x + " " + p.y);
+        }
+        int n = sites.size();
+        // the sites of the edges that meet at each vertex, made counterclockwise
+        HashMap<Vertex, ArrayList<Site>> triangles = new HashMap();
+        for (Edge edge : voronoi.edges()) {
+            for (Vertex v : new Vertex[]{edge.get_leftVertex(), edge.get_rightVertex()}) {
+                if (v == null) {
+                    continue;
+                }
+                if (!triangles.containsKey(v)) {
+                    triangles.put(v, new ArrayList());
+                }
+                for (Site s : new Site[]{edge.get_leftSite(), edge.get_rightSite()}) {
+                    if (!triangles.get(v).contains(s)) {
+                        triangles.get(v).add(s);
+                    }
+                }
+            }
+        }
+        for (ArrayList<Site> triangle : triangles.values()) {
+            assertEquals(input + ", triangle " + triangle, 3, triangle.size());
+            double area = orient(triangle.get(0), triangle.get(1), triangle.get(2));
+            assertTrue(input + ", triangle " + triangle + " is flat", area != 0);
+            if (area < 0) {
+                triangle.add(triangle.remove(1));
+            }
+        }
+        // the hull edge out of each hull site, with its triangle on the left
+        HashMap<Site, Site> hull = new HashMap();
+        for (Edge edge : voronoi.edges()) {
+            Site a = edge.get_leftSite(), b = edge.get_rightSite();
+            Vertex left = edge.get_leftVertex(), right = edge.get_rightVertex();
+            if (left == null || right == null) {
+                if (orient(a, b, opposite(triangles.get(left == null ? right : left), a, b)) < 0) {
+                    Site swap = a;
+                    a = b;
+                    b = swap;
+                }
+                assertNull(input + ", hull forks at " + a, hull.put(a, b));
+                continue;
+            }
+            ArrayList<Site> triangle = triangles.get(left);
+            Site across = opposite(triangles.get(right), a, b);
+            assertTrue(input + ", site " + across + " is inside the circumcircle of " + triangle,
+                    Predicates.inCircle(triangle.get(0).get_x(), triangle.get(0).get_y(),
+                            triangle.get(1).get_x(), triangle.get(1).get_y(),
+                            triangle.get(2).get_x(), triangle.get(2).get_y(), across.get_x(), across.get_y()) <= 0);
+        }
+        // one convex hull around the triangles, and no site left out: Euler
+        Site first = hull.keySet().iterator().next(), from = first;
+        int steps = 0;
+        do {
+            Site to = hull.get(from), next = hull.get(to);
+            assertTrue(input + ", hull turns right at " + to, orient(from, to, next) >= 0);
+            from = to;
+            steps++;
+        } while (from != first && steps <= hull.size());
+        assertEquals(input + ", hull", hull.size(), steps);
+        assertEquals(input + ", triangles", 2 * n - hull.size() - 2, triangles.size());
+        voronoi.dispose();
+        return n;
+    }
+
+    // the site of triangle that is neither a nor b
+    private static Site opposite(ArrayList<Site> triangle, Site a, Site b) {
+        for (Site s : triangle) {
+            if (s != a && s != b) {
+                return s;
+            }
+        }
+        throw new AssertionError(triangle + " has no site besides " + a + " and " + b);
+    }
+
+    private static double orient(Site a, Site b, Site c) {
+        return Predicates.orient(a.get_x(), a.get_y(), b.get_x(), b.get_y(), c.get_x(), c.get_y());
+    }
+
+    private static String key(Site site) {
+        return site.get_x() + " " + site.get_y();
+    }
+}
@@ -0,0 +1,37 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * The bucketed event queue builds the same diagrams as the heap, down to the
+ * smallest inputs, where the sweep takes events without asking for the
+ * minimum first.
+ */
+public class EventQueueTest {
+
+    @Test
+    public void bucketsMatchHeapOnSmallInputs() {
+        Random r = new Random(1);
+        Rectangle bounds = new Rectangle(0, 0, 100, 100);
+        for (int trial = 0; trial < 2000; trial++) {
+            int n = 1 + r.nextInt(8);
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] = 100 * r.nextDouble();
+            }
+            VoronoiResult heap = new Voronoi(coords, bounds,
+                    new BuildOptions().eventQueue(BuildOptions.EventQueue.HEAP)).result();
+            VoronoiResult buckets = new Voronoi(coords, bounds,
+                    new BuildOptions().eventQueue(BuildOptions.EventQueue.BUCKETS)).result();
+            String input = n + " sites, trial " + trial;
+            assertArrayEquals(input, heap.siteCoords, buckets.siteCoords, 0);
+            assertArrayEquals(input, heap.vertexCoords, buckets.vertexCoords, 0);
+            assertArrayEquals(input, heap.edges, buckets.edges);
+            assertArrayEquals(input, heap.clippedEnds, buckets.clippedEnds, 0);
+        }
+    }
+}
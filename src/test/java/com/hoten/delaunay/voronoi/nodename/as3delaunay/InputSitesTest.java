@@ -0,0 +1,113 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * result().inputSites takes each input site, duplicates included, to the
+ * site at its coordinates, for every kind of input and either engine, and
+ * keeps doing so through insertSite() and removeSite().
+ */
+public class InputSitesTest {
+
+    private static final Rectangle BOUNDS = new Rectangle(0, 0, 1000, 1000);
+
+    @Test
+    public void inputSitesFindTheirSites() {
+        Random r = new Random(1);
+        for (int n : new int[]{1, 2, 3, 50, 5000}) {
+            double[] coords = withDuplicates(n, r);
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < coords.length / 2; i++) {
+                points.add(new Point(coords[2 * i], coords[2 * i + 1]));
+            }
+            for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+                BuildOptions options = new BuildOptions().engine(engine);
+                Voronoi[] voronois = {
+                    new Voronoi(coords, BOUNDS, options),
+                    new Voronoi(DoubleBuffer.wrap(coords), BOUNDS, options),
+                    new Voronoi(points, null, BOUNDS, options)
+                };
+                for (int k = 0; k < voronois.length; k++) {
+                    check(voronois[k], coords, n + " sites, " + engine + ", input " + k);
+                    voronois[k].dispose();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void inputSitesFollowEdits() {
+        Random r = new Random(2);
+        for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+            double[] coords = withDuplicates(100, r);
+            Voronoi voronoi = new Voronoi(coords, BOUNDS, new BuildOptions().engine(engine));
+            for (int step = 0; step < 50; step++) {
+                if (r.nextBoolean()) {
+                    int site = r.nextInt(voronoi.result().numSites);
+                    for (int i = 0; i < coords.length / 2; i++) {
+                        if (voronoi.result().inputSites[i] == site) {
+                            coords[2 * i] = coords[2 * i + 1] = Double.NaN;
+                        }
+                    }
+                    voronoi.removeSite(site);
+                } else {
+                    voronoi.insertSite(new Point(1000 * r.nextDouble(), 1000 * r.nextDouble()));
+                }
+                check(voronoi, coords, engine + ", step " + step);
+            }
+            voronoi.dispose();
+        }
+    }
+
+    // n sites, then as many again that repeat some of them
+    private static double[] withDuplicates(int n, Random r) {
+        double[] coords = new double[4 * n];
+        for (int i = 0; i < 2 * n; i++) {
+            coords[i] = 1000 * r.nextDouble();
+        }
+        for (int i = n; i < 2 * n; i++) {
+            int of = r.nextInt(i);
+            coords[2 * i] = coords[2 * of];
+            coords[2 * i + 1] = coords[2 * of + 1];
+        }
+        return coords;
+    }
+
+    /**
+     * Checks that each input site, those at NaN having been removed, is the
+     * site at its coordinates.
+     */
+    private static void check(Voronoi voronoi, double[] coords, String input) {
+        VoronoiResult result = voronoi.result();
+        assertEquals(input, coords.length / 2, result.inputSites.length);
+        HashSet<Integer> found = new HashSet();
+        for (int i = 0; i < coords.length / 2; i++) {
+            int site = result.inputSites[i];
+            if (Double.isNaN(coords[2 * i])) {
+                assertEquals(input + ", input " + i + " was removed", -1, site);
+                continue;
+            }
+            assertTrue(input + ", input " + i, site >= 0 && site < result.numSites);
+            assertEquals(input + ", input " + i, coords[2 * i], result.siteCoords[2 * site], 0);
+            assertEquals(input + ", input " + i, coords[2 * i + 1], result.siteCoords[2 * site + 1], 0);
+            found.add(site);
+        }
+        // each site left from the input is found; the other sites were inserted
+        HashSet<String> distinct = new HashSet();
+        for (int i = 0; i < coords.length / 2; i++) {
+            if (!Double.isNaN(coords[2 * i])) {
+                distinct.add(coords[2 * i] + " " + coords[2 * i + 1]);
+            }
+        }
+        assertEquals(input, distinct.size(), found.size());
+    }
+}
@@ -0,0 +1,176 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * update() leaves the triangulation that building from scratch makes, both
+ * when it repairs it and when it gives up and builds it again. Sites on a
+ * grid, where every four sites of a cell are on one circle and every row is
+ * on one line, triangulate into two triangles per cell. Sites that land on
+ * one another and move off again are repaired, not built again.
+ */
+public class KineticVoronoiTest {
+
+    @Test
+    public void gridInUnitSquare() {
+        checkGrid(new KineticVoronoi(grid(9, 1, 0.5), new Rectangle(0, 0, 1, 1)), 9, 1, 0.5);
+    }
+
+    @Test
+    public void gridsInLargeSquare() {
+        checkGrid(new KineticVoronoi(grid(15, 1000, 0.5), new Rectangle(0, 0, 1000, 1000)), 15, 1000, 0.5);
+        checkGrid(new KineticVoronoi(grid(70, 1000, 0.5), new Rectangle(0, 0, 1000, 1000)), 70, 1000, 0.5);
+    }
+
+    @Test
+    public void gridsOfEverySize() {
+        for (int n = 2; n <= 40; n++) {
+            for (double size : new double[]{1, 1000}) {
+                for (double offset : new double[]{0.5, 0.25}) {
+                    Rectangle bounds = new Rectangle(0, 0, size, size);
+                    checkGrid(new KineticVoronoi(grid(n, size, offset), bounds), n, size, offset);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void updateOntoGrid() {
+        Random r = new Random(1);
+        for (int n : new int[]{9, 15, 33}) {
+            double[] grid = grid(n, 1000, 0.5);
+            double[] jittered = new double[grid.length];
+            for (int i = 0; i < grid.length; i++) {
+                jittered[i] = grid[i] + (r.nextDouble() - 0.5) * 1000 / n / 10;
+            }
+            KineticVoronoi kinetic = new KineticVoronoi(jittered, new Rectangle(0, 0, 1000, 1000));
+            kinetic.update(grid);
+            checkGrid(kinetic, n, 1000, 0.5);
+            kinetic.update(jittered);
+            kinetic.update(grid);
+            checkGrid(kinetic, n, 1000, 0.5);
+        }
+    }
+
+    @Test
+    public void randomUpdatesMatchRebuild() {
+        Random r = new Random(1);
+        Rectangle bounds = new Rectangle(0, 0, 100, 100);
+        int repaired = 0, rebuilt = 0;
+        for (int run = 0; run < 60; run++) {
+            int n = 20 + r.nextInt(200);
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] = 100 * r.nextDouble();
+            }
+            // small moves get repaired; the largest run past the flip budget
+            double step = new double[]{1, 5, 30}[run % 3];
+            KineticVoronoi kinetic = new KineticVoronoi(coords, bounds);
+            for (int update = 0; update < 50; update++) {
+                for (int i = 0; i < coords.length; i++) {
+                    coords[i] = Math.min(100, Math.max(0, coords[i] + (2 * r.nextDouble() - 1) * step));
+                }
+                if (kinetic.update(coords)) {
+                    repaired++;
+                } else {
+                    rebuilt++;
+                }
+                assertEquals("run " + run + ", update " + update, triangles(new KineticVoronoi(coords, bounds)),
+                        triangles(kinetic));
+            }
+        }
+        assertTrue(repaired > 0 && rebuilt > 0);
+    }
+
+    @Test
+    public void coincidentSitesAreRepaired() {
+        Random r = new Random(2);
+        Rectangle bounds = new Rectangle(0, 0, 100, 100);
+        int n = 300;
+        double[] coords = new double[2 * n];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = 100 * r.nextDouble();
+        }
+        KineticVoronoi kinetic = new KineticVoronoi(coords, bounds);
+        for (int update = 0; update < 100; update++) {
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] += (2 * r.nextDouble() - 1) * 0.1;
+            }
+            // every other update, some sites land on others, and the rest of the time they move off again
+            if (update % 2 == 0) {
+                for (int k = 0; k < 10; k++) {
+                    int site = r.nextInt(n), other = r.nextInt(n);
+                    coords[2 * site] = coords[2 * other];
+                    coords[2 * site + 1] = coords[2 * other + 1];
+                }
+            }
+            String input = "update " + update;
+            assertTrue(input, kinetic.update(coords));
+            KineticVoronoi fresh = new KineticVoronoi(coords, bounds);
+            assertEquals(input, triangles(fresh), triangles(kinetic));
+            for (int s = 0; s < n; s++) {
+                assertEquals(input + ", site " + s, fresh.twinOf(s), kinetic.twinOf(s));
+            }
+        }
+    }
+
+    // the triangles, each starting at its lowest site, in order
+    private static String triangles(KineticVoronoi kinetic) {
+        int[] out = new int[6 * kinetic.get_numSites()];
+        int n = kinetic.triangles(out);
+        String[] triangles = new String[n];
+        for (int t = 0; t < n; t++) {
+            int a = out[3 * t], b = out[3 * t + 1], c = out[3 * t + 2];
+            int k = a < b && a < c ? 0 : b < c ? 1 : 2;
+            triangles[t] = out[3 * t + k] + " " + out[3 * t + (k + 1) % 3] + " " + out[3 * t + (k + 2) % 3];
+        }
+        Arrays.sort(triangles);
+        return String.join(", ", triangles);
+    }
+
+    // n by n sites at ((i + offset) / n, (j + offset) / n), scaled to size
+    private static double[] grid(int n, double size, double offset) {
+        double[] coords = new double[2 * n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                coords[2 * (i * n + j)] = (i + offset) / n * size;
+                coords[2 * (i * n + j) + 1] = (j + offset) / n * size;
+            }
+        }
+        return coords;
+    }
+
+    private static void checkGrid(KineticVoronoi kinetic, int n, double size, double offset) {
+        String input = n + " by " + n + " in " + size + ", offset " + offset;
+        double cell = size / n;
+        int[] triangles = new int[6 * n * n];
+        int numTriangles = kinetic.triangles(triangles);
+        assertEquals(input, 2 * (n - 1) * (n - 1), numTriangles);
+        double[] coords = grid(n, size, offset);
+        for (int t = 0; t < numTriangles; t++) {
+            int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+            double area = Predicates.orient(coords[2 * a], coords[2 * a + 1], coords[2 * b],
+                    coords[2 * b + 1], coords[2 * c], coords[2 * c + 1]) / 2;
+            assertEquals(input + ", triangle " + t, cell * cell / 2, area, cell * cell * 1e-9);
+        }
+        // the regions tile the bounds
+        double total = 0;
+        double[] region = new double[2 * 16];
+        for (int s = 0; s < n * n; s++) {
+            int m = kinetic.region(s, region);
+            double twice = 0;
+            for (int i = 0; i < m; i++) {
+                int j = (i + 1) % m;
+                twice += region[2 * i] * region[2 * j + 1] - region[2 * j] * region[2 * i + 1];
+            }
+            total += Math.abs(twice) / 2;
+        }
+        assertEquals(input, size * size, total, size * size * 1e-9);
+    }
+}
@@ -0,0 +1,51 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+
+import com.hoten.delaunay.geom.Rectangle;
+import org.junit.Test;
+
+/**
+ * Sites on a grid that fits the domain, whose halo is as degenerate as the
+ * grid itself, wrap into square cells that tile the torus.
+ */
+public class PeriodicVoronoiTest {
+
+    @Test
+    public void gridInLargeSquare() {
+        checkGrid(70, 1000, 0.5);
+    }
+
+    @Test
+    public void gridsOfManySizes() {
+        for (int n = 4; n <= 40; n++) {
+            checkGrid(n, 1, 0.5);
+            checkGrid(n, 1000, 0.25);
+        }
+    }
+
+    private static void checkGrid(int n, double size, double offset) {
+        String input = n + " by " + n + " in " + size + ", offset " + offset;
+        double[] coords = new double[2 * n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                coords[2 * (i * n + j)] = (i + offset) / n * size;
+                coords[2 * (i * n + j) + 1] = (j + offset) / n * size;
+            }
+        }
+        RegionTable regions = new PeriodicVoronoi(coords, new Rectangle(0, 0, size, size)).regionTable();
+        double cell = size / n;
+        double total = 0;
+        for (int s = 0; s < n * n; s++) {
+            double twice = 0;
+            for (int i = regions.offsets[s]; i < regions.offsets[s + 1]; i++) {
+                int j = i + 1 < regions.offsets[s + 1] ? i + 1 : regions.offsets[s];
+                twice += regions.coords[2 * i] * regions.coords[2 * j + 1]
+                        - regions.coords[2 * j] * regions.coords[2 * i + 1];
+            }
+            assertEquals(input + ", site " + s, cell * cell, twice / 2, cell * cell * 1e-6);
+            total += twice / 2;
+        }
+        assertEquals(input, size * size, total, size * size * 1e-9);
+    }
+}
@@ -0,0 +1,116 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * With every engine and OutputMode, the sink gets the edges and vertices of
+ * the flat result, in the order IVoronoiSink promises: each vertex before the
+ * first edge that ends in it, each site after the last edge around it.
+ */
+public class SinkTest {
+
+    private static final Rectangle BOUNDS = new Rectangle(0, 0, 1000, 1000);
+
+    @Test
+    public void sinkMatchesResult() {
+        Random r = new Random(1);
+        for (int n : new int[]{2, 3, 50, 5000}) {
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < coords.length; i++) {
+                // some sites outside the bounds, whose edges are clipped away
+                coords[i] = 1100 * r.nextDouble() - 50;
+            }
+            for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+                VoronoiResult expected = new Voronoi(coords, BOUNDS, new BuildOptions().engine(engine)
+                        .outputMode(BuildOptions.OutputMode.OBJECTS_AND_FLAT)).result();
+                for (BuildOptions.OutputMode mode : BuildOptions.OutputMode.values()) {
+                    RecordingSink sink = new RecordingSink(expected.numSites, expected.numVertices,
+                            n + " sites, " + engine + ", " + mode);
+                    new Voronoi(coords, BOUNDS, new BuildOptions().engine(engine).outputMode(mode).sink(sink)).dispose();
+                    sink.check(expected);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void streamNeedsASink() {
+        new Voronoi(new double[]{1, 2, 3, 4}, BOUNDS, new BuildOptions().outputMode(BuildOptions.OutputMode.STREAM));
+    }
+
+    private static final class RecordingSink implements IVoronoiSink {
+
+        private final String _input;
+        private final double[] _vertexCoords;
+        private final boolean[] _vertexSeen, _siteFinished;
+        // left site, right site, left vertex and right vertex to the clipped ends
+        private final HashMap<String, double[]> _edges = new HashMap();
+
+        RecordingSink(int numSites, int numVertices, String input) {
+            _input = input;
+            _vertexCoords = new double[2 * numVertices];
+            _vertexSeen = new boolean[numVertices];
+            _siteFinished = new boolean[numSites];
+        }
+
+        @Override
+        public void vertexCreated(int vertex, double x, double y) {
+            assertFalse(_input + ", vertex " + vertex + " twice", _vertexSeen[vertex]);
+            _vertexSeen[vertex] = true;
+            _vertexCoords[2 * vertex] = x;
+            _vertexCoords[2 * vertex + 1] = y;
+        }
+
+        @Override
+        public void edgeCompleted(int leftSite, int rightSite, int leftVertex, int rightVertex,
+                double x0, double y0, double x1, double y1) {
+            String edge = leftSite + " " + rightSite + " " + leftVertex + " " + rightVertex;
+            assertTrue(_input + ", edge " + edge + " before its left vertex", leftVertex < 0 || _vertexSeen[leftVertex]);
+            assertTrue(_input + ", edge " + edge + " before its right vertex", rightVertex < 0 || _vertexSeen[rightVertex]);
+            assertFalse(_input + ", edge " + edge + " after site " + leftSite + " finished", _siteFinished[leftSite]);
+            assertFalse(_input + ", edge " + edge + " after site " + rightSite + " finished", _siteFinished[rightSite]);
+            assertNull(_input + ", edge " + edge + " twice", _edges.put(edge, new double[]{x0, y0, x1, y1}));
+        }
+
+        @Override
+        public void siteFinished(int site, double x, double y) {
+            assertFalse(_input + ", site " + site + " finished twice", _siteFinished[site]);
+            _siteFinished[site] = true;
+        }
+
+        void check(VoronoiResult expected) {
+            for (int s = 0; s < expected.numSites; s++) {
+                assertTrue(_input + ", site " + s + " never finished", _siteFinished[s]);
+            }
+            for (int v = 0; v < expected.numVertices; v++) {
+                assertTrue(_input + ", vertex " + v + " never created", _vertexSeen[v]);
+                assertEquals(_input + ", vertex " + v, expected.vertexCoords[2 * v], _vertexCoords[2 * v], 0);
+                assertEquals(_input + ", vertex " + v, expected.vertexCoords[2 * v + 1], _vertexCoords[2 * v + 1], 0);
+            }
+            assertEquals(_input + ", edges", expected.numEdges, _edges.size());
+            for (int e = 0; e < expected.numEdges; e++) {
+                String edge = expected.edges[4 * e] + " " + expected.edges[4 * e + 1] + " "
+                        + expected.edges[4 * e + 2] + " " + expected.edges[4 * e + 3];
+                double[] ends = _edges.get(edge);
+                assertNotNull(_input + ", edge " + edge + " missing", ends);
+                for (int k = 0; k < 4; k++) {
+                    double end = expected.clippedEnds[4 * e + k];
+                    if (Double.isNaN(end)) {
+                        assertTrue(_input + ", edge " + edge + " should be clipped away", Double.isNaN(ends[k]));
+                    } else {
+                        assertEquals(_input + ", edge " + edge, end, ends[k], 1e-9);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.hoten.delaunay.voronoi.nodename.as3delaunay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hoten.delaunay.geom.Point;
+import com.hoten.delaunay.geom.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * triangles() are the triangles of the edge graph: for random sites, one per
+ * Voronoi vertex, made of the three sites whose edges meet there, with
+ * either engine and after insertSite() and removeSite(). They are
+ * counterclockwise even as slivers of sites near a line.
+ */
+public class TrianglesTest {
+
+    private static final Rectangle BOUNDS = new Rectangle(0, 0, 1000, 1000);
+
+    @Test
+    public void trianglesMatchEdges() {
+        Random r = new Random(1);
+        for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+            for (int trial = 0; trial < 50; trial++) {
+                int n = 3 + r.nextInt(trial < 40 ? 60 : 5000);
+                double[] coords = new double[2 * n];
+                for (int i = 0; i < coords.length; i++) {
+                    coords[i] = 1000 * r.nextDouble();
+                }
+                Voronoi voronoi = new Voronoi(coords, BOUNDS, new BuildOptions().engine(engine).triangles(true));
+                check(voronoi, engine + ", trial " + trial);
+                voronoi.dispose();
+            }
+        }
+    }
+
+    @Test
+    public void sitesNearALine() {
+        Random r = new Random(3);
+        for (int n : new int[]{10, 100, 2000}) {
+            // on the line but for rounding, so that many triangles are slivers
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                coords[2 * i] = 1e6 * r.nextDouble();
+                coords[2 * i + 1] = 200 + 0.6 * coords[2 * i];
+            }
+            Voronoi voronoi = new Voronoi(coords, null,
+                    new BuildOptions().engine(BuildOptions.Engine.DIVIDE_AND_CONQUER).triangles(true));
+            check(voronoi, n + " sites near a line");
+            voronoi.dispose();
+        }
+    }
+
+    @Test
+    public void trianglesMatchEdgesAfterEdits() {
+        Random r = new Random(2);
+        for (BuildOptions.Engine engine : BuildOptions.Engine.values()) {
+            ArrayList<Point> points = new ArrayList();
+            for (int i = 0; i < 100; i++) {
+                points.add(new Point(1000 * r.nextDouble(), 1000 * r.nextDouble()));
+            }
+            Voronoi voronoi = new Voronoi(points, null, BOUNDS, new BuildOptions().engine(engine).triangles(true));
+            for (int step = 0; step < 50; step++) {
+                if (r.nextBoolean()) {
+                    voronoi.removeSite(r.nextInt(voronoi.siteCoords().size()));
+                } else {
+                    voronoi.insertSite(new Point(1200 * r.nextDouble() - 100, 1200 * r.nextDouble() - 100));
+                }
+                check(voronoi, engine + ", step " + step);
+            }
+        }
+    }
+
+    private static void check(Voronoi voronoi, String input) {
+        VoronoiResult result = voronoi.result();
+        int[] triangles = voronoi.triangles();
+        assertEquals(input, result.numVertices, triangles.length / 3);
+        double[] xy = result.siteCoords;
+        String[] found = new String[triangles.length / 3];
+        for (int t = 0; t < found.length; t++) {
+            int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+            assertTrue(input + ", triangle " + t + " is not counterclockwise",
+                    Predicates.orient(xy[2 * a], xy[2 * a + 1], xy[2 * b], xy[2 * b + 1], xy[2 * c], xy[2 * c + 1]) > 0);
+            found[t] = key(a, b, c);
+        }
+        // the sites of the edges that meet at each vertex
+        int[][] around = new int[result.numVertices][];
+        for (int e = 0; e < result.numEdges; e++) {
+            for (int end = 2; end < 4; end++) {
+                int v = result.edges[4 * e + end];
+                if (v < 0) {
+                    continue;
+                }
+                around[v] = add(around[v], result.edges[4 * e]);
+                around[v] = add(around[v], result.edges[4 * e + 1]);
+            }
+        }
+        String[] expected = new String[result.numVertices];
+        for (int v = 0; v < expected.length; v++) {
+            assertEquals(input + ", vertex " + v, 3, around[v].length);
+            expected[v] = key(around[v][0], around[v][1], around[v][2]);
+        }
+        Arrays.sort(found);
+        Arrays.sort(expected);
+        assertEquals(input, String.join(", ", expected), String.join(", ", found));
+    }
+
+    // sites with site added, unless it is there already
+    private static int[] add(int[] sites, int site) {
+        if (sites == null) {
+            return new int[]{site};
+        }
+        for (int s : sites) {
+            if (s == site) {
+                return sites;
+            }
+        }
+        int[] more = Arrays.copyOf(sites, sites.length + 1);
+        more[sites.length] = site;
+        return more;
+    }
+
+    private static String key(int a, int b, int c) {
+        int[] sites = {a, b, c};
+        Arrays.sort(sites);
+        return sites[0] + " " + sites[1] + " " + sites[2];
+    }
+}